@@ -1,19 +1,27 @@
 package pl.bookmarket.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import pl.bookmarket.dto.BookCreateDto;
 import pl.bookmarket.dto.BookDto;
+import pl.bookmarket.dto.BookSuggestionDto;
+import pl.bookmarket.dto.BookTextMatchDto;
 import pl.bookmarket.mapper.BookMapper;
 import pl.bookmarket.model.Book;
 import pl.bookmarket.service.crud.BookService;
+import pl.bookmarket.service.search.BookTextField;
+import pl.bookmarket.util.CaseInsensitiveEnumEditor;
+import pl.bookmarket.util.CursorPage;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 
 import javax.validation.Valid;
@@ -36,6 +44,29 @@ public class BookController {
         return bookService.getAllBooks().stream().map(bookMapper::bookToBookDto).collect(Collectors.toList());
     }
 
+    @GetMapping("${bm.controllers.book}/search")
+    public CursorPage<BookDto> searchBooks(@RequestParam String q,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return bookService.searchBooks(q, cursor, size).map(bookMapper::bookToBookDto);
+    }
+
+    @GetMapping("${bm.controllers.book}/lookup")
+    public List<BookTextMatchDto> findSimilarTexts(@RequestParam String q,
+                                                   @RequestParam(required = false) BookTextField field,
+                                                   @RequestParam(defaultValue = "10") int limit) {
+        return bookService.findSimilarTexts(q, field, limit).stream().map(bookMapper::matchToBookTextMatchDto)
+                          .collect(Collectors.toList());
+    }
+
+    @GetMapping("${bm.controllers.book}/suggest")
+    public List<BookSuggestionDto> suggestTexts(@RequestParam String prefix,
+                                                @RequestParam(required = false) BookTextField field,
+                                                @RequestParam(defaultValue = "10") int limit) {
+        return bookService.suggestTexts(prefix, field, limit).stream().map(bookMapper::suggestionToBookSuggestionDto)
+                          .collect(Collectors.toList());
+    }
+
     @GetMapping("${bm.controllers.book}/{id}")
     public BookDto getBookById(@PathVariable Long id) {
         Book book = bookService.getBookById(id).orElseThrow(() -> new EntityNotFoundException(Book.class));
@@ -66,4 +97,9 @@ public class BookController {
     public void deleteBook(@PathVariable Long id) {
         bookService.deleteBook(id);
     }
+
+    @InitBinder
+    public void initBinder(WebDataBinder dataBinder) {
+        dataBinder.registerCustomEditor(BookTextField.class, new CaseInsensitiveEnumEditor<>(BookTextField.class));
+    }
 }
\ No newline at end of file
@@ -1,24 +1,45 @@
 package pl.bookmarket.controller;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.bookmarket.dto.AuctionDto;
 import pl.bookmarket.dto.BookDto;
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.dto.BookFilterDto.BookSort;
+import pl.bookmarket.dto.ForSaleFacetsDto;
+import pl.bookmarket.dto.MarketStatsDto;
+import pl.bookmarket.dto.OfferBatchCreateDto;
 import pl.bookmarket.dto.OfferCreateDto;
 import pl.bookmarket.dto.OfferDto;
+import pl.bookmarket.dto.OfferSort;
+import pl.bookmarket.dto.PricePointDto;
+import pl.bookmarket.dto.TradeDto;
 import pl.bookmarket.mapper.BookMapper;
 import pl.bookmarket.mapper.OfferMapper;
+import pl.bookmarket.mapper.TradeMapper;
 import pl.bookmarket.model.Offer;
+import pl.bookmarket.service.catalog.ForSaleEventStream;
 import pl.bookmarket.service.crud.BookService;
 import pl.bookmarket.service.crud.MarketService;
+import pl.bookmarket.service.crud.TradeService;
+import pl.bookmarket.util.BatchItemResult;
+import pl.bookmarket.util.CaseInsensitiveEnumEditor;
+import pl.bookmarket.util.CursorPage;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 
 import javax.validation.Valid;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,20 +48,58 @@ public class MarketController {
 
     private final MarketService marketService;
     private final BookService bookService;
+    private final TradeService tradeService;
     private final OfferMapper offerMapper;
     private final BookMapper bookMapper;
+    private final TradeMapper tradeMapper;
+    private final ForSaleEventStream forSaleEventStream;
 
-    public MarketController(MarketService marketService, BookService bookService, OfferMapper offerMapper, BookMapper bookMapper) {
+    public MarketController(MarketService marketService, BookService bookService, TradeService tradeService,
+                            OfferMapper offerMapper, BookMapper bookMapper, TradeMapper tradeMapper,
+                            ForSaleEventStream forSaleEventStream) {
         this.marketService = marketService;
         this.bookService = bookService;
+        this.tradeService = tradeService;
         this.offerMapper = offerMapper;
         this.bookMapper = bookMapper;
+        this.tradeMapper = tradeMapper;
+        this.forSaleEventStream = forSaleEventStream;
     }
 
     @GetMapping("${bm.controllers.book}/forsale")
-    public List<BookDto> getBooksForSale() {
-        return bookService.getBooksForSale().stream().map(bookMapper::bookToBookDto)
-                          .collect(Collectors.toList());
+    public CursorPage<BookDto> getBooksForSale(@Valid BookFilterDto filter,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "20") int size) {
+        return bookService.getBooksForSale(filter, cursor, size).map(bookMapper::bookToBookDto);
+    }
+
+    @GetMapping(value = "${bm.controllers.book}/forsale/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBooksForSale() {
+        return forSaleEventStream.subscribe();
+    }
+
+    @GetMapping("${bm.controllers.book}/forsale/facets")
+    public ForSaleFacetsDto getForSaleFacets() {
+        return bookService.getForSaleFacets();
+    }
+
+    @GetMapping("${bm.controllers.book}/{id}/history")
+    public CursorPage<TradeDto> getBookHistory(@PathVariable Long id,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "20") int size) {
+        return tradeService.getBookHistory(id, cursor, size).map(tradeMapper::tradeToTradeDto);
+    }
+
+    @GetMapping("${bm.controllers.book}/history")
+    public List<PricePointDto> getPriceHistory(@RequestParam String title,
+                                               @RequestParam(required = false) YearMonth from,
+                                               @RequestParam(required = false) YearMonth to) {
+        return tradeService.getPriceHistory(title, from, to);
+    }
+
+    @GetMapping("${bm.controllers.book}/stats")
+    public MarketStatsDto getMarketStatistics() {
+        return marketService.getMarketStatistics();
     }
 
     @GetMapping("${bm.controllers.user}/{id}/offers")
@@ -49,12 +108,25 @@ public class MarketController {
                             .collect(Collectors.toList());
     }
 
+    @GetMapping("${bm.controllers.user}/{id}/incoming-offers")
+    public CursorPage<OfferDto> getIncomingOffersForUser(@PathVariable Long id,
+                                                         @RequestParam(defaultValue = "NEWEST") OfferSort sort,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int size) {
+        return marketService.getIncomingOffers(id, sort, cursor, size).map(offerMapper::offerToOfferDto);
+    }
+
     @GetMapping("${bm.controllers.book}/{id}/offers")
     public List<OfferDto> getOffersForBook(@PathVariable Long id) {
         return marketService.getOffersForBook(id).stream().map(offerMapper::offerToOfferDto)
                             .collect(Collectors.toList());
     }
 
+    @GetMapping("${bm.controllers.book}/{id}/auction")
+    public AuctionDto getAuction(@PathVariable Long id) {
+        return offerMapper.auctionToAuctionDto(marketService.getAuction(id));
+    }
+
     @GetMapping("${bm.controllers.offer}/{id}")
     public OfferDto getOfferById(@PathVariable Long id) {
         return offerMapper.offerToOfferDto(marketService.getOfferById(id)
@@ -68,6 +140,14 @@ public class MarketController {
         return offerMapper.offerToOfferDto(created);
     }
 
+    @PostMapping("${bm.controllers.offer}/batch")
+    public List<BatchItemResult<OfferDto>> addOffers(@Valid @RequestBody OfferBatchCreateDto batch) {
+        List<Offer> offers = batch.getOffers().stream().map(offerMapper::offerCreateDtoToOffer)
+                                  .collect(Collectors.toList());
+        return marketService.addOffers(offers).stream().map(result -> result.map(offerMapper::offerToOfferDto))
+                            .collect(Collectors.toList());
+    }
+
     @PostMapping("${bm.controllers.offer}/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void acceptOffer(@PathVariable Long id) {
@@ -79,4 +159,10 @@ public class MarketController {
     public void deleteOffer(@PathVariable Long id) {
         marketService.deleteOffer(id);
     }
-}
\ No newline at end of file
+
+    @InitBinder
+    public void initBinder(WebDataBinder dataBinder) {
+        dataBinder.registerCustomEditor(BookSort.class, new CaseInsensitiveEnumEditor<>(BookSort.class));
+        dataBinder.registerCustomEditor(OfferSort.class, new CaseInsensitiveEnumEditor<>(OfferSort.class));
+    }
+}
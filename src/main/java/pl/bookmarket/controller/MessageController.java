@@ -14,40 +14,74 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import pl.bookmarket.dto.ArchivedMessageDto;
+import pl.bookmarket.dto.BroadcastCreateDto;
+import pl.bookmarket.dto.BroadcastDto;
+import pl.bookmarket.dto.ConversationDto;
 import pl.bookmarket.dto.MessageCreateDto;
 import pl.bookmarket.dto.MessageDto;
+import pl.bookmarket.dto.UnreadCountDto;
+import pl.bookmarket.mapper.BroadcastMapper;
+import pl.bookmarket.mapper.ConversationMapper;
 import pl.bookmarket.mapper.MessageMapper;
 import pl.bookmarket.model.Message;
 import pl.bookmarket.service.crud.MessageService;
+import pl.bookmarket.util.CaseInsensitiveEnumEditor;
+import pl.bookmarket.util.CursorPage;
 import pl.bookmarket.validation.ValidationGroups.OnCreate;
 
 import javax.validation.Valid;
-import java.beans.PropertyEditorSupport;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 public class MessageController {
 
     private final MessageService messageService;
     private final MessageMapper messageMapper;
+    private final ConversationMapper conversationMapper;
+    private final BroadcastMapper broadcastMapper;
 
-    public MessageController(MessageService messageService, MessageMapper messageMapper) {
+    public MessageController(MessageService messageService, MessageMapper messageMapper,
+                             ConversationMapper conversationMapper, BroadcastMapper broadcastMapper) {
         this.messageService = messageService;
         this.messageMapper = messageMapper;
+        this.conversationMapper = conversationMapper;
+        this.broadcastMapper = broadcastMapper;
     }
 
     @GetMapping("${bm.controllers.user}/{id}/messages")
-    public List<MessageDto> getMessages(@RequestParam(defaultValue = "all") MessageFilter filter, @PathVariable Long id) {
-        List<Message> messageList;
+    public CursorPage<MessageDto> getMessages(@RequestParam(defaultValue = "all") MessageFilter filter,
+                                              @PathVariable Long id,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "20") int size) {
+        CursorPage<Message> messages;
         if (filter == MessageFilter.UNREAD) {
-            messageList = messageService.getUnreadMessages(id);
+            messages = messageService.getUnreadMessages(id, cursor, size);
         } else if (filter == MessageFilter.RECEIVED) {
-            messageList = messageService.getReceivedMessages(id);
+            messages = messageService.getReceivedMessages(id, cursor, size);
         } else {
-            messageList = messageService.getAllMessages(id);
+            messages = messageService.getAllMessages(id, cursor, size);
         }
-        return messageList.stream().map(messageMapper::messageToMessageDto).collect(Collectors.toList());
+        return messages.map(messageMapper::messageToMessageDto);
+    }
+
+    @GetMapping("${bm.controllers.user}/{id}/messages/archive")
+    public CursorPage<ArchivedMessageDto> getArchivedMessages(@PathVariable Long id,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        return messageService.getArchivedMessages(id, cursor, size).map(messageMapper::archivedMessageToArchivedMessageDto);
+    }
+
+    @GetMapping("${bm.controllers.user}/{id}/messages/unread-count")
+    public UnreadCountDto getUnreadMessageCount(@PathVariable Long id) {
+        return new UnreadCountDto(messageService.getUnreadMessageCount(id));
+    }
+
+    @GetMapping("${bm.controllers.user}/{id}/conversations")
+    public CursorPage<ConversationDto> getConversations(@PathVariable Long id,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return messageService.getConversations(id, cursor, size).map(conversationMapper::conversationToConversationDto);
     }
 
     @PostMapping("${bm.controllers.message}")
@@ -63,6 +97,12 @@ public class MessageController {
         messageService.setMessagesRead(messageIdsList);
     }
 
+    @PatchMapping("${bm.controllers.user}/{id}/messages")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void setAllMessagesReadForUser(@PathVariable Long id, @RequestParam Long upTo) {
+        messageService.setAllMessagesRead(id, upTo);
+    }
+
     @PutMapping("${bm.controllers.message}/{id}")
     public MessageDto updateMessage(@Valid @RequestBody MessageCreateDto message, @PathVariable Long id) {
         Message toBeUpdated = messageMapper.messageCreateDtoToMessage(message);
@@ -76,9 +116,26 @@ public class MessageController {
         messageService.deleteMessage(id);
     }
 
+    @GetMapping("${bm.controllers.message}/broadcasts/{id}")
+    public BroadcastDto getBroadcast(@PathVariable Long id) {
+        return broadcastMapper.broadcastToBroadcastDto(messageService.getBroadcast(id));
+    }
+
+    @PostMapping("${bm.controllers.message}/broadcasts")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BroadcastDto startBroadcast(@Valid @RequestBody BroadcastCreateDto broadcast) {
+        return broadcastMapper.broadcastToBroadcastDto(messageService.createBroadcast(broadcast.getText()));
+    }
+
+    @PostMapping("${bm.controllers.message}/broadcasts/{id}/resume")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BroadcastDto resumeBroadcast(@PathVariable Long id) {
+        return broadcastMapper.broadcastToBroadcastDto(messageService.resumeBroadcast(id));
+    }
+
     @InitBinder
     public void initBinder(WebDataBinder dataBinder) {
-        dataBinder.registerCustomEditor(MessageFilter.class, new MessageFilterConverter());
+        dataBinder.registerCustomEditor(MessageFilter.class, new CaseInsensitiveEnumEditor<>(MessageFilter.class));
     }
 
     private enum MessageFilter {
@@ -86,15 +143,4 @@ public class MessageController {
         RECEIVED,
         UNREAD
     }
-
-    private static class MessageFilterConverter extends PropertyEditorSupport {
-        @Override
-        public void setAsText(String text) throws IllegalArgumentException {
-            for (MessageFilter filterValue : MessageFilter.values()) {
-                if (filterValue.toString().equalsIgnoreCase(text)) {
-                    setValue(filterValue);
-                }
-            }
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package pl.bookmarket.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import pl.bookmarket.dto.SavedSearchCreateDto;
+import pl.bookmarket.dto.SavedSearchDto;
+import pl.bookmarket.mapper.SavedSearchMapper;
+import pl.bookmarket.model.SavedSearch;
+import pl.bookmarket.service.crud.SavedSearchService;
+
+import javax.validation.Valid;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+    private final SavedSearchMapper savedSearchMapper;
+
+    public SavedSearchController(SavedSearchService savedSearchService, SavedSearchMapper savedSearchMapper) {
+        this.savedSearchService = savedSearchService;
+        this.savedSearchMapper = savedSearchMapper;
+    }
+
+    @GetMapping("${bm.controllers.user}/{id}/saved-searches")
+    public List<SavedSearchDto> getSavedSearches(@PathVariable Long id) {
+        return savedSearchService.getSavedSearches(id)
+                                 .stream()
+                                 .map(savedSearchMapper::savedSearchToSavedSearchDto)
+                                 .collect(Collectors.toList());
+    }
+
+    @PostMapping("${bm.controllers.user}/{id}/saved-searches")
+    @ResponseStatus(HttpStatus.CREATED)
+    public SavedSearchDto createSavedSearch(@PathVariable Long id, @Valid @RequestBody SavedSearchCreateDto savedSearch) {
+        SavedSearch created = savedSearchService.createSavedSearch(id, savedSearchMapper.savedSearchCreateDtoToSavedSearch(savedSearch));
+        return savedSearchMapper.savedSearchToSavedSearchDto(created);
+    }
+
+    @DeleteMapping("${bm.controllers.user}/{id}/saved-searches/{searchId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteSavedSearch(@PathVariable Long id, @PathVariable Long searchId) {
+        savedSearchService.deleteSavedSearch(id, searchId);
+    }
+}
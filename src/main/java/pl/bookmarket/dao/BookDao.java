@@ -1,24 +1,58 @@
 package pl.bookmarket.dao;
 
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import pl.bookmarket.dao.projection.AuctionListing;
+import pl.bookmarket.dao.projection.ForSaleListing;
+import pl.bookmarket.dao.projection.SearchableBook;
+import pl.bookmarket.dao.projection.TextValueCount;
 import pl.bookmarket.model.Book;
+import pl.bookmarket.model.User;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface BookDao extends CrudRepository<Book, Long> {
+public interface BookDao extends CrudRepository<Book, Long>, BookDaoCustom {
 
     @EntityGraph(attributePaths = {"genre", "owner"})
     List<Book> getBooksByOwnerId(Long id);
 
-    //get books marked for sale not owned by current user and for which the current user hasn't made an offer yet
-    @Query("from Book book join book.owner owner join book.genre where book.forSale=true and owner.id<>?1 and book.id not in "
-            + "(select b.id from Book b join b.offers o join o.buyer buyer where buyer.id=?1)")
-    List<Book> getBooksForSale(Long currentUserId);
+    @EntityGraph(attributePaths = {"genre", "owner"})
+    List<Book> getBooksByIdIn(Collection<Long> ids);
+
+    @Query("select b.id as id, b.genre.id as genreId, b.owner.id as ownerId, b.price as price, b.releaseYear as releaseYear "
+            + "from Book b where b.forSale=true and b.price is not null")
+    List<ForSaleListing> getForSaleListings();
+
+    @Query("select b.id as id, b.auctionEndsOn as auctionEndsOn, b.price as price, b.reservePrice as reservePrice "
+            + "from Book b where b.forSale=true and b.auctionEndsOn is not null")
+    List<AuctionListing> getAuctionListings();
+
+    @Query("select b.id as id, b.title as title, b.author as author, b.publisher as publisher from Book b "
+            + "where b.forSale=true")
+    List<SearchableBook> getSearchableBooks();
+
+    @Query("select b.title as value, count(b) as count from Book b group by b.title")
+    List<TextValueCount> getTitleCounts();
+
+    @Query("select b.author as value, count(b) as count from Book b group by b.author")
+    List<TextValueCount> getAuthorCounts();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Book b where b.id in ?1 order by b.id")
+    List<Book> lockBooks(Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Book b set b.owner=?3, b.forSale=false, b.price=null, b.auctionEndsOn=null, b.reservePrice=null, "
+            + "b.listedOn=null where b.id=?1 and b.owner=?2 and b.forSale=true")
+    int transferOwnership(Long bookId, User currentOwner, User newOwner);
 
     @Override
     @EntityGraph(attributePaths = {"genre", "owner"})
@@ -0,0 +1,13 @@
+package pl.bookmarket.dao;
+
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.util.Cursor;
+
+import java.util.List;
+
+public interface BookDaoCustom {
+
+    //get page of books marked for sale not owned by current user and for which the current user hasn't made an offer yet
+    List<Book> findBooksForSale(Long currentUserId, BookFilterDto filter, Cursor cursor, int limit);
+}
@@ -0,0 +1,86 @@
+package pl.bookmarket.dao;
+
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.dto.BookFilterDto.BookSort;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Offer;
+import pl.bookmarket.util.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookDaoCustomImpl implements BookDaoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Book> findBooksForSale(Long currentUserId, BookFilterDto filter, Cursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+        book.fetch("genre");
+        book.fetch("owner");
+
+        Path<Long> id = book.get("id");
+        Path<BigDecimal> price = book.get("price");
+
+        Subquery<Long> offered = query.subquery(Long.class);
+        Root<Offer> offer = offered.from(Offer.class);
+        offered.select(offer.get("id"))
+               .where(cb.equal(offer.get("book"), book), cb.equal(offer.get("buyer").get("id"), currentUserId));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isTrue(book.get("forSale")));
+        predicates.add(cb.notEqual(book.get("owner").get("id"), currentUserId));
+        predicates.add(cb.not(cb.exists(offered)));
+
+        if (filter.getGenreId() != null) {
+            predicates.add(cb.equal(book.get("genre").get("id"), filter.getGenreId()));
+        }
+        if (filter.getAuthor() != null) {
+            predicates.add(cb.equal(cb.lower(book.get("author")), filter.getAuthor().toLowerCase()));
+        }
+        if (filter.getPublisher() != null) {
+            predicates.add(cb.equal(cb.lower(book.get("publisher")), filter.getPublisher().toLowerCase()));
+        }
+        if (filter.getMinPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(price, filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(price, filter.getMaxPrice()));
+        }
+        if (filter.getReleasedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(book.get("releaseYear"), filter.getReleasedFrom()));
+        }
+        if (filter.getReleasedTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(book.get("releaseYear"), filter.getReleasedTo()));
+        }
+
+        if (filter.getSort() == BookSort.ID) {
+            if (cursor != null) {
+                predicates.add(cb.greaterThan(id, cursor.getLong(1)));
+            }
+            query.orderBy(cb.asc(id));
+        } else {
+            if (cursor != null) {
+                BigDecimal lastPrice = cursor.getDecimal(1);
+                predicates.add(cb.or(cb.greaterThan(price, lastPrice),
+                        cb.and(cb.equal(price, lastPrice), cb.greaterThan(id, cursor.getLong(2)))));
+            }
+            query.orderBy(cb.asc(price), cb.asc(id));
+        }
+
+        query.select(book).where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,22 @@
+package pl.bookmarket.dao;
+
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pl.bookmarket.model.Broadcast;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BroadcastDao extends CrudRepository<Broadcast, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Broadcast b where b.id=?1")
+    Optional<Broadcast> lockBroadcast(Long id);
+
+    @Query("select b.id from Broadcast b where b.status=?1 order by b.id")
+    List<Long> getBroadcastIds(Broadcast.Status status);
+}
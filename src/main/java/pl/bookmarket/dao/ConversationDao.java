@@ -0,0 +1,87 @@
+package pl.bookmarket.dao;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pl.bookmarket.model.Conversation;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ConversationDao extends CrudRepository<Conversation, Long> {
+
+    @Query("select c from Conversation c join fetch c.peer where c.owner.id=?1 order by c.lastActivity desc, c.id desc")
+    List<Conversation> getConversations(Long ownerId, Pageable pageable);
+
+    @Query("select c from Conversation c join fetch c.peer where c.owner.id=?1 and (c.lastActivity<?2 "
+            + "or (c.lastActivity=?2 and c.id<?3)) order by c.lastActivity desc, c.id desc")
+    List<Conversation> getConversationsAfter(Long ownerId, OffsetDateTime lastActivity, Long id, Pageable pageable);
+
+    boolean existsByOwnerIdAndPeerIdAndLastMessageId(Long ownerId, Long peerId, Long lastMessageId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set c.lastMessageId=?3, c.lastMessageText=?4, c.lastMessageSent=?5, "
+            + "c.lastActivity=?6, c.unreadCount=c.unreadCount+?7 where c.owner.id=?1 and c.peer.id=?2")
+    int updateLastMessage(Long ownerId, Long peerId, Long messageId, String text, boolean sent,
+                          OffsetDateTime sendTime, int unreadDelta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set "
+            + "c.lastMessageId=(select m.id from Message m where m.id in ?3 and m.receiver=c.peer), "
+            + "c.lastActivity=(select m.sendTime from Message m where m.id in ?3 and m.receiver=c.peer), "
+            + "c.lastMessageText=?4, c.lastMessageSent=true where c.owner.id=?1 and c.peer.id in ?2")
+    int updateLastSentMessages(Long ownerId, Collection<Long> peerIds, Collection<Long> messageIds, String text);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set "
+            + "c.lastMessageId=(select m.id from Message m where m.id in ?3 and m.receiver=c.owner), "
+            + "c.lastActivity=(select m.sendTime from Message m where m.id in ?3 and m.receiver=c.owner), "
+            + "c.lastMessageText=?4, c.lastMessageSent=false, c.unreadCount=c.unreadCount+1 "
+            + "where c.peer.id=?1 and c.owner.id in ?2")
+    int updateLastReceivedMessages(Long peerId, Collection<Long> ownerIds, Collection<Long> messageIds, String text);
+
+    @Modifying(flushAutomatically = true)
+    @Query("insert into Conversation (owner, peer, lastMessageId, lastMessageText, lastMessageSent, lastActivity, "
+            + "unreadCount) select m.sender, m.receiver, m.id, m.text, true, m.sendTime, 0 from Message m "
+            + "where m.id in ?1 "
+            + "and not exists (select c.id from Conversation c where c.owner=m.sender and c.peer=m.receiver)")
+    int insertSentConversations(Collection<Long> messageIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("insert into Conversation (owner, peer, lastMessageId, lastMessageText, lastMessageSent, lastActivity, "
+            + "unreadCount) select m.receiver, m.sender, m.id, m.text, false, m.sendTime, 1 from Message m "
+            + "where m.id in ?1 "
+            + "and not exists (select c.id from Conversation c where c.owner=m.receiver and c.peer=m.sender)")
+    int insertReceivedConversations(Collection<Long> messageIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set c.lastMessageText=?3 where c.owner.id in (?1, ?2) and c.peer.id in (?1, ?2) "
+            + "and c.lastMessageId=?4")
+    int updateLastMessageText(Long firstUserId, Long secondUserId, String text, Long messageId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set c.unreadCount=c.unreadCount+?3 where c.owner.id=?1 and c.peer.id=?2")
+    int addUnreadCount(Long ownerId, Long peerId, int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set c.unreadCount=(select count(m) from Message m where m.receiver.id=?1 "
+            + "and m.sender=c.peer and m.read=false) where c.owner.id=?1")
+    int recountUnread(Long ownerId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Conversation c set c.unreadCount=(select count(m) from Message m where m.receiver.id=?1 "
+            + "and m.sender=c.peer and m.read=false) where c.owner.id=?1 and c.peer.id in ?2")
+    int recountUnread(Long ownerId, Collection<Long> peerIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Conversation c where c.owner.id in (?1, ?2) and c.peer.id in (?1, ?2)")
+    int deleteConversationsOfPair(Long firstUserId, Long secondUserId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Conversation c where c.owner.id=?1 or c.peer.id=?1")
+    int deleteConversationsOfUser(Long userId);
+}
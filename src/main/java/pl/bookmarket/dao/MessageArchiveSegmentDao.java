@@ -0,0 +1,28 @@
+package pl.bookmarket.dao;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pl.bookmarket.model.MessageArchiveSegment;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MessageArchiveSegmentDao extends CrudRepository<MessageArchiveSegment, Long> {
+
+    @Query("select s from MessageArchiveSegment s where s.userId=?1 and s.archiveMonth<=?2 order by s.archiveMonth desc")
+    List<MessageArchiveSegment> getSegmentsFrom(Long userId, Integer archiveMonth, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from MessageArchiveSegment s where s.userId in ?1 and s.archiveMonth in ?2")
+    List<MessageArchiveSegment> lockSegments(Collection<Long> userIds, Collection<Integer> archiveMonths);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from MessageArchiveSegment s where s.userId=?1")
+    int deleteSegmentsOfUser(Long userId);
+}
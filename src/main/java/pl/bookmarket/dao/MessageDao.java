@@ -1,25 +1,56 @@
 package pl.bookmarket.dao;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import pl.bookmarket.dao.projection.UnreadCount;
 import pl.bookmarket.model.Message;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MessageDao extends CrudRepository<Message, Long> {
+public interface MessageDao extends CrudRepository<Message, Long>, MessageDaoCustom {
 
-    @EntityGraph(attributePaths = {"sender", "receiver"})
-    List<Message> findMessagesByReceiverId(Long id);
+    @Query("select m from Message m join fetch m.sender where (m.sender.id=?1 and m.receiver.id=?2) "
+            + "or (m.sender.id=?2 and m.receiver.id=?1) order by m.sendTime desc, m.id desc")
+    List<Message> getMessagesBetween(Long firstUserId, Long secondUserId, Pageable pageable);
 
-    @EntityGraph(attributePaths = {"sender", "receiver"})
-    List<Message> findMessagesByReadFalseAndReceiverId(Long id);
+    @Query("select m.receiver.id as userId, count(m) as count from Message m where m.read=false group by m.receiver.id")
+    List<UnreadCount> getUnreadCounts();
+
+    @Query("select m.receiver.id as userId, count(m) as count from Message m where m.read=false "
+            + "and (m.sender.id=?1 or m.receiver.id=?1) group by m.receiver.id")
+    List<UnreadCount> getUnreadCountsOfUser(Long userId);
+
+    @Query("select m.sender.id as userId, count(m) as count from Message m where m.id in ?1 and m.receiver.id=?2 "
+            + "and m.read=false group by m.sender.id")
+    List<UnreadCount> getUnreadCountsBySender(Collection<Long> ids, Long receiverId);
+
+    @Query("select m.sender.id as userId, count(m) as count from Message m where m.receiver.id=?1 and m.id<=?2 "
+            + "and m.read=false group by m.sender.id")
+    List<UnreadCount> getUnreadCountsBySenderUpTo(Long receiverId, Long lastId);
+
+    @Query("select m from Message m join fetch m.sender join fetch m.receiver where m.read=true and m.sendTime<?1 "
+            + "order by m.id")
+    List<Message> getMessagesToArchive(OffsetDateTime sentBefore, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Message m where m.id in ?1")
+    int deleteMessagesByIds(Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true)
+    @Query("update Message m set m.read=true where m.id in ?1 and m.receiver.id=?2 and m.read=false")
+    int setMessagesRead(Collection<Long> ids, Long receiverId);
 
-    @Query("from Message m join m.receiver r join m.sender s where r.id=?1 or s.id=?1")
-    List<Message> findAllMessagesForUser(Long id);
+    @Modifying(flushAutomatically = true)
+    @Query("update Message m set m.read=true where m.receiver.id=?1 and m.id<=?2 and m.read=false")
+    int setMessagesReadUpTo(Long receiverId, Long lastId);
 
     @Override
     @EntityGraph(attributePaths = {"sender", "receiver"})
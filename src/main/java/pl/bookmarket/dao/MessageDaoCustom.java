@@ -0,0 +1,15 @@
+package pl.bookmarket.dao;
+
+import pl.bookmarket.model.Message;
+import pl.bookmarket.util.Cursor;
+
+import java.util.List;
+
+public interface MessageDaoCustom {
+
+    //get page of messages received by the user, newest first, optionally limited to read or unread ones
+    List<Message> findReceivedMessages(Long receiverId, Boolean read, Cursor cursor, int limit);
+
+    //get page of messages sent by the user, newest first
+    List<Message> findSentMessages(Long senderId, Cursor cursor, int limit);
+}
@@ -0,0 +1,56 @@
+package pl.bookmarket.dao;
+
+import pl.bookmarket.model.Message;
+import pl.bookmarket.util.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MessageDaoCustomImpl implements MessageDaoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Message> findReceivedMessages(Long receiverId, Boolean read, Cursor cursor, int limit) {
+        return findMessages("receiver", receiverId, read, cursor, limit);
+    }
+
+    @Override
+    public List<Message> findSentMessages(Long senderId, Cursor cursor, int limit) {
+        return findMessages("sender", senderId, null, cursor, limit);
+    }
+
+    private List<Message> findMessages(String party, Long userId, Boolean read, Cursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Message> query = cb.createQuery(Message.class);
+        Root<Message> message = query.from(Message.class);
+        message.fetch("sender");
+        message.fetch("receiver");
+
+        Path<OffsetDateTime> sendTime = message.get("sendTime");
+        Path<Long> id = message.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(message.get(party).get("id"), userId));
+        if (read != null) {
+            predicates.add(cb.equal(message.get("read"), read));
+        }
+        if (cursor != null) {
+            OffsetDateTime lastSendTime = cursor.getDateTime(0);
+            predicates.add(cb.or(cb.lessThan(sendTime, lastSendTime),
+                    cb.and(cb.equal(sendTime, lastSendTime), cb.lessThan(id, cursor.getLong(1)))));
+        }
+
+        query.select(message).where(predicates.toArray(new Predicate[0])).orderBy(cb.desc(sendTime), cb.desc(id));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
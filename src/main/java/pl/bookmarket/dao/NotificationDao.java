@@ -0,0 +1,25 @@
+package pl.bookmarket.dao;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pl.bookmarket.model.Notification;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationDao extends CrudRepository<Notification, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select n from Notification n order by n.id")
+    List<Notification> getPendingNotifications(Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Notification n where n.id in ?1")
+    int deleteNotificationsByIds(Collection<Long> ids);
+}
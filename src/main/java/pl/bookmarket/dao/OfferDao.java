@@ -5,13 +5,19 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import pl.bookmarket.dao.projection.BidListing;
+import pl.bookmarket.dao.projection.HighestBid;
+import pl.bookmarket.dao.projection.OfferExpiry;
+import pl.bookmarket.dao.projection.OfferReference;
 import pl.bookmarket.model.Offer;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OfferDao extends CrudRepository<Offer, Long> {
+public interface OfferDao extends CrudRepository<Offer, Long>, OfferDaoCustom {
 
     @EntityGraph(attributePaths = {"buyer", "book", "book.genre"})
     List<Offer> getOffersByBuyerId(Long id);
@@ -19,11 +25,40 @@ public interface OfferDao extends CrudRepository<Offer, Long> {
     @EntityGraph(attributePaths = {"buyer", "book"})
     List<Offer> getOffersByBookId(Long id);
 
+    boolean existsByBookIdAndBuyerId(Long bookId, Long buyerId);
+
+    @Query("select o.book.id from Offer o where o.buyer.id=?1 and o.book.id in ?2")
+    List<Long> getOfferedBookIds(Long buyerId, Collection<Long> bookIds);
+
+    @Query("select o.buyer.id from Offer o where o.book.id=?1 and o.id<>?2 order by o.id")
+    List<Long> getOtherBuyerIds(Long bookId, Long offerId);
+
+    @Query("select o.book.id as bookId, o.buyer.id as buyerId from Offer o")
+    List<OfferReference> getOfferReferences();
+
+    @Query("select o.book.id as bookId, max(o.amount) as amount from Offer o where o.book.id in ?1 "
+            + "and o.amount is not null group by o.book.id")
+    List<HighestBid> getHighestBids(Collection<Long> bookIds);
+
+    @Query("select o.id as id, o.book.id as bookId, o.buyer.id as buyerId, o.amount as amount from Offer o "
+            + "where o.amount is not null and o.book.forSale=true and o.book.auctionEndsOn is not null")
+    List<BidListing> getBidListings();
+
+    @Query("select o.id as id, o.expiresOn as expiresOn from Offer o where o.expiresOn is not null")
+    List<OfferExpiry> getOfferExpiries();
+
+    @EntityGraph(attributePaths = {"buyer", "book"})
+    List<Offer> getOffersByIdInAndExpiresOnLessThanEqualOrderById(Collection<Long> ids, OffsetDateTime time);
+
     @Override
-    @EntityGraph(attributePaths = {"buyer", "book", "book.owner", "book.offers"})
+    @EntityGraph(attributePaths = {"buyer", "book", "book.owner"})
     Optional<Offer> findById(Long aLong);
 
     @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("delete from Offer where book.id=?1")
     void deleteAllOffersForBook(Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Offer o where o.id in ?1")
+    int deleteOffersByIds(Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package pl.bookmarket.dao;
+
+import pl.bookmarket.dto.OfferSort;
+import pl.bookmarket.model.Offer;
+import pl.bookmarket.util.Cursor;
+
+import java.util.List;
+
+public interface OfferDaoCustom {
+
+    //get page of offers made for all books of the given owner
+    List<Offer> findIncomingOffers(Long ownerId, OfferSort sort, Cursor cursor, int limit);
+}
@@ -0,0 +1,58 @@
+package pl.bookmarket.dao;
+
+import pl.bookmarket.dto.OfferSort;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Offer;
+import pl.bookmarket.util.Cursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OfferDaoCustomImpl implements OfferDaoCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Offer> findIncomingOffers(Long ownerId, OfferSort sort, Cursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Offer> query = cb.createQuery(Offer.class);
+        Root<Offer> offer = query.from(Offer.class);
+        offer.fetch("buyer");
+        Fetch<Offer, Book> book = offer.fetch("book");
+        book.fetch("genre");
+        book.fetch("owner");
+
+        Path<Long> id = offer.get("id");
+        Path<Long> bookId = offer.get("book").get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(offer.get("book").get("owner").get("id"), ownerId));
+
+        // offer ids are taken from a sequence, so the highest id belongs to the newest offer
+        if (sort == OfferSort.BOOK) {
+            if (cursor != null) {
+                Long lastBookId = cursor.getLong(1);
+                predicates.add(cb.or(cb.greaterThan(bookId, lastBookId),
+                        cb.and(cb.equal(bookId, lastBookId), cb.lessThan(id, cursor.getLong(2)))));
+            }
+            query.orderBy(cb.asc(bookId), cb.desc(id));
+        } else {
+            if (cursor != null) {
+                predicates.add(cb.lessThan(id, cursor.getLong(1)));
+            }
+            query.orderBy(cb.desc(id));
+        }
+
+        query.select(offer).where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
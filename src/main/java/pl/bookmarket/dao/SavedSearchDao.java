@@ -0,0 +1,28 @@
+package pl.bookmarket.dao;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pl.bookmarket.dao.projection.SavedSearchListing;
+import pl.bookmarket.model.SavedSearch;
+
+import java.util.List;
+
+@Repository
+public interface SavedSearchDao extends CrudRepository<SavedSearch, Long> {
+
+    @EntityGraph(attributePaths = "genre")
+    List<SavedSearch> findSavedSearchesByOwnerIdOrderById(Long ownerId);
+
+    long countByOwnerId(Long ownerId);
+
+    @Query("select s.id as id, s.owner.id as ownerId, g.id as genreId, s.author as author, s.maxPrice as maxPrice, "
+            + "s.keywords as keywords from SavedSearch s left join s.genre g")
+    List<SavedSearchListing> getSavedSearchListings();
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from SavedSearch s where s.owner.id=?1")
+    int deleteSavedSearchesByOwnerId(Long ownerId);
+}
@@ -0,0 +1,23 @@
+package pl.bookmarket.dao;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import pl.bookmarket.dao.projection.PricePoint;
+import pl.bookmarket.model.Trade;
+
+import java.util.List;
+
+@Repository
+public interface TradeDao extends CrudRepository<Trade, Long> {
+
+    List<Trade> findTradesByBookIdOrderByIdDesc(Long bookId, Pageable pageable);
+
+    List<Trade> findTradesByBookIdAndIdLessThanOrderByIdDesc(Long bookId, Long id, Pageable pageable);
+
+    @Query("select t.tradeMonth as tradeMonth, count(t) as trades, min(t.price) as minPrice, max(t.price) as maxPrice, "
+            + "avg(t.price) as averagePrice from Trade t where t.title=?1 and t.tradeMonth between ?2 and ?3 "
+            + "and t.price is not null group by t.tradeMonth order by t.tradeMonth")
+    List<PricePoint> getPriceHistory(String title, int fromMonth, int toMonth);
+}
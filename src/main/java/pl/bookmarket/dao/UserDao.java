@@ -1,6 +1,8 @@
 package pl.bookmarket.dao;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -8,7 +10,10 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import pl.bookmarket.model.User;
 
+import javax.persistence.LockModeType;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -28,6 +33,13 @@ public interface UserDao extends CrudRepository<User, Long> {
     @EntityGraph(attributePaths = "roles")
     Optional<User> findById(Long aLong);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select u from User u where u.id in ?1 order by u.id")
+    List<User> lockUsers(Collection<Long> ids);
+
+    @Query("select u from User u where u.id>?1 and u.id<>?2 order by u.id")
+    List<User> getUsersAfter(Long lastUserId, Long excludedUserId, Pageable pageable);
+
     @Transactional
     @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("update User set lastLoginTime=?2 where id=?1")
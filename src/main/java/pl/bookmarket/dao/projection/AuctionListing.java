@@ -0,0 +1,14 @@
+package pl.bookmarket.dao.projection;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public interface AuctionListing {
+    Long getId();
+
+    OffsetDateTime getAuctionEndsOn();
+
+    BigDecimal getPrice();
+
+    BigDecimal getReservePrice();
+}
@@ -0,0 +1,13 @@
+package pl.bookmarket.dao.projection;
+
+import java.math.BigDecimal;
+
+public interface BidListing {
+    Long getId();
+
+    Long getBookId();
+
+    Long getBuyerId();
+
+    BigDecimal getAmount();
+}
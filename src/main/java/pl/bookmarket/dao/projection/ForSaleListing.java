@@ -0,0 +1,15 @@
+package pl.bookmarket.dao.projection;
+
+import java.math.BigDecimal;
+
+public interface ForSaleListing {
+    Long getId();
+
+    Long getGenreId();
+
+    Long getOwnerId();
+
+    BigDecimal getPrice();
+
+    Integer getReleaseYear();
+}
@@ -0,0 +1,9 @@
+package pl.bookmarket.dao.projection;
+
+import java.math.BigDecimal;
+
+public interface HighestBid {
+    Long getBookId();
+
+    BigDecimal getAmount();
+}
@@ -0,0 +1,9 @@
+package pl.bookmarket.dao.projection;
+
+import java.time.OffsetDateTime;
+
+public interface OfferExpiry {
+    Long getId();
+
+    OffsetDateTime getExpiresOn();
+}
@@ -0,0 +1,15 @@
+package pl.bookmarket.dao.projection;
+
+import java.math.BigDecimal;
+
+public interface PricePoint {
+    Integer getTradeMonth();
+
+    Long getTrades();
+
+    BigDecimal getMinPrice();
+
+    BigDecimal getMaxPrice();
+
+    Double getAveragePrice();
+}
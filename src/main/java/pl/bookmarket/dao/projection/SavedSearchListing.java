@@ -0,0 +1,17 @@
+package pl.bookmarket.dao.projection;
+
+import java.math.BigDecimal;
+
+public interface SavedSearchListing {
+    Long getId();
+
+    Long getOwnerId();
+
+    Long getGenreId();
+
+    String getAuthor();
+
+    BigDecimal getMaxPrice();
+
+    String getKeywords();
+}
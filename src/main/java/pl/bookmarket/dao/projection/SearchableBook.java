@@ -0,0 +1,11 @@
+package pl.bookmarket.dao.projection;
+
+public interface SearchableBook {
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getPublisher();
+}
@@ -0,0 +1,7 @@
+package pl.bookmarket.dao.projection;
+
+public interface TextValueCount {
+    String getValue();
+
+    Long getCount();
+}
@@ -0,0 +1,7 @@
+package pl.bookmarket.dao.projection;
+
+public interface UnreadCount {
+    Long getUserId();
+
+    Long getCount();
+}
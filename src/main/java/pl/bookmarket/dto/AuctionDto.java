@@ -0,0 +1,71 @@
+package pl.bookmarket.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public class AuctionDto {
+    private Long bookId;
+    private OffsetDateTime endsOn;
+    private BigDecimal startingPrice;
+    private BigDecimal highestBid;
+    private int bidCount;
+    private boolean reserveMet;
+    private List<BigDecimal> ladder;
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public OffsetDateTime getEndsOn() {
+        return endsOn;
+    }
+
+    public void setEndsOn(OffsetDateTime endsOn) {
+        this.endsOn = endsOn;
+    }
+
+    public BigDecimal getStartingPrice() {
+        return startingPrice;
+    }
+
+    public void setStartingPrice(BigDecimal startingPrice) {
+        this.startingPrice = startingPrice;
+    }
+
+    public BigDecimal getHighestBid() {
+        return highestBid;
+    }
+
+    public void setHighestBid(BigDecimal highestBid) {
+        this.highestBid = highestBid;
+    }
+
+    public int getBidCount() {
+        return bidCount;
+    }
+
+    public void setBidCount(int bidCount) {
+        this.bidCount = bidCount;
+    }
+
+    public boolean isReserveMet() {
+        return reserveMet;
+    }
+
+    public void setReserveMet(boolean reserveMet) {
+        this.reserveMet = reserveMet;
+    }
+
+    public List<BigDecimal> getLadder() {
+        return ladder;
+    }
+
+    public void setLadder(List<BigDecimal> ladder) {
+        this.ladder = ladder;
+    }
+}
@@ -3,12 +3,14 @@ package pl.bookmarket.dto;
 import pl.bookmarket.validation.constraint.YearMaxCurrent;
 
 import javax.validation.constraints.Digits;
+import javax.validation.constraints.Future;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 public class BookCreateDto {
 
@@ -39,6 +41,13 @@ public class BookCreateDto {
     @PositiveOrZero(message = "price.negative")
     private BigDecimal price;
 
+    @Future(message = "auction.end.invalid")
+    private OffsetDateTime auctionEndsOn;
+
+    @Digits(integer = 5, fraction = 2, message = "price.invalid.precision")
+    @PositiveOrZero(message = "price.negative")
+    private BigDecimal reservePrice;
+
     public String getTitle() {
         return title;
     }
@@ -102,4 +111,20 @@ public class BookCreateDto {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public OffsetDateTime getAuctionEndsOn() {
+        return auctionEndsOn;
+    }
+
+    public void setAuctionEndsOn(OffsetDateTime auctionEndsOn) {
+        this.auctionEndsOn = auctionEndsOn;
+    }
+
+    public BigDecimal getReservePrice() {
+        return reservePrice;
+    }
+
+    public void setReservePrice(BigDecimal reservePrice) {
+        this.reservePrice = reservePrice;
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package pl.bookmarket.dto;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 public class BookDto {
     private Long id;
@@ -13,6 +14,7 @@ public class BookDto {
     private UserSimpleDto owner;
     private boolean forSale;
     private BigDecimal price;
+    private OffsetDateTime auctionEndsOn;
 
     public Long getId() {
         return id;
@@ -93,4 +95,12 @@ public class BookDto {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public OffsetDateTime getAuctionEndsOn() {
+        return auctionEndsOn;
+    }
+
+    public void setAuctionEndsOn(OffsetDateTime auctionEndsOn) {
+        this.auctionEndsOn = auctionEndsOn;
+    }
 }
\ No newline at end of file
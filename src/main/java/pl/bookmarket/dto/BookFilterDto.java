@@ -0,0 +1,94 @@
+package pl.bookmarket.dto;
+
+import javax.validation.constraints.PositiveOrZero;
+import java.math.BigDecimal;
+
+public class BookFilterDto {
+
+    private Long genreId;
+
+    private String author;
+
+    private String publisher;
+
+    @PositiveOrZero(message = "price.negative")
+    private BigDecimal minPrice;
+
+    @PositiveOrZero(message = "price.negative")
+    private BigDecimal maxPrice;
+
+    private Integer releasedFrom;
+
+    private Integer releasedTo;
+
+    private BookSort sort = BookSort.PRICE;
+
+    public Long getGenreId() {
+        return genreId;
+    }
+
+    public void setGenreId(Long genreId) {
+        this.genreId = genreId;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public void setPublisher(String publisher) {
+        this.publisher = publisher;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Integer getReleasedFrom() {
+        return releasedFrom;
+    }
+
+    public void setReleasedFrom(Integer releasedFrom) {
+        this.releasedFrom = releasedFrom;
+    }
+
+    public Integer getReleasedTo() {
+        return releasedTo;
+    }
+
+    public void setReleasedTo(Integer releasedTo) {
+        this.releasedTo = releasedTo;
+    }
+
+    public BookSort getSort() {
+        return sort;
+    }
+
+    public void setSort(BookSort sort) {
+        this.sort = sort;
+    }
+
+    public enum BookSort {
+        PRICE,
+        ID
+    }
+}
@@ -0,0 +1,24 @@
+package pl.bookmarket.dto;
+
+import pl.bookmarket.service.search.BookTextField;
+
+public class BookSuggestionDto {
+    private BookTextField field;
+    private String value;
+
+    public BookTextField getField() {
+        return field;
+    }
+
+    public void setField(BookTextField field) {
+        this.field = field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+}
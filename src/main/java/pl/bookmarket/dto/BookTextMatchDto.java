@@ -0,0 +1,33 @@
+package pl.bookmarket.dto;
+
+import pl.bookmarket.service.search.BookTextField;
+
+public class BookTextMatchDto {
+    private BookTextField field;
+    private String value;
+    private double similarity;
+
+    public BookTextField getField() {
+        return field;
+    }
+
+    public void setField(BookTextField field) {
+        this.field = field;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+}
@@ -0,0 +1,19 @@
+package pl.bookmarket.dto;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+public class BroadcastCreateDto {
+
+    @NotBlank(message = "message.empty")
+    @Size(max = 300, message = "message.too.long")
+    private String text;
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+}
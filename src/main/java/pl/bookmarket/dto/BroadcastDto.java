@@ -0,0 +1,69 @@
+package pl.bookmarket.dto;
+
+import java.time.OffsetDateTime;
+
+public class BroadcastDto {
+    private Long id;
+    private String text;
+    private String status;
+    private int sentCount;
+    private long userCount;
+    private OffsetDateTime createdOn;
+    private OffsetDateTime completedOn;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(int sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public long getUserCount() {
+        return userCount;
+    }
+
+    public void setUserCount(long userCount) {
+        this.userCount = userCount;
+    }
+
+    public OffsetDateTime getCreatedOn() {
+        return createdOn;
+    }
+
+    public void setCreatedOn(OffsetDateTime createdOn) {
+        this.createdOn = createdOn;
+    }
+
+    public OffsetDateTime getCompletedOn() {
+        return completedOn;
+    }
+
+    public void setCompletedOn(OffsetDateTime completedOn) {
+        this.completedOn = completedOn;
+    }
+}
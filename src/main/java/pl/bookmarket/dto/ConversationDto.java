@@ -0,0 +1,69 @@
+package pl.bookmarket.dto;
+
+import java.time.OffsetDateTime;
+
+public class ConversationDto {
+    private Long id;
+    private UserSimpleDto peer;
+    private Long lastMessageId;
+    private String lastMessageText;
+    private boolean lastMessageSent;
+    private OffsetDateTime lastActivity;
+    private int unreadCount;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public UserSimpleDto getPeer() {
+        return peer;
+    }
+
+    public void setPeer(UserSimpleDto peer) {
+        this.peer = peer;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastMessageText() {
+        return lastMessageText;
+    }
+
+    public void setLastMessageText(String lastMessageText) {
+        this.lastMessageText = lastMessageText;
+    }
+
+    public boolean isLastMessageSent() {
+        return lastMessageSent;
+    }
+
+    public void setLastMessageSent(boolean lastMessageSent) {
+        this.lastMessageSent = lastMessageSent;
+    }
+
+    public OffsetDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(OffsetDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
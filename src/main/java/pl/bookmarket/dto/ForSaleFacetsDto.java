@@ -0,0 +1,106 @@
+package pl.bookmarket.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ForSaleFacetsDto {
+    private long total;
+    private List<GenreCount> genres;
+    private List<PriceBucket> prices;
+    private List<DecadeCount> decades;
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public List<GenreCount> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<GenreCount> genres) {
+        this.genres = genres;
+    }
+
+    public List<PriceBucket> getPrices() {
+        return prices;
+    }
+
+    public void setPrices(List<PriceBucket> prices) {
+        this.prices = prices;
+    }
+
+    public List<DecadeCount> getDecades() {
+        return decades;
+    }
+
+    public void setDecades(List<DecadeCount> decades) {
+        this.decades = decades;
+    }
+
+    public static class GenreCount {
+        private final Long genreId;
+        private final long count;
+
+        public GenreCount(Long genreId, long count) {
+            this.genreId = genreId;
+            this.count = count;
+        }
+
+        public Long getGenreId() {
+            return genreId;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public static class PriceBucket {
+        private final BigDecimal from;
+        private final BigDecimal to;
+        private final long count;
+
+        public PriceBucket(BigDecimal from, BigDecimal to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public BigDecimal getFrom() {
+            return from;
+        }
+
+        /**
+         * @return exclusive upper bound of the bucket or <i>null</i> for the last bucket
+         */
+        public BigDecimal getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    public static class DecadeCount {
+        private final int decade;
+        private final long count;
+
+        public DecadeCount(int decade, long count) {
+            this.decade = decade;
+            this.count = count;
+        }
+
+        public int getDecade() {
+            return decade;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
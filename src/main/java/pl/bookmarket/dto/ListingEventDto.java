@@ -0,0 +1,63 @@
+package pl.bookmarket.dto;
+
+import java.math.BigDecimal;
+
+public class ListingEventDto {
+    private final Type type;
+    private final Long bookId;
+    private final String title;
+    private final Long genreId;
+    private final BigDecimal price;
+    private final BigDecimal previousPrice;
+
+    public ListingEventDto(Type type, Long bookId, String title, Long genreId, BigDecimal price,
+                           BigDecimal previousPrice) {
+        this.type = type;
+        this.bookId = bookId;
+        this.title = title;
+        this.genreId = genreId;
+        this.price = price;
+        this.previousPrice = previousPrice;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Long getGenreId() {
+        return genreId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public BigDecimal getPreviousPrice() {
+        return previousPrice;
+    }
+
+    public enum Type {
+        LISTING_ADDED("listing-added"),
+        PRICE_CHANGED("price-changed"),
+        SOLD("sold"),
+        LISTING_REMOVED("listing-removed");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+    }
+}
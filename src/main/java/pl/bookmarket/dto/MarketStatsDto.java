@@ -0,0 +1,65 @@
+package pl.bookmarket.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class MarketStatsDto {
+    private final List<GenreStats> genres;
+
+    public MarketStatsDto(List<GenreStats> genres) {
+        this.genres = genres;
+    }
+
+    public List<GenreStats> getGenres() {
+        return genres;
+    }
+
+    public static class GenreStats {
+        private final Long genreId;
+        private final long listings;
+        private final long trades;
+        private final BigDecimal averageAskingPrice;
+        private final BigDecimal medianAskingPrice;
+        private final Long averageSecondsToSale;
+        private final Long medianSecondsToSale;
+
+        public GenreStats(Long genreId, long listings, long trades, BigDecimal averageAskingPrice,
+                          BigDecimal medianAskingPrice, Long averageSecondsToSale, Long medianSecondsToSale) {
+            this.genreId = genreId;
+            this.listings = listings;
+            this.trades = trades;
+            this.averageAskingPrice = averageAskingPrice;
+            this.medianAskingPrice = medianAskingPrice;
+            this.averageSecondsToSale = averageSecondsToSale;
+            this.medianSecondsToSale = medianSecondsToSale;
+        }
+
+        public Long getGenreId() {
+            return genreId;
+        }
+
+        public long getListings() {
+            return listings;
+        }
+
+        public long getTrades() {
+            return trades;
+        }
+
+        public BigDecimal getAverageAskingPrice() {
+            return averageAskingPrice;
+        }
+
+        public BigDecimal getMedianAskingPrice() {
+            return medianAskingPrice;
+        }
+
+        public Long getAverageSecondsToSale() {
+            return averageSecondsToSale;
+        }
+
+        public Long getMedianSecondsToSale() {
+            return medianSecondsToSale;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pl.bookmarket.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+public class OfferBatchCreateDto {
+
+    @NotEmpty(message = "field.blank")
+    @Size(max = 50, message = "batch.too.large")
+    private List<@Valid OfferCreateDto> offers;
+
+    public List<OfferCreateDto> getOffers() {
+        return offers;
+    }
+
+    public void setOffers(List<OfferCreateDto> offers) {
+        this.offers = offers;
+    }
+}
@@ -2,7 +2,12 @@ package pl.bookmarket.dto;
 
 import org.hibernate.validator.constraints.Length;
 
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.Future;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 public class OfferCreateDto {
 
@@ -12,6 +17,13 @@ public class OfferCreateDto {
     @Length(min = 5, max = 300, message = "invalid.comment.length")
     private String comment;
 
+    @Digits(integer = 5, fraction = 2, message = "price.invalid.precision")
+    @Positive(message = "field.not.positive.value")
+    private BigDecimal amount;
+
+    @Future(message = "offer.expiry.invalid")
+    private OffsetDateTime expiresOn;
+
     public Long getBookId() {
         return bookId;
     }
@@ -27,4 +39,20 @@ public class OfferCreateDto {
     public void setComment(String comment) {
         this.comment = comment;
     }
-}
\ No newline at end of file
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public OffsetDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(OffsetDateTime expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+}
@@ -1,8 +1,13 @@
 package pl.bookmarket.dto;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
 public class OfferDto {
     private Long id;
     private String comment;
+    private BigDecimal amount;
+    private OffsetDateTime expiresOn;
     private BookDto book;
     private UserSimpleDto buyer;
 
@@ -22,6 +27,22 @@ public class OfferDto {
         this.comment = comment;
     }
 
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public OffsetDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(OffsetDateTime expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
     public BookDto getBook() {
         return book;
     }
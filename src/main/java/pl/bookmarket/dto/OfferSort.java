@@ -0,0 +1,6 @@
+package pl.bookmarket.dto;
+
+public enum OfferSort {
+    NEWEST,
+    BOOK
+}
@@ -0,0 +1,40 @@
+package pl.bookmarket.dto;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+
+public class PricePointDto {
+    private final YearMonth month;
+    private final long trades;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final BigDecimal averagePrice;
+
+    public PricePointDto(YearMonth month, long trades, BigDecimal minPrice, BigDecimal maxPrice, BigDecimal averagePrice) {
+        this.month = month;
+        this.trades = trades;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.averagePrice = averagePrice;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public long getTrades() {
+        return trades;
+    }
+
+    public BigDecimal getMinPrice() {
+        return minPrice;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public BigDecimal getAveragePrice() {
+        return averagePrice;
+    }
+}
@@ -0,0 +1,53 @@
+package pl.bookmarket.dto;
+
+import javax.validation.constraints.Digits;
+import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.math.BigDecimal;
+
+public class SavedSearchCreateDto {
+
+    private Long genreId;
+
+    @Size(max = 255, message = "field.too.long")
+    private String author;
+
+    @Digits(integer = 5, fraction = 2, message = "price.invalid.precision")
+    @PositiveOrZero(message = "price.negative")
+    private BigDecimal maxPrice;
+
+    @Size(max = 255, message = "field.too.long")
+    private String keywords;
+
+    public Long getGenreId() {
+        return genreId;
+    }
+
+    public void setGenreId(Long genreId) {
+        this.genreId = genreId;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(String keywords) {
+        this.keywords = keywords;
+    }
+}
@@ -0,0 +1,52 @@
+package pl.bookmarket.dto;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public class TradeDto {
+    private Long id;
+    private Long bookId;
+    private String title;
+    private BigDecimal price;
+    private OffsetDateTime tradedOn;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+
+    public OffsetDateTime getTradedOn() {
+        return tradedOn;
+    }
+
+    public void setTradedOn(OffsetDateTime tradedOn) {
+        this.tradedOn = tradedOn;
+    }
+}
@@ -0,0 +1,13 @@
+package pl.bookmarket.dto;
+
+public class UnreadCountDto {
+    private final int count;
+
+    public UnreadCountDto(int count) {
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -4,7 +4,11 @@ import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import pl.bookmarket.dto.BookCreateDto;
 import pl.bookmarket.dto.BookDto;
+import pl.bookmarket.dto.BookSuggestionDto;
+import pl.bookmarket.dto.BookTextMatchDto;
 import pl.bookmarket.model.Book;
+import pl.bookmarket.service.search.PrefixIndex.Suggestion;
+import pl.bookmarket.service.search.TrigramIndex.Match;
 
 @Mapper(uses = {GenreMapper.class, UserMapper.class})
 public interface BookMapper {
@@ -13,4 +17,8 @@ public interface BookMapper {
 
     @Mapping(source = "genreId", target = "genre.id")
     Book bookCreateDtoToBook(BookCreateDto bookCreateDto);
+
+    BookTextMatchDto matchToBookTextMatchDto(Match match);
+
+    BookSuggestionDto suggestionToBookSuggestionDto(Suggestion suggestion);
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package pl.bookmarket.mapper;
+
+import org.mapstruct.Mapper;
+import pl.bookmarket.dto.BroadcastDto;
+import pl.bookmarket.model.Broadcast;
+
+@Mapper
+public interface BroadcastMapper {
+
+    BroadcastDto broadcastToBroadcastDto(Broadcast broadcast);
+}
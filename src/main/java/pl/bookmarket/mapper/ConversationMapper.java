@@ -0,0 +1,11 @@
+package pl.bookmarket.mapper;
+
+import org.mapstruct.Mapper;
+import pl.bookmarket.dto.ConversationDto;
+import pl.bookmarket.model.Conversation;
+
+@Mapper(uses = UserMapper.class)
+public interface ConversationMapper {
+
+    ConversationDto conversationToConversationDto(Conversation conversation);
+}
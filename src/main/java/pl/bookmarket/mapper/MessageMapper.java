@@ -1,9 +1,12 @@
 package pl.bookmarket.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import pl.bookmarket.dto.ArchivedMessageDto;
 import pl.bookmarket.dto.MessageCreateDto;
 import pl.bookmarket.dto.MessageDto;
 import pl.bookmarket.model.Message;
+import pl.bookmarket.service.message.ArchivedMessage;
 
 @Mapper(uses = UserMapper.class)
 public interface MessageMapper {
@@ -11,4 +14,10 @@ public interface MessageMapper {
     MessageDto messageToMessageDto(Message message);
 
     Message messageCreateDtoToMessage(MessageCreateDto messageCreateDto);
-}
\ No newline at end of file
+
+    @Mapping(target = "sender.id", source = "senderId")
+    @Mapping(target = "sender.login", source = "senderLogin")
+    @Mapping(target = "receiver.id", source = "receiverId")
+    @Mapping(target = "receiver.login", source = "receiverLogin")
+    ArchivedMessageDto archivedMessageToArchivedMessageDto(ArchivedMessage message);
+}
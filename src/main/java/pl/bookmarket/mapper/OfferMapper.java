@@ -2,9 +2,11 @@ package pl.bookmarket.mapper;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
+import pl.bookmarket.dto.AuctionDto;
 import pl.bookmarket.dto.OfferCreateDto;
 import pl.bookmarket.dto.OfferDto;
 import pl.bookmarket.model.Offer;
+import pl.bookmarket.service.market.AuctionOrderBook.Auction;
 
 @Mapper(uses = {BookMapper.class, UserMapper.class})
 public interface OfferMapper {
@@ -13,4 +15,7 @@ public interface OfferMapper {
 
     @Mapping(target = "book.id", source = "bookId")
     Offer offerCreateDtoToOffer(OfferCreateDto offerCreateDto);
+
+    @Mapping(target = "highestBid", source = "highestBid.amount")
+    AuctionDto auctionToAuctionDto(Auction auction);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package pl.bookmarket.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import pl.bookmarket.dto.SavedSearchCreateDto;
+import pl.bookmarket.dto.SavedSearchDto;
+import pl.bookmarket.model.SavedSearch;
+
+@Mapper
+public interface SavedSearchMapper {
+
+    @Mapping(target = "genreId", source = "genre.id")
+    SavedSearchDto savedSearchToSavedSearchDto(SavedSearch savedSearch);
+
+    @Mapping(target = "genre.id", source = "genreId")
+    SavedSearch savedSearchCreateDtoToSavedSearch(SavedSearchCreateDto savedSearchCreateDto);
+}
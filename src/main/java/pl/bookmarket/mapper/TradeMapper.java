@@ -0,0 +1,11 @@
+package pl.bookmarket.mapper;
+
+import org.mapstruct.Mapper;
+import pl.bookmarket.dto.TradeDto;
+import pl.bookmarket.model.Trade;
+
+@Mapper
+public interface TradeMapper {
+
+    TradeDto tradeToTradeDto(Trade trade);
+}
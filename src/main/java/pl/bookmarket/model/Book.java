@@ -7,14 +7,20 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.Set;
 
 @Entity
+@Table(indexes = {@Index(name = "idx_book_for_sale_price", columnList = "for_sale, price, id"),
+        @Index(name = "idx_book_genre_for_sale_price", columnList = "genre_id, for_sale, price, id"),
+        @Index(name = "idx_book_owner", columnList = "owner_id, id")})
 public class Book {
 
     @Id
@@ -49,6 +55,15 @@ public class Book {
     @Column(precision = 7, scale = 2)
     private BigDecimal price;
 
+    @Column(name = "auction_ends_on")
+    private OffsetDateTime auctionEndsOn;
+
+    @Column(name = "reserve_price", precision = 7, scale = 2)
+    private BigDecimal reservePrice;
+
+    @Column(name = "listed_on")
+    private OffsetDateTime listedOn;
+
     @OneToMany(mappedBy = "book", cascade = CascadeType.REMOVE)
     private Set<Offer> offers;
 
@@ -132,6 +147,30 @@ public class Book {
         this.price = price;
     }
 
+    public OffsetDateTime getAuctionEndsOn() {
+        return auctionEndsOn;
+    }
+
+    public void setAuctionEndsOn(OffsetDateTime auctionEndsOn) {
+        this.auctionEndsOn = auctionEndsOn;
+    }
+
+    public BigDecimal getReservePrice() {
+        return reservePrice;
+    }
+
+    public void setReservePrice(BigDecimal reservePrice) {
+        this.reservePrice = reservePrice;
+    }
+
+    public OffsetDateTime getListedOn() {
+        return listedOn;
+    }
+
+    public void setListedOn(OffsetDateTime listedOn) {
+        this.listedOn = listedOn;
+    }
+
     public Set<Offer> getOffers() {
         return offers;
     }
@@ -0,0 +1,134 @@
+package pl.bookmarket.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import java.time.OffsetDateTime;
+
+/**
+ * Announcement sent to every user. The messages are created in chunks of users ordered by their ids, each chunk in
+ * its own transaction, which also stores the id of the last user of the chunk. An interrupted broadcast is therefore
+ * resumed right after the last committed chunk, without sending any message twice. The sender is referenced by its id
+ * only, so broadcasts don't prevent deleting users.
+ */
+@Entity
+public class Broadcast {
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        /**
+         * The sender has been deleted before all messages have been sent.
+         */
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "broadcastGenerator")
+    @SequenceGenerator(name = "broadcastGenerator", sequenceName = "broadcast_sequence", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "sender_id", nullable = false, updatable = false)
+    private Long senderId;
+
+    @Column(nullable = false, updatable = false, length = 300)
+    private String text;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    /**
+     * Id of the last user of the last sent chunk.
+     */
+    @Column(name = "last_user_id", nullable = false)
+    private Long lastUserId;
+
+    @Column(name = "sent_count")
+    private int sentCount;
+
+    /**
+     * Number of users to be notified, estimated when the broadcast has been started.
+     */
+    @Column(name = "user_count")
+    private long userCount;
+
+    @Column(name = "created_on", nullable = false, updatable = false)
+    private OffsetDateTime createdOn;
+
+    @Column(name = "completed_on")
+    private OffsetDateTime completedOn;
+
+    public Broadcast() {
+    }
+
+    public Broadcast(Long senderId, String text, long userCount) {
+        this.senderId = senderId;
+        this.text = text;
+        this.status = Status.RUNNING;
+        this.lastUserId = 0L;
+        this.userCount = userCount;
+        this.createdOn = OffsetDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getLastUserId() {
+        return lastUserId;
+    }
+
+    public void setLastUserId(Long lastUserId) {
+        this.lastUserId = lastUserId;
+    }
+
+    public int getSentCount() {
+        return sentCount;
+    }
+
+    public void setSentCount(int sentCount) {
+        this.sentCount = sentCount;
+    }
+
+    public long getUserCount() {
+        return userCount;
+    }
+
+    public OffsetDateTime getCreatedOn() {
+        return createdOn;
+    }
+
+    public OffsetDateTime getCompletedOn() {
+        return completedOn;
+    }
+
+    public void setCompletedOn(OffsetDateTime completedOn) {
+        this.completedOn = completedOn;
+    }
+}
@@ -0,0 +1,138 @@
+package pl.bookmarket.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.OffsetDateTime;
+
+/**
+ * Summary of the messages exchanged by a pair of users, as seen by one of them. Each pair of users has two mirrored
+ * conversations, one per participant, which hold the last message of the pair and the number of messages unread by
+ * the owner, so the conversations of a user are listed by a single range scan of the owner index. Conversations are
+ * updated in the same transaction as the messages they summarize.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_conversation_owner_peer", columnNames = {"owner_id", "peer_id"}),
+        indexes = @Index(name = "idx_conversation_owner_activity", columnList = "owner_id, last_activity, id"))
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "conversationGenerator")
+    @SequenceGenerator(name = "conversationGenerator", sequenceName = "conversation_sequence", allocationSize = 1)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false, updatable = false)
+    private User owner;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "peer_id", nullable = false, updatable = false)
+    private User peer;
+
+    /**
+     * Id of the last message of the conversation. Not a foreign key, the message may be deleted in the meantime.
+     */
+    @Column(name = "last_message_id", nullable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_text", length = 300)
+    private String lastMessageText;
+
+    /**
+     * Whether the last message has been sent by the owner of the conversation.
+     */
+    @Column(name = "last_message_sent")
+    private boolean lastMessageSent;
+
+    @Column(name = "last_activity", nullable = false)
+    private OffsetDateTime lastActivity;
+
+    @Column(name = "unread_count")
+    private int unreadCount;
+
+    public Conversation() {
+    }
+
+    public Conversation(User owner, User peer, Message lastMessage, int unreadCount) {
+        this.owner = owner;
+        this.peer = peer;
+        this.lastMessageId = lastMessage.getId();
+        this.lastMessageText = lastMessage.getText();
+        this.lastMessageSent = lastMessage.getSender().getId().equals(owner.getId());
+        this.lastActivity = lastMessage.getSendTime();
+        this.unreadCount = unreadCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getOwner() {
+        return owner;
+    }
+
+    public void setOwner(User owner) {
+        this.owner = owner;
+    }
+
+    public User getPeer() {
+        return peer;
+    }
+
+    public void setPeer(User peer) {
+        this.peer = peer;
+    }
+
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
+    public String getLastMessageText() {
+        return lastMessageText;
+    }
+
+    public void setLastMessageText(String lastMessageText) {
+        this.lastMessageText = lastMessageText;
+    }
+
+    public boolean isLastMessageSent() {
+        return lastMessageSent;
+    }
+
+    public void setLastMessageSent(boolean lastMessageSent) {
+        this.lastMessageSent = lastMessageSent;
+    }
+
+    public OffsetDateTime getLastActivity() {
+        return lastActivity;
+    }
+
+    public void setLastActivity(OffsetDateTime lastActivity) {
+        this.lastActivity = lastActivity;
+    }
+
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    public void setUnreadCount(int unreadCount) {
+        this.unreadCount = unreadCount;
+    }
+}
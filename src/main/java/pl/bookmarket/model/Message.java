@@ -1,19 +1,22 @@
 package pl.bookmarket.model;
 
-import org.hibernate.annotations.CreationTimestamp;
-
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
 import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import java.time.OffsetDateTime;
 
 @Entity
+@Table(indexes = {@Index(name = "idx_message_receiver_read_sent", columnList = "receiver_id, is_read, sent_on, id"),
+        @Index(name = "idx_message_sender_sent", columnList = "sender_id, sent_on, id")})
 public class Message {
 
     @Id
@@ -36,7 +39,6 @@ public class Message {
     private boolean read;
 
     @Column(name = "sent_on", nullable = false, updatable = false)
-    @CreationTimestamp
     private OffsetDateTime sendTime;
 
     public Message() {
@@ -48,6 +50,15 @@ public class Message {
         this.text = message;
     }
 
+    /**
+     * Sets the send time on persist rather than on insert, so it's known to the conversations updated before
+     * the message is flushed.
+     */
+    @PrePersist
+    private void onCreate() {
+        sendTime = OffsetDateTime.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,100 @@
+package pl.bookmarket.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compressed block of all archived messages of a single user sent in a single month. There is exactly one segment
+ * per user and month, an archiving run merges the messages it moves out of the message table into the existing
+ * segments of their months. A message is stored in the segments of both its sender and its receiver, so the archive
+ * of a user is read by a range scan of the user index, newest months first.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_archive_segment_user_month",
+                                             columnNames = {"user_id", "archive_month"}))
+public class MessageArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "archiveSegmentGenerator")
+    @SequenceGenerator(name = "archiveSegmentGenerator", sequenceName = "archive_segment_sequence", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Long userId;
+
+    /**
+     * Month of the messages in UTC in the <i>yyyyMM</i> format.
+     */
+    @Column(name = "archive_month", nullable = false, updatable = false)
+    private Integer archiveMonth;
+
+    @Column(name = "message_count", nullable = false)
+    private int messageCount;
+
+    /**
+     * Gzip compressed messages, newest first.
+     */
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    @Column(name = "created_on", nullable = false, updatable = false)
+    private OffsetDateTime createdOn;
+
+    public MessageArchiveSegment() {
+    }
+
+    public MessageArchiveSegment(Long userId, Integer archiveMonth, int messageCount, byte[] data) {
+        this.userId = userId;
+        this.archiveMonth = archiveMonth;
+        this.messageCount = messageCount;
+        this.data = data;
+        this.createdOn = OffsetDateTime.now();
+    }
+
+    public static int toArchiveMonth(OffsetDateTime dateTime) {
+        OffsetDateTime utc = dateTime.withOffsetSameInstant(ZoneOffset.UTC);
+        return utc.getYear() * 100 + utc.getMonthValue();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getArchiveMonth() {
+        return archiveMonth;
+    }
+
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(int messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public OffsetDateTime getCreatedOn() {
+        return createdOn;
+    }
+}
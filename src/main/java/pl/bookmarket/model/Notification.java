@@ -0,0 +1,122 @@
+package pl.bookmarket.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.SequenceGenerator;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Entry of the outbox of the system notifications. Business transactions append a single entry per notified event
+ * instead of inserting the messages themselves, the messages are created later in bulk by the drainer of the outbox.
+ * Entries reference users by their ids only, without foreign keys, so appending them doesn't lock the user rows.
+ */
+@Entity
+@Immutable
+public class Notification {
+
+    public enum Type {
+        /**
+         * New offer for the book of the receiver, made by the sender.
+         */
+        NEW_OFFER,
+        /**
+         * Book sold by the sender to the receiver. Buyers whose offers haven't been accepted are notified as well.
+         */
+        BOOK_SOLD,
+        /**
+         * Offers of the receiver for books of the sender have expired. The title lists all of those books.
+         */
+        OFFERS_EXPIRED
+    }
+
+    public static final int MAX_TITLE_LENGTH = 255;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificationGenerator")
+    @SequenceGenerator(name = "notificationGenerator", sequenceName = "notification_sequence", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 20)
+    private Type type;
+
+    @Column(name = "sender_id", nullable = false, updatable = false)
+    private Long senderId;
+
+    @Column(name = "receiver_id", nullable = false, updatable = false)
+    private Long receiverId;
+
+    /**
+     * Comma separated ids of the other notified users.
+     */
+    @Lob
+    @Column(name = "other_receiver_ids", updatable = false)
+    private String otherReceiverIds;
+
+    @Column(nullable = false, updatable = false, length = MAX_TITLE_LENGTH)
+    private String title;
+
+    @Column(name = "created_on", nullable = false, updatable = false)
+    private OffsetDateTime createdOn;
+
+    public Notification() {
+    }
+
+    public Notification(Type type, Long senderId, Long receiverId, String title) {
+        this(type, senderId, receiverId, Collections.emptyList(), title);
+    }
+
+    public Notification(Type type, Long senderId, Long receiverId, Collection<Long> otherReceiverIds, String title) {
+        this.type = type;
+        this.senderId = senderId;
+        this.receiverId = receiverId;
+        this.otherReceiverIds = otherReceiverIds.isEmpty() ? null : otherReceiverIds.stream().map(String::valueOf)
+                                                                                  .collect(Collectors.joining(","));
+        this.title = title;
+        this.createdOn = OffsetDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public List<Long> getOtherReceiverIds() {
+        if (otherReceiverIds == null) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(otherReceiverIds.split(",")).map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public OffsetDateTime getCreatedOn() {
+        return createdOn;
+    }
+}
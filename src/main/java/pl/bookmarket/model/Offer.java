@@ -1,17 +1,27 @@
 package pl.bookmarket.model;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_offer_buyer_book", columnList = "buyer_id, book_id"),
+        uniqueConstraints = @UniqueConstraint(name = Offer.BOOK_BUYER_CONSTRAINT, columnNames = {"book_id", "buyer_id"}))
 public class Offer {
 
+    public static final String BOOK_BUYER_CONSTRAINT = "uk_offer_book_buyer";
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "offerGenerator")
     @SequenceGenerator(name = "offerGenerator", sequenceName = "offer_sequence", allocationSize = 1)
@@ -19,6 +29,12 @@ public class Offer {
 
     private String comment;
 
+    @Column(precision = 7, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "expires_on")
+    private OffsetDateTime expiresOn;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "book_id", nullable = false)
     private Book book;
@@ -43,6 +59,22 @@ public class Offer {
         this.comment = comment;
     }
 
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public OffsetDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public void setExpiresOn(OffsetDateTime expiresOn) {
+        this.expiresOn = expiresOn;
+    }
+
     public Book getBook() {
         return book;
     }
@@ -0,0 +1,107 @@
+package pl.bookmarket.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Entry of the append-only ledger of the sold books. Trades reference the book and both parties by their ids only,
+ * without foreign keys, so recording a sale doesn't lock the rows updated by the same transaction and the history
+ * outlives deleted books and users. Each trade carries the month it was made in, which is the partition key of the
+ * ledger and the leading column of the price history index.
+ */
+@Entity
+@Immutable
+@Table(indexes = {@Index(name = "idx_trade_book", columnList = "book_id, id"),
+        @Index(name = "idx_trade_title_month", columnList = "title, trade_month")})
+public class Trade {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tradeGenerator")
+    @SequenceGenerator(name = "tradeGenerator", sequenceName = "trade_sequence", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false, updatable = false)
+    private Long bookId;
+
+    @Column(nullable = false, updatable = false)
+    private String title;
+
+    @Column(name = "seller_id", nullable = false, updatable = false)
+    private Long sellerId;
+
+    @Column(name = "buyer_id", nullable = false, updatable = false)
+    private Long buyerId;
+
+    @Column(precision = 7, scale = 2, updatable = false)
+    private BigDecimal price;
+
+    @Column(name = "traded_on", nullable = false, updatable = false)
+    private OffsetDateTime tradedOn;
+
+    /**
+     * Month of the trade in UTC in the <i>yyyyMM</i> format.
+     */
+    @Column(name = "trade_month", nullable = false, updatable = false)
+    private Integer tradeMonth;
+
+    public Trade() {
+    }
+
+    public Trade(Long bookId, String title, Long sellerId, Long buyerId, BigDecimal price, OffsetDateTime tradedOn) {
+        this.bookId = bookId;
+        this.title = title;
+        this.sellerId = sellerId;
+        this.buyerId = buyerId;
+        this.price = price;
+        this.tradedOn = tradedOn;
+        this.tradeMonth = toTradeMonth(tradedOn);
+    }
+
+    public static int toTradeMonth(OffsetDateTime dateTime) {
+        OffsetDateTime utc = dateTime.withOffsetSameInstant(ZoneOffset.UTC);
+        return utc.getYear() * 100 + utc.getMonthValue();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Long getSellerId() {
+        return sellerId;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public OffsetDateTime getTradedOn() {
+        return tradedOn;
+    }
+
+    public Integer getTradeMonth() {
+        return tradeMonth;
+    }
+}
@@ -0,0 +1,267 @@
+package pl.bookmarket.service.catalog;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.dao.projection.ForSaleListing;
+import pl.bookmarket.dao.projection.OfferReference;
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.dto.BookFilterDto.BookSort;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.OfferChangedEvent;
+import pl.bookmarket.util.Cursor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory read model of books marked for sale. Listings are kept per genre, sorted by price, so the for-sale
+ * query sorted by price and filtered by genre or price range is answered without querying the database.
+ * The model is loaded on application startup and updated after each committed change of a book or an offer.
+ */
+@Component
+public class ForSaleCatalog {
+
+    private static final BigDecimal MIN_CENTS = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal MAX_CENTS = BigDecimal.valueOf(Long.MAX_VALUE);
+
+    private final BookDao bookDao;
+    private final OfferDao offerDao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, PriceShelf> shelves = new HashMap<>();
+    private Map<Long, Listing> listings = new HashMap<>();
+    private Map<Long, Set<Long>> offeredBooksByBuyer = new HashMap<>();
+    private Map<Long, Set<Long>> buyersByBook = new HashMap<>();
+    private volatile boolean ready;
+
+    public ForSaleCatalog(BookDao bookDao, OfferDao offerDao) {
+        this.bookDao = bookDao;
+        this.offerDao = offerDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, PriceShelf> newShelves = new HashMap<>();
+        Map<Long, Listing> newListings = new HashMap<>();
+        Map<Long, Set<Long>> newOfferedBooksByBuyer = new HashMap<>();
+        Map<Long, Set<Long>> newBuyersByBook = new HashMap<>();
+
+        for (ForSaleListing forSaleListing : bookDao.getForSaleListings()) {
+            Listing listing = new Listing(forSaleListing.getId(), forSaleListing.getGenreId(),
+                    forSaleListing.getOwnerId(), toCents(forSaleListing.getPrice()));
+            newListings.put(listing.id, listing);
+            newShelves.computeIfAbsent(listing.genreId, genreId -> new PriceShelf())
+                      .add(listing.price, listing.id, listing.ownerId);
+        }
+        for (OfferReference offer : offerDao.getOfferReferences()) {
+            newOfferedBooksByBuyer.computeIfAbsent(offer.getBuyerId(), id -> new HashSet<>()).add(offer.getBookId());
+            newBuyersByBook.computeIfAbsent(offer.getBookId(), id -> new HashSet<>()).add(offer.getBuyerId());
+        }
+
+        lock.writeLock().lock();
+        try {
+            shelves = newShelves;
+            listings = newListings;
+            offeredBooksByBuyer = newOfferedBooksByBuyer;
+            buyersByBook = newBuyersByBook;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the query with given filter can be answered by the catalog. Only genre and price range filters are
+     * supported and the result has to be sorted by price.
+     */
+    public boolean supports(BookFilterDto filter) {
+        return ready && filter.getSort() == BookSort.PRICE && filter.getAuthor() == null
+                && filter.getPublisher() == null && filter.getReleasedFrom() == null && filter.getReleasedTo() == null;
+    }
+
+    /**
+     * Finds listings not owned by the given user and for which the user hasn't made an offer yet, sorted by price
+     * and book ID.
+     *
+     * @param currentUserId ID of the user browsing the catalog
+     * @param filter        filter with the optional genre and price range set
+     * @param cursor        cursor pointing at the last listing of the previous page or <i>null</i> for the first page
+     * @param limit         maximum number of returned listings
+     * @return listings matching the criteria
+     */
+    public List<Listing> findBooksForSale(Long currentUserId, BookFilterDto filter, Cursor cursor, int limit) {
+        long minPrice = filter.getMinPrice() == null ? Long.MIN_VALUE
+                : toCents(filter.getMinPrice(), RoundingMode.CEILING);
+        long maxPrice = filter.getMaxPrice() == null ? Long.MAX_VALUE
+                : toCents(filter.getMaxPrice(), RoundingMode.FLOOR);
+        List<Listing> result = new ArrayList<>(limit);
+
+        lock.readLock().lock();
+        try {
+            Collection<PriceShelf> searchedShelves = filter.getGenreId() == null ? shelves.values()
+                    : Collections.singleton(shelves.get(filter.getGenreId()));
+            Set<Long> offeredBooks = offeredBooksByBuyer.getOrDefault(currentUserId, Collections.emptySet());
+            PriorityQueue<ShelfIterator> queue = new PriorityQueue<>();
+
+            for (PriceShelf shelf : searchedShelves) {
+                if (shelf == null) {
+                    continue;
+                }
+                int start = shelf.ceiling(minPrice);
+                if (cursor != null) {
+                    start = Math.max(start, shelf.higher(toCents(cursor.getDecimal(1)), cursor.getLong(2)));
+                }
+                if (start < shelf.size()) {
+                    queue.add(new ShelfIterator(shelf, start));
+                }
+            }
+
+            while (!queue.isEmpty() && result.size() < limit) {
+                ShelfIterator iterator = queue.poll();
+                PriceShelf shelf = iterator.shelf;
+                int index = iterator.index;
+                if (shelf.priceAt(index) > maxPrice) {
+                    continue;
+                }
+                long id = shelf.idAt(index);
+                if (shelf.ownerAt(index) != currentUserId && !offeredBooks.contains(id)) {
+                    result.add(listings.get(id));
+                }
+                if (++iterator.index < shelf.size()) {
+                    queue.add(iterator);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Long bookId = event.getPrevious() != null ? event.getPrevious().getId() : event.getCurrent().getId();
+            removeListing(bookId);
+
+            if (event.isForSale()) {
+                BookSnapshot book = event.getCurrent();
+                Listing listing = new Listing(book.getId(), book.getGenreId(), book.getOwnerId(), toCents(book.getPrice()));
+                listings.put(listing.id, listing);
+                shelves.computeIfAbsent(listing.genreId, genreId -> new PriceShelf())
+                       .add(listing.price, listing.id, listing.ownerId);
+            } else {
+                // offers are deleted when the book is sold, withdrawn from sale or deleted
+                Set<Long> buyers = buyersByBook.remove(bookId);
+                if (buyers != null) {
+                    buyers.forEach(buyerId -> removeOfferedBook(buyerId, bookId));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOfferChanged(OfferChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getType() == OfferChangedEvent.Type.CREATED) {
+                offeredBooksByBuyer.computeIfAbsent(event.getBuyerId(), id -> new HashSet<>()).add(event.getBookId());
+                buyersByBook.computeIfAbsent(event.getBookId(), id -> new HashSet<>()).add(event.getBuyerId());
+            } else {
+                removeOfferedBook(event.getBuyerId(), event.getBookId());
+                Set<Long> buyers = buyersByBook.get(event.getBookId());
+                if (buyers != null && buyers.remove(event.getBuyerId()) && buyers.isEmpty()) {
+                    buyersByBook.remove(event.getBookId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeListing(Long bookId) {
+        Listing listing = listings.remove(bookId);
+        if (listing != null) {
+            PriceShelf shelf = shelves.get(listing.genreId);
+            shelf.remove(listing.price, listing.id);
+            if (shelf.size() == 0) {
+                shelves.remove(listing.genreId);
+            }
+        }
+    }
+
+    private void removeOfferedBook(Long buyerId, Long bookId) {
+        Set<Long> books = offeredBooksByBuyer.get(buyerId);
+        if (books != null && books.remove(bookId) && books.isEmpty()) {
+            offeredBooksByBuyer.remove(buyerId);
+        }
+    }
+
+    private static long toCents(BigDecimal price) {
+        return toCents(price, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts the price to cents, clamping the values that do not fit in a long, so that the out of range price
+     * filters match either all or none of the listings.
+     */
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        return price.movePointRight(2).setScale(0, roundingMode).max(MIN_CENTS).min(MAX_CENTS).longValueExact();
+    }
+
+    public static class Listing {
+        private final long id;
+        private final long genreId;
+        private final long ownerId;
+        private final long price;
+
+        private Listing(long id, long genreId, long ownerId, long price) {
+            this.id = id;
+            this.genreId = genreId;
+            this.ownerId = ownerId;
+            this.price = price;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public BigDecimal getPrice() {
+            return BigDecimal.valueOf(price, 2);
+        }
+    }
+
+    private static class ShelfIterator implements Comparable<ShelfIterator> {
+        private final PriceShelf shelf;
+        private int index;
+
+        private ShelfIterator(PriceShelf shelf, int index) {
+            this.shelf = shelf;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(ShelfIterator other) {
+            int comparison = Long.compare(shelf.priceAt(index), other.shelf.priceAt(other.index));
+            return comparison != 0 ? comparison : Long.compare(shelf.idAt(index), other.shelf.idAt(other.index));
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package pl.bookmarket.service.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+import pl.bookmarket.dto.ListingEventDto;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out hub pushing changes of the books for sale to the clients subscribed with Server-Sent Events. Connections
+ * are held by asynchronous requests, so an idle subscriber doesn't occupy a server thread. Publishing only appends
+ * the event to the bounded buffer of each subscriber, so a slow client never delays the transaction which changed the
+ * book. When the buffer of a subscriber is full, its oldest event is dropped and the client is told how many events
+ * it has missed.
+ * <p>
+ * The buffers are drained by a small pool of threads and a send blocks its thread until the client accepts the data.
+ * A subscriber whose send has been blocked for longer than the send timeout is evicted: it gets no more events, and
+ * its connection is completed once the write returns. A stalled client delays the other subscribers by at most the
+ * send timeout.
+ */
+@Component
+public class ForSaleEventStream {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ForSaleEventStream.class);
+
+    private static final int DRAIN_THREADS = 2;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Executor executor;
+    private final int bufferSize;
+    private final long timeout;
+    private final long sendTimeoutNanos;
+
+    @Autowired
+    public ForSaleEventStream(@Value("${bm.stream.buffer-size}") int bufferSize,
+                              @Value("${bm.stream.timeout}") long timeout,
+                              @Value("${bm.stream.send-timeout}") long sendTimeout) {
+        this(createExecutor(), bufferSize, timeout, sendTimeout);
+    }
+
+    ForSaleEventStream(Executor executor, int bufferSize, long timeout, long sendTimeout) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeout);
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeout));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        ListingEventDto listingEvent = toListingEvent(event);
+        if (listingEvent != null) {
+            publish(new Message(sequence.incrementAndGet(), listingEvent.getType().getEventName(), listingEvent));
+        }
+    }
+
+    /**
+     * Sends a comment to the idle subscribers, which keeps their connections open through proxies and detects the
+     * clients which have disconnected. The comment bypasses the buffers, and subscribers with pending events are
+     * skipped, as those events keep the connection alive anyway.
+     */
+    @Scheduled(fixedDelayString = "${bm.stream.heartbeat-interval}", initialDelayString = "${bm.stream.heartbeat-interval}")
+    public void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.requestHeartbeat()) {
+                executor.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bm.stream.send-timeout}", initialDelayString = "${bm.stream.send-timeout}")
+    public void evictStalledSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long sendStartedAt = subscriber.sendStartedAt;
+            if (sendStartedAt != 0 && now - sendStartedAt >= sendTimeoutNanos) {
+                LOG.debug("Evicting subscriber of books for sale after a send timeout.");
+                subscriber.evict();
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        if (executor instanceof ThreadPoolTaskExecutor) {
+            ((ThreadPoolTaskExecutor) executor).shutdown();
+        }
+    }
+
+    private void publish(Message message) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.offer(message, bufferSize)) {
+                executor.execute(() -> drain(subscriber));
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            Message message;
+            long dropped;
+            synchronized (subscriber) {
+                message = subscriber.buffer.poll();
+                dropped = subscriber.dropped;
+                subscriber.dropped = 0;
+                if (message == null && subscriber.heartbeat) {
+                    message = Message.HEARTBEAT;
+                }
+                subscriber.heartbeat = false;
+                if (message == null || subscriber.evicted) {
+                    subscriber.draining = false;
+                    return;
+                }
+            }
+
+            try {
+                subscriber.sendStartedAt = System.nanoTime();
+                if (dropped > 0) {
+                    subscriber.emitter.send(SseEmitter.event().name("overflow").data(dropped));
+                }
+                subscriber.emitter.send(message.toSseEvent());
+            } catch (IOException | IllegalStateException e) {
+                // the client has disconnected, the container completes the emitter on its own
+                LOG.debug("Removing subscriber of books for sale after failed send.", e);
+                subscribers.remove(subscriber);
+                return;
+            } finally {
+                subscriber.sendStartedAt = 0;
+            }
+
+            if (subscriber.evicted) {
+                // the emitter can't be completed by the eviction itself, as it is locked for the duration of a send
+                subscriber.emitter.complete();
+                return;
+            }
+        }
+    }
+
+    private static ListingEventDto toListingEvent(BookChangedEvent event) {
+        BookSnapshot previous = event.getPrevious();
+        BookSnapshot current = event.getCurrent();
+
+        if (!event.wasForSale() && event.isForSale()) {
+            return toListingEvent(ListingEventDto.Type.LISTING_ADDED, current, null);
+        }
+        if (event.wasForSale() && event.isForSale()) {
+            return Objects.equals(previous.getPrice(), current.getPrice()) ? null
+                    : toListingEvent(ListingEventDto.Type.PRICE_CHANGED, current, previous.getPrice());
+        }
+        if (event.wasForSale()) {
+            boolean sold = current != null && !current.getOwnerId().equals(previous.getOwnerId());
+            return toListingEvent(sold ? ListingEventDto.Type.SOLD : ListingEventDto.Type.LISTING_REMOVED, previous, null);
+        }
+        return null;
+    }
+
+    private static ListingEventDto toListingEvent(ListingEventDto.Type type, BookSnapshot book, BigDecimal previousPrice) {
+        return new ListingEventDto(type, book.getId(), book.getTitle(), book.getGenreId(), book.getPrice(), previousPrice);
+    }
+
+    private static Executor createExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(DRAIN_THREADS);
+        executor.setMaxPoolSize(DRAIN_THREADS);
+        executor.setThreadNamePrefix("ForSaleStream-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Message> buffer = new ArrayDeque<>();
+        private long dropped;
+        private boolean draining;
+        private boolean heartbeat;
+        private volatile boolean evicted;
+
+        /**
+         * Start of the send in progress from {@link System#nanoTime()} or 0 when the subscriber isn't being sent to.
+         */
+        private volatile long sendStartedAt;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Appends the message to the buffer, dropping the oldest one if the buffer is full.
+         *
+         * @return <i>true</i> if the buffer has to be scheduled for draining
+         */
+        private synchronized boolean offer(Message message, int bufferSize) {
+            if (evicted) {
+                return false;
+            }
+            if (buffer.size() >= bufferSize) {
+                buffer.poll();
+                dropped++;
+            }
+            buffer.add(message);
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        /**
+         * Requests a heartbeat, unless there are events waiting to be sent.
+         *
+         * @return <i>true</i> if the subscriber has to be scheduled for draining
+         */
+        private synchronized boolean requestHeartbeat() {
+            if (draining || evicted) {
+                return false;
+            }
+            heartbeat = true;
+            draining = true;
+            return true;
+        }
+
+        private synchronized void evict() {
+            evicted = true;
+            buffer.clear();
+        }
+    }
+
+    private static class Message {
+        private static final Message HEARTBEAT = new Message(null, null, null);
+
+        private final Long id;
+        private final String name;
+        private final Object data;
+
+        private Message(Long id, String name, Object data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+
+        // event builders are mutable, so a new one is created for each subscriber
+        private SseEventBuilder toSseEvent() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            return SseEmitter.event().id(String.valueOf(id)).name(name).data(data);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package pl.bookmarket.service.catalog;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.projection.ForSaleListing;
+import pl.bookmarket.dto.ForSaleFacetsDto;
+import pl.bookmarket.dto.ForSaleFacetsDto.DecadeCount;
+import pl.bookmarket.dto.ForSaleFacetsDto.GenreCount;
+import pl.bookmarket.dto.ForSaleFacetsDto.PriceBucket;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Counters of books marked for sale grouped by genre, price bucket and release decade. The counters are loaded on
+ * application startup and updated after each committed change of a book, so the facets are returned without
+ * querying the database.
+ */
+@Component
+public class ForSaleFacets {
+
+    /**
+     * Lower bounds of the price buckets. Each bucket ends where the next one starts, the last one is unbounded.
+     */
+    static final BigDecimal[] PRICE_BUCKETS = {new BigDecimal("0.00"), new BigDecimal("10.00"),
+            new BigDecimal("20.00"), new BigDecimal("50.00"), new BigDecimal("100.00"), new BigDecimal("200.00")};
+
+    private final BookDao bookDao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long total;
+    private Map<Long, Long> genreCounts = new HashMap<>();
+    private long[] priceCounts = new long[PRICE_BUCKETS.length];
+    private TreeMap<Integer, Long> decadeCounts = new TreeMap<>();
+
+    public ForSaleFacets(BookDao bookDao) {
+        this.bookDao = bookDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ForSaleListing> listings = bookDao.getForSaleListings();
+
+        lock.writeLock().lock();
+        try {
+            total = 0;
+            genreCounts = new HashMap<>();
+            priceCounts = new long[PRICE_BUCKETS.length];
+            decadeCounts = new TreeMap<>();
+            for (ForSaleListing listing : listings) {
+                count(listing.getGenreId(), listing.getPrice(), listing.getReleaseYear(), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ForSaleFacetsDto getFacets() {
+        ForSaleFacetsDto facets = new ForSaleFacetsDto();
+
+        lock.readLock().lock();
+        try {
+            List<GenreCount> genres = new ArrayList<>();
+            genreCounts.forEach((genreId, count) -> genres.add(new GenreCount(genreId, count)));
+            genres.sort(Comparator.comparingLong(GenreCount::getCount).reversed().thenComparing(GenreCount::getGenreId));
+
+            List<PriceBucket> prices = new ArrayList<>();
+            for (int i = 0; i < PRICE_BUCKETS.length; i++) {
+                BigDecimal to = i + 1 < PRICE_BUCKETS.length ? PRICE_BUCKETS[i + 1] : null;
+                prices.add(new PriceBucket(PRICE_BUCKETS[i], to, priceCounts[i]));
+            }
+
+            List<DecadeCount> decades = new ArrayList<>();
+            decadeCounts.forEach((decade, count) -> decades.add(new DecadeCount(decade, count)));
+
+            facets.setTotal(total);
+            facets.setGenres(genres);
+            facets.setPrices(prices);
+            facets.setDecades(decades);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return facets;
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.wasForSale()) {
+                BookSnapshot book = event.getPrevious();
+                count(book.getGenreId(), book.getPrice(), book.getReleaseYear(), -1);
+            }
+            if (event.isForSale()) {
+                BookSnapshot book = event.getCurrent();
+                count(book.getGenreId(), book.getPrice(), book.getReleaseYear(), 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void count(Long genreId, BigDecimal price, Integer releaseYear, int delta) {
+        // books without a price aren't listed in the catalog, so they aren't counted either
+        if (price == null) {
+            return;
+        }
+        total += delta;
+        genreCounts.merge(genreId, (long) delta, Long::sum);
+        genreCounts.remove(genreId, 0L);
+        priceCounts[priceBucketOf(price)] += delta;
+        if (releaseYear != null) {
+            int decade = Math.floorDiv(releaseYear, 10) * 10;
+            decadeCounts.merge(decade, (long) delta, Long::sum);
+            decadeCounts.remove(decade, 0L);
+        }
+    }
+
+    private static int priceBucketOf(BigDecimal price) {
+        int index = Arrays.binarySearch(PRICE_BUCKETS, price, BigDecimal::compareTo);
+        return index >= 0 ? index : Math.max(0, -index - 2);
+    }
+}
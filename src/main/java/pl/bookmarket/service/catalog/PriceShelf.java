@@ -0,0 +1,100 @@
+package pl.bookmarket.service.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Listings of a single genre kept in parallel primitive arrays sorted by price and book ID. Not thread-safe.
+ */
+class PriceShelf {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] owners = new long[INITIAL_CAPACITY];
+    private int size;
+
+    void add(long price, long id, long owner) {
+        int index = search(price, id);
+        if (index >= 0) {
+            owners[index] = owner;
+            return;
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            int capacity = size + (size >> 1);
+            prices = Arrays.copyOf(prices, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+        System.arraycopy(prices, index, prices, index + 1, size - index);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        System.arraycopy(owners, index, owners, index + 1, size - index);
+        prices[index] = price;
+        ids[index] = id;
+        owners[index] = owner;
+        size++;
+    }
+
+    boolean remove(long price, long id) {
+        int index = search(price, id);
+        if (index < 0) {
+            return false;
+        }
+        int moved = size - index - 1;
+        System.arraycopy(prices, index + 1, prices, index, moved);
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(owners, index + 1, owners, index, moved);
+        size--;
+        return true;
+    }
+
+    /**
+     * @return index of the first listing placed after the given price and book ID
+     */
+    int higher(long price, long id) {
+        int index = search(price, id);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * @return index of the first listing with the price not lower than the given one
+     */
+    int ceiling(long price) {
+        int index = search(price, Long.MIN_VALUE);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    long priceAt(int index) {
+        return prices[index];
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    long ownerAt(int index) {
+        return owners[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int search(long price, long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int comparison = prices[mid] != price ? Long.compare(prices[mid], price) : Long.compare(ids[mid], id);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
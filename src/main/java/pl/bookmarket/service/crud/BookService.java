@@ -1,6 +1,12 @@
 package pl.bookmarket.service.crud;
 
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.dto.ForSaleFacetsDto;
 import pl.bookmarket.model.Book;
+import pl.bookmarket.service.search.BookTextField;
+import pl.bookmarket.service.search.PrefixIndex.Suggestion;
+import pl.bookmarket.service.search.TrigramIndex.Match;
+import pl.bookmarket.util.CursorPage;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,7 +16,15 @@ public interface BookService {
 
     List<Book> getAllBooks();
 
-    List<Book> getBooksForSale();
+    CursorPage<Book> getBooksForSale(BookFilterDto filter, String cursor, int size);
+
+    ForSaleFacetsDto getForSaleFacets();
+
+    CursorPage<Book> searchBooks(String query, String cursor, int size);
+
+    List<Match> findSimilarTexts(String text, BookTextField field, int limit);
+
+    List<Suggestion> suggestTexts(String prefix, BookTextField field, int limit);
 
     Optional<Book> getBookById(Long id);
 
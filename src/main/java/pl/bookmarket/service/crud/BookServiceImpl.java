@@ -1,23 +1,49 @@
 package pl.bookmarket.service.crud;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.bookmarket.dao.BookDao;
 import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.dto.BookFilterDto.BookSort;
+import pl.bookmarket.dto.ForSaleFacetsDto;
 import pl.bookmarket.model.Book;
 import pl.bookmarket.model.Genre;
 import pl.bookmarket.model.User;
 import pl.bookmarket.security.authentication.AuthenticatedUser;
+import pl.bookmarket.service.catalog.ForSaleCatalog;
+import pl.bookmarket.service.catalog.ForSaleCatalog.Listing;
+import pl.bookmarket.service.catalog.ForSaleFacets;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.search.BookSearchIndex;
+import pl.bookmarket.service.search.BookSearchIndex.Hit;
+import pl.bookmarket.service.search.BookTextField;
+import pl.bookmarket.service.search.PrefixIndex;
+import pl.bookmarket.service.search.PrefixIndex.Suggestion;
+import pl.bookmarket.service.search.TextNormalizer;
+import pl.bookmarket.service.search.TrigramIndex;
+import pl.bookmarket.service.search.TrigramIndex.Match;
 import pl.bookmarket.util.AuthUtils;
+import pl.bookmarket.util.Cursor;
+import pl.bookmarket.util.CursorPage;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 import pl.bookmarket.validation.exception.EntityValidationException;
 
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -25,11 +51,25 @@ public class BookServiceImpl implements BookService {
     private final BookDao bookDao;
     private final GenreService genreService;
     private final OfferDao offerDao;
-
-    public BookServiceImpl(BookDao bookDao, GenreService genreService, OfferDao offerDao) {
+    private final ForSaleCatalog forSaleCatalog;
+    private final ForSaleFacets forSaleFacets;
+    private final BookSearchIndex bookSearchIndex;
+    private final TrigramIndex trigramIndex;
+    private final PrefixIndex prefixIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookServiceImpl(BookDao bookDao, GenreService genreService, OfferDao offerDao, ForSaleCatalog forSaleCatalog,
+                           ForSaleFacets forSaleFacets, BookSearchIndex bookSearchIndex, TrigramIndex trigramIndex,
+                           PrefixIndex prefixIndex, ApplicationEventPublisher eventPublisher) {
         this.bookDao = bookDao;
         this.genreService = genreService;
         this.offerDao = offerDao;
+        this.forSaleCatalog = forSaleCatalog;
+        this.forSaleFacets = forSaleFacets;
+        this.bookSearchIndex = bookSearchIndex;
+        this.trigramIndex = trigramIndex;
+        this.prefixIndex = prefixIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -47,9 +87,65 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
-    public List<Book> getBooksForSale() {
+    public CursorPage<Book> getBooksForSale(BookFilterDto filter, String cursor, int size) {
         AuthenticatedUser currentUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
-        return bookDao.getBooksForSale(currentUser.getId());
+        if (filter.getSort() == null) {
+            filter.setSort(BookSort.PRICE);
+        }
+
+        Cursor decodedCursor = decodeForSaleCursor(cursor, filter.getSort());
+        int pageSize = CursorPage.normalizeSize(size);
+
+        if (forSaleCatalog.supports(filter)) {
+            List<Listing> listings = forSaleCatalog.findBooksForSale(currentUser.getId(), filter, decodedCursor, pageSize + 1);
+            CursorPage<Listing> page = CursorPage.of(listings, pageSize,
+                    listing -> Cursor.encode(BookSort.PRICE, listing.getPrice(), listing.getId()));
+            List<Long> ids = page.getContent().stream().map(Listing::getId).collect(Collectors.toList());
+            return new CursorPage<>(getBooksInOrder(ids), page.getNextCursor());
+        }
+
+        List<Book> books = bookDao.findBooksForSale(currentUser.getId(), filter, decodedCursor, pageSize + 1);
+
+        if (filter.getSort() == BookSort.ID) {
+            return CursorPage.of(books, pageSize, book -> Cursor.encode(BookSort.ID, book.getId()));
+        }
+        return CursorPage.of(books, pageSize, book -> Cursor.encode(BookSort.PRICE, book.getPrice(), book.getId()));
+    }
+
+    @Override
+    public ForSaleFacetsDto getForSaleFacets() {
+        return forSaleFacets.getFacets();
+    }
+
+    @Override
+    public CursorPage<Book> searchBooks(String query, String cursor, int size) {
+        if (TextNormalizer.tokenize(query).isEmpty()) {
+            throw new EntityValidationException("q", "search.query.empty");
+        }
+
+        int pageSize = CursorPage.normalizeSize(size);
+        List<Hit> hits = bookSearchIndex.search(query, Cursor.decode(cursor, 2), pageSize + 1);
+        CursorPage<Hit> page = CursorPage.of(hits, pageSize, hit -> Cursor.encode(hit.getScore(), hit.getBookId()));
+        List<Long> ids = page.getContent().stream().map(Hit::getBookId).collect(Collectors.toList());
+        return new CursorPage<>(getBooksInOrder(ids), page.getNextCursor());
+    }
+
+    @Override
+    public List<Match> findSimilarTexts(String text, BookTextField field, int limit) {
+        if (TextNormalizer.tokenize(text).isEmpty()) {
+            throw new EntityValidationException("q", "search.query.empty");
+        }
+
+        return trigramIndex.findSimilar(text, getSearchedFields(field), CursorPage.normalizeSize(limit));
+    }
+
+    @Override
+    public List<Suggestion> suggestTexts(String prefix, BookTextField field, int limit) {
+        if (TextNormalizer.tokenize(prefix).isEmpty()) {
+            throw new EntityValidationException("prefix", "search.query.empty");
+        }
+
+        return prefixIndex.suggest(prefix, getSearchedFields(field), CursorPage.normalizeSize(limit));
     }
 
     @Override
@@ -70,7 +166,10 @@ public class BookServiceImpl implements BookService {
         verifyProperForSaleStatus(book);
         book.setOwner(currentUser);
         book.setGenre(genre);
-        return bookDao.save(book);
+        book.setListedOn(book.isForSale() ? OffsetDateTime.now() : null);
+        Book created = bookDao.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(null, new BookSnapshot(created)));
+        return created;
     }
 
     @Override
@@ -79,16 +178,24 @@ public class BookServiceImpl implements BookService {
         Book bookById = bookDao.findById(book.getId()).orElseThrow(() -> new EntityNotFoundException(Book.class));
         verifyUserPermissions(bookById);
         verifyProperForSaleStatus(book);
+        BookSnapshot previous = new BookSnapshot(bookById);
         book.setOwner(bookById.getOwner());
         Genre genre = genreService.getGenreById(book.getGenre().getId())
                                   .orElseThrow(() -> new EntityNotFoundException(Genre.class));
         book.setGenre(genre);
+        if (book.isForSale()) {
+            book.setListedOn(bookById.isForSale() ? bookById.getListedOn() : OffsetDateTime.now());
+        } else {
+            book.setListedOn(null);
+        }
 
         // delete all offers for book if its status was changed to "not for sale"
         if (!book.isForSale() && bookById.isForSale()) {
             offerDao.deleteAllOffersForBook(bookById.getId());
         }
-        return bookDao.save(book);
+        Book updated = bookDao.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(previous, new BookSnapshot(updated)));
+        return updated;
     }
 
     @Override
@@ -96,7 +203,29 @@ public class BookServiceImpl implements BookService {
     public void deleteBook(Long id) {
         Book bookById = bookDao.findById(id).orElseThrow(() -> new EntityNotFoundException(Book.class));
         verifyUserPermissions(bookById);
+        BookSnapshot previous = new BookSnapshot(bookById);
         bookDao.delete(bookById);
+        eventPublisher.publishEvent(new BookChangedEvent(previous, null));
+    }
+
+    private List<Book> getBooksInOrder(List<Long> ids) {
+        Map<Long, Book> booksById = bookDao.getBooksByIdIn(ids).stream()
+                                           .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream().map(booksById::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private List<BookTextField> getSearchedFields(BookTextField field) {
+        return field == null ? Arrays.asList(BookTextField.values()) : Collections.singletonList(field);
+    }
+
+    private Cursor decodeForSaleCursor(String cursor, BookSort sort) {
+        Cursor decoded = Cursor.decode(cursor, sort == BookSort.ID ? 2 : 3);
+
+        // the cursor is bound to the sort order it was created for
+        if (decoded != null && !sort.name().equals(decoded.getString(0))) {
+            throw new EntityValidationException("cursor", "cursor.invalid");
+        }
+        return decoded;
     }
 
     private void verifyUserPermissions(Book book) {
@@ -114,5 +243,13 @@ public class BookServiceImpl implements BookService {
         if (isError) {
             throw new EntityValidationException("forSale", "book.status.invalid");
         }
+
+        if (book.getAuctionEndsOn() != null && !book.isForSale()) {
+            throw new EntityValidationException("auctionEndsOn", "auction.not.for.sale");
+        }
+
+        if (book.getReservePrice() != null && book.getAuctionEndsOn() == null) {
+            throw new EntityValidationException("reservePrice", "auction.reserve.invalid");
+        }
     }
 }
\ No newline at end of file
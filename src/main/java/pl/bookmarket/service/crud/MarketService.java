@@ -1,7 +1,13 @@
 package pl.bookmarket.service.crud;
 
+import pl.bookmarket.dto.MarketStatsDto;
+import pl.bookmarket.dto.OfferSort;
 import pl.bookmarket.model.Offer;
+import pl.bookmarket.service.market.AuctionOrderBook.Auction;
+import pl.bookmarket.util.BatchItemResult;
+import pl.bookmarket.util.CursorPage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,11 +16,23 @@ public interface MarketService {
 
     List<Offer> getOffersByUserId(Long id);
 
+    CursorPage<Offer> getIncomingOffers(Long userId, OfferSort sort, String cursor, int size);
+
     Optional<Offer> getOfferById(Long id);
 
+    Auction getAuction(Long bookId);
+
     Offer addOffer(Offer offer);
 
+    List<BatchItemResult<Offer>> addOffers(List<Offer> offers);
+
     void acceptOffer(Long id);
 
+    void closeAuction(Long bookId);
+
+    void expireOffers(Collection<Long> ids);
+
+    MarketStatsDto getMarketStatistics();
+
     void deleteOffer(Long id);
 }
\ No newline at end of file
@@ -1,40 +1,78 @@
 package pl.bookmarket.service.crud;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.NotificationDao;
 import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.dao.TradeDao;
 import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.dto.MarketStatsDto;
+import pl.bookmarket.dto.OfferSort;
 import pl.bookmarket.model.Book;
-import pl.bookmarket.model.Message;
+import pl.bookmarket.model.Notification;
 import pl.bookmarket.model.Offer;
+import pl.bookmarket.model.Trade;
 import pl.bookmarket.model.User;
 import pl.bookmarket.security.authentication.AuthenticatedUser;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.OfferChangedEvent;
+import pl.bookmarket.service.market.AuctionOrderBook;
+import pl.bookmarket.service.market.AuctionOrderBook.Auction;
+import pl.bookmarket.service.stats.MarketStatistics;
 import pl.bookmarket.util.AuthUtils;
+import pl.bookmarket.util.BatchItemResult;
+import pl.bookmarket.util.Cursor;
+import pl.bookmarket.util.CursorPage;
+import pl.bookmarket.validation.exception.EntityConflictException;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 import pl.bookmarket.validation.exception.EntityValidationException;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class MarketServiceImpl implements MarketService {
     private final UserDao userDao;
     private final BookDao bookDao;
-    private final MessageService messageService;
+    private final NotificationDao notificationDao;
     private final OfferDao offerDao;
+    private final TradeDao tradeDao;
+    private final AuctionOrderBook auctionOrderBook;
+    private final MarketStatistics marketStatistics;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MarketServiceImpl(UserDao userDao, BookDao bookDao, MessageService messageService, OfferDao offerDao) {
+    public MarketServiceImpl(UserDao userDao, BookDao bookDao, NotificationDao notificationDao, OfferDao offerDao,
+                             TradeDao tradeDao, AuctionOrderBook auctionOrderBook, MarketStatistics marketStatistics,
+                             ApplicationEventPublisher eventPublisher) {
         this.userDao = userDao;
         this.bookDao = bookDao;
-        this.messageService = messageService;
+        this.notificationDao = notificationDao;
         this.offerDao = offerDao;
+        this.tradeDao = tradeDao;
+        this.auctionOrderBook = auctionOrderBook;
+        this.marketStatistics = marketStatistics;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -53,6 +91,32 @@ public class MarketServiceImpl implements MarketService {
         return offerDao.getOffersByBuyerId(userId);
     }
 
+    @Override
+    @PreAuthorize("authentication.principal.id == #userId or hasRole('ADMIN')")
+    public CursorPage<Offer> getIncomingOffers(Long userId, OfferSort sort, String cursor, int size) {
+        if (!userDao.existsById(userId)) {
+            throw new EntityNotFoundException(User.class);
+        }
+        if (sort == null) {
+            sort = OfferSort.NEWEST;
+        }
+
+        Cursor decodedCursor = Cursor.decode(cursor, sort == OfferSort.BOOK ? 3 : 2);
+        // the cursor is bound to the sort order it was created for
+        if (decodedCursor != null && !sort.name().equals(decodedCursor.getString(0))) {
+            throw new EntityValidationException("cursor", "cursor.invalid");
+        }
+
+        int pageSize = CursorPage.normalizeSize(size);
+        List<Offer> offers = offerDao.findIncomingOffers(userId, sort, decodedCursor, pageSize + 1);
+
+        if (sort == OfferSort.BOOK) {
+            return CursorPage.of(offers, pageSize,
+                    offer -> Cursor.encode(OfferSort.BOOK, offer.getBook().getId(), offer.getId()));
+        }
+        return CursorPage.of(offers, pageSize, offer -> Cursor.encode(OfferSort.NEWEST, offer.getId()));
+    }
+
     @Override
     public Optional<Offer> getOfferById(Long id) {
         Optional<Offer> offerOptional = offerDao.findById(id);
@@ -60,6 +124,11 @@ public class MarketServiceImpl implements MarketService {
         return offerOptional;
     }
 
+    @Override
+    public Auction getAuction(Long bookId) {
+        return auctionOrderBook.getAuction(bookId).orElseThrow(() -> new EntityNotFoundException(Auction.class));
+    }
+
     @Override
     @Transactional
     public Offer addOffer(Offer offer) {
@@ -72,17 +141,73 @@ public class MarketServiceImpl implements MarketService {
         Book book = bookDao.findById(offer.getBook().getId())
                            .orElseThrow(() -> new EntityNotFoundException(Book.class));
 
-        validateBook(book, authenticatedUser);
+        validateBook(book, authenticatedUser.getId(),
+                offerDao.existsByBookIdAndBuyerId(book.getId(), authenticatedUser.getId()));
+        if (book.getAuctionEndsOn() != null) {
+            validateBid(book, offer.getAmount(), lockAuctions(Collections.singleton(book.getId())).get(book.getId()));
+        } else if (offer.getAmount() != null) {
+            throw new EntityValidationException("amount", "offer.amount.not.allowed");
+        }
 
         User currentUser = userDao.findById(authenticatedUser.getId()).orElseThrow(NoSuchElementException::new);
         offer.setBuyer(currentUser);
         offer.setBook(book);
 
-        //send message to book owner, that a new offer for his book has been made
-        Message message = new Message(currentUser, book.getOwner(), String.format("{new.offer} \"%s\"", book.getTitle()));
-        messageService.createMessage(message);
+        // the message to the book owner, that a new offer for their book has been made, is sent by the outbox drainer
+        notificationDao.save(getNewOfferNotification(offer));
+
+        Offer created = offerDao.save(offer);
+        eventPublisher.publishEvent(new OfferChangedEvent(OfferChangedEvent.Type.CREATED, created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public List<BatchItemResult<Offer>> addOffers(List<Offer> offers) {
+        AuthenticatedUser authenticatedUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
+        User currentUser = userDao.findById(authenticatedUser.getId()).orElseThrow(NoSuchElementException::new);
+
+        // books and offers already made by the user are loaded once for the whole batch
+        Set<Long> bookIds = offers.stream().map(Offer::getBook).filter(Objects::nonNull).map(Book::getId)
+                                  .filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, Book> booksById = new HashMap<>();
+        Set<Long> offeredBookIds = new HashSet<>();
+        if (!bookIds.isEmpty()) {
+            bookDao.getBooksByIdIn(bookIds).forEach(book -> booksById.put(book.getId(), book));
+            offeredBookIds.addAll(offerDao.getOfferedBookIds(currentUser.getId(), bookIds));
+        }
+        Map<Long, BigDecimal> highestBids = lockAuctions(booksById.values().stream()
+                                                                  .filter(book -> book.getAuctionEndsOn() != null)
+                                                                  .map(Book::getId).collect(Collectors.toList()));
+
+        List<BatchItemResult<Offer>> results = new ArrayList<>();
+        List<Offer> validOffers = new ArrayList<>();
+        for (int i = 0; i < offers.size(); i++) {
+            Offer offer = offers.get(i);
+            try {
+                Book book = getBatchOfferBook(offer, booksById);
+                validateBook(book, currentUser.getId(), offeredBookIds.contains(book.getId()));
+                if (book.getAuctionEndsOn() != null) {
+                    validateBid(book, offer.getAmount(), highestBids.get(book.getId()));
+                } else if (offer.getAmount() != null) {
+                    throw new EntityValidationException("amount", "offer.amount.not.allowed");
+                }
+                // a second offer for the same book in the batch is rejected like an already existing one
+                offeredBookIds.add(book.getId());
+                offer.setBuyer(currentUser);
+                offer.setBook(book);
+                validOffers.add(offer);
+                results.add(BatchItemResult.success(i, offer));
+            } catch (EntityValidationException | EntityNotFoundException e) {
+                results.add(BatchItemResult.failure(i, e.getError()));
+            }
+        }
 
-        return offerDao.save(offer);
+        // inserts of the offers and the notifications are sent in JDBC batches
+        offerDao.saveAll(validOffers);
+        notificationDao.saveAll(validOffers.stream().map(this::getNewOfferNotification).collect(Collectors.toList()));
+        validOffers.forEach(offer -> eventPublisher.publishEvent(new OfferChangedEvent(OfferChangedEvent.Type.CREATED, offer)));
+        return results;
     }
 
     @Override
@@ -94,23 +219,88 @@ public class MarketServiceImpl implements MarketService {
         User seller = book.getOwner();
 
         verifyCurrentUserPermissions(book.getOwner());
+        if (offer.getExpiresOn() != null && !offer.getExpiresOn().isAfter(OffsetDateTime.now())) {
+            throw new EntityValidationException("offer", "offer.expired");
+        }
+        BookSnapshot previous = new BookSnapshot(book);
 
-        List<Message> messages = new ArrayList<>();
-        messages.add(new Message(seller, buyer, "{book.bought}: " + book.getTitle()));
-
-        for (Offer o : book.getOffers()) {
-            if (!o.getId().equals(offer.getId())) {
-                messages.add(new Message(seller, o.getBuyer(), "{book.sold}: " + book.getTitle()));
-            }
+        // compare-and-set of the owner makes concurrent acceptances of offers for the same book fail instead of
+        // silently overwriting each other, only the row of the book is locked
+        if (bookDao.transferOwnership(book.getId(), seller, buyer) == 0) {
+            throw new EntityConflictException("book", "book.already.sold");
         }
+        // bids are sold for their amount, regular offers for the asking price
+        BigDecimal price = previous.getAuctionEndsOn() != null ? offer.getAmount() : previous.getPrice();
+        tradeDao.save(new Trade(book.getId(), book.getTitle(), seller.getId(), buyer.getId(), price, OffsetDateTime.now()));
+        // a single outbox entry notifies the buyer and the buyers whose offers haven't been accepted, their messages
+        // are created by the outbox drainer outside of this transaction
+        notificationDao.save(new Notification(Notification.Type.BOOK_SOLD, seller.getId(), buyer.getId(),
+                                              offerDao.getOtherBuyerIds(book.getId(), offer.getId()), book.getTitle()));
+        offerDao.deleteAllOffersForBook(book.getId());
 
+        // the persistence context has been cleared by the bulk update, so the book is detached here
         book.setOwner(buyer);
         book.setForSale(false);
         book.setPrice(null);
+        book.setAuctionEndsOn(null);
+        book.setReservePrice(null);
+        book.setListedOn(null);
+        eventPublisher.publishEvent(new BookChangedEvent(previous, new BookSnapshot(book)));
+    }
 
-        bookDao.save(book);
-        offerDao.deleteAllOffersForBook(book.getId());
-        messageService.createMultipleMessages(messages);
+    @Override
+    @Transactional
+    public void closeAuction(Long bookId) {
+        Book book = bookDao.findById(bookId).orElseThrow(() -> new EntityNotFoundException(Book.class));
+        verifyCurrentUserPermissions(book.getOwner());
+
+        if (!book.isForSale() || book.getAuctionEndsOn() == null) {
+            throw new EntityNotFoundException(Auction.class);
+        }
+
+        // the winner is picked in the same way as an offer accepted by the owner
+        Auction auction = auctionOrderBook.getAuction(bookId).orElseThrow(() -> new EntityNotFoundException(Auction.class));
+        if (auction.isReserveMet()) {
+            acceptOffer(auction.getHighestBid().getOfferId());
+            return;
+        }
+
+        // without a winning bid the book stays for sale at its starting price and bids become regular offers
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setAuctionEndsOn(null);
+        book.setReservePrice(null);
+        Book updated = bookDao.save(book);
+        eventPublisher.publishEvent(new BookChangedEvent(previous, new BookSnapshot(updated)));
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ADMIN')")
+    public void expireOffers(Collection<Long> ids) {
+        List<Offer> expired = offerDao.getOffersByIdInAndExpiresOnLessThanEqualOrderById(ids, OffsetDateTime.now());
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        // each buyer gets a single notification per seller, listing all their books whose offers expired, sent on
+        // the seller's behalf by the outbox drainer
+        Map<List<Long>, List<String>> titlesByParties = expired.stream().collect(Collectors.groupingBy(
+                offer -> Arrays.asList(offer.getBook().getOwner().getId(), offer.getBuyer().getId()),
+                LinkedHashMap::new, Collectors.mapping(offer -> offer.getBook().getTitle(), Collectors.toList())));
+        List<Notification> notifications = titlesByParties.entrySet().stream()
+                .map(entry -> new Notification(Notification.Type.OFFERS_EXPIRED, entry.getKey().get(0),
+                                               entry.getKey().get(1), getExpiredTitles(entry.getValue())))
+                .collect(Collectors.toList());
+
+        offerDao.deleteOffersByIds(expired.stream().map(Offer::getId).collect(Collectors.toList()));
+        notificationDao.saveAll(notifications);
+        expired.forEach(offer -> eventPublisher.publishEvent(new OfferChangedEvent(OfferChangedEvent.Type.DELETED, offer)));
+    }
+
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public MarketStatsDto getMarketStatistics() {
+        return marketStatistics.getStatistics();
     }
 
     @Override
@@ -120,6 +310,7 @@ public class MarketServiceImpl implements MarketService {
         verifyCurrentUserPermissions(offer.getBuyer());
 
         offerDao.delete(offer);
+        eventPublisher.publishEvent(new OfferChangedEvent(OfferChangedEvent.Type.DELETED, offer));
     }
 
     private void verifyCurrentUserPermissions(User entityOwner) {
@@ -131,18 +322,75 @@ public class MarketServiceImpl implements MarketService {
         }
     }
 
-    private void validateBook(Book book, AuthenticatedUser authenticatedUser) {
+    private Book getBatchOfferBook(Offer offer, Map<Long, Book> booksById) {
+        if (offer.getBook() == null || offer.getBook().getId() == null) {
+            throw new EntityValidationException("book", "book.invalid");
+        }
+
+        Book book = booksById.get(offer.getBook().getId());
+        if (book == null) {
+            throw new EntityNotFoundException(Book.class);
+        }
+        return book;
+    }
+
+    private Notification getNewOfferNotification(Offer offer) {
+        Book book = offer.getBook();
+        return new Notification(Notification.Type.NEW_OFFER, offer.getBuyer().getId(), book.getOwner().getId(),
+                                book.getTitle());
+    }
+
+    private void validateBook(Book book, Long buyerId, boolean alreadyOffered) {
         if (!book.isForSale()) {
             throw new EntityValidationException("book", "book.not.for.sale");
         }
 
-        if (book.getOwner().getId().equals(authenticatedUser.getId())) {
+        if (book.getOwner().getId().equals(buyerId)) {
             throw new EntityValidationException("book.owner", "own.book.offer");
         }
 
-        if (book.getOffers().stream()
-                .anyMatch(bookOffer -> bookOffer.getBuyer().getId().equals(authenticatedUser.getId()))) {
+        // the unique constraint on the book and the buyer rejects offers which pass this check concurrently
+        if (alreadyOffered) {
             throw new EntityValidationException("offer.buyer", "offer.exists.for.user");
         }
     }
+
+    private String getExpiredTitles(List<String> titles) {
+        String text = String.join(", ", titles);
+        return text.length() <= Notification.MAX_TITLE_LENGTH ? text
+                : text.substring(0, Notification.MAX_TITLE_LENGTH - 3) + "...";
+    }
+
+    /**
+     * Locks the auctioned books and reads their highest bids, so concurrent bids for the same auction are validated
+     * one after another, each one against the bids committed before it. The order book is updated only after commit,
+     * so it can't be used for the validation.
+     *
+     * @param bookIds ids of the auctioned books
+     * @return amounts of the highest bids by id of the book, books without bids are absent
+     */
+    private Map<Long, BigDecimal> lockAuctions(Collection<Long> bookIds) {
+        Map<Long, BigDecimal> highestBids = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return highestBids;
+        }
+        bookDao.lockBooks(bookIds);
+        offerDao.getHighestBids(bookIds).forEach(bid -> highestBids.put(bid.getBookId(), bid.getAmount()));
+        return highestBids;
+    }
+
+    private void validateBid(Book book, BigDecimal amount, BigDecimal highestBid) {
+        if (!book.getAuctionEndsOn().isAfter(OffsetDateTime.now())) {
+            throw new EntityValidationException("book", "auction.closed");
+        }
+
+        if (amount == null) {
+            throw new EntityValidationException("amount", "offer.amount.required");
+        }
+
+        boolean isTooLow = highestBid != null ? amount.compareTo(highestBid) <= 0 : amount.compareTo(book.getPrice()) < 0;
+        if (isTooLow) {
+            throw new EntityValidationException("amount", "offer.amount.too.low");
+        }
+    }
 }
\ No newline at end of file
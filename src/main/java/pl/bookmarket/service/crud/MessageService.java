@@ -1,15 +1,25 @@
 package pl.bookmarket.service.crud;
 
+import pl.bookmarket.model.Broadcast;
+import pl.bookmarket.model.Conversation;
 import pl.bookmarket.model.Message;
+import pl.bookmarket.service.message.ArchivedMessage;
+import pl.bookmarket.util.CursorPage;
 
 import java.util.List;
 
 public interface MessageService {
-    List<Message> getReceivedMessages(Long userId);
+    CursorPage<Message> getReceivedMessages(Long userId, String cursor, int size);
 
-    List<Message> getUnreadMessages(Long userId);
+    CursorPage<Message> getUnreadMessages(Long userId, String cursor, int size);
 
-    List<Message> getAllMessages(Long userId);
+    CursorPage<Message> getAllMessages(Long userId, String cursor, int size);
+
+    CursorPage<ArchivedMessage> getArchivedMessages(Long userId, String cursor, int size);
+
+    int getUnreadMessageCount(Long userId);
+
+    CursorPage<Conversation> getConversations(Long userId, String cursor, int size);
 
     Message createMessage(Message message);
 
@@ -19,5 +29,13 @@ public interface MessageService {
 
     void setMessagesRead(List<Long> messageIds);
 
+    void setAllMessagesRead(Long userId, Long lastMessageId);
+
     void deleteMessage(Long id);
+
+    Broadcast getBroadcast(Long id);
+
+    Broadcast createBroadcast(String text);
+
+    Broadcast resumeBroadcast(Long id);
 }
\ No newline at end of file
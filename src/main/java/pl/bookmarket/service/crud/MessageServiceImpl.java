@@ -1,63 +1,166 @@
 package pl.bookmarket.service.crud;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.BroadcastDao;
+import pl.bookmarket.dao.ConversationDao;
 import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.projection.UnreadCount;
+import pl.bookmarket.model.Broadcast;
+import pl.bookmarket.model.Conversation;
 import pl.bookmarket.model.Message;
 import pl.bookmarket.model.User;
 import pl.bookmarket.security.authentication.AuthenticatedUser;
+import pl.bookmarket.service.event.BroadcastStartedEvent;
+import pl.bookmarket.service.message.ArchivedMessage;
+import pl.bookmarket.service.message.ConversationTracker;
+import pl.bookmarket.service.message.MessageArchive;
+import pl.bookmarket.service.message.UnreadMessageCounters;
 import pl.bookmarket.util.AuthUtils;
+import pl.bookmarket.util.Cursor;
+import pl.bookmarket.util.CursorPage;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 import pl.bookmarket.validation.exception.EntityValidationException;
 
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 public class MessageServiceImpl implements MessageService {
+    private static final Comparator<Message> NEWEST_FIRST =
+            Comparator.comparing((Message message) -> message.getSendTime().toInstant()).reversed()
+                      .thenComparing(Message::getId, Comparator.reverseOrder());
+
     private final MessageDao messageDao;
+    private final ConversationDao conversationDao;
     private final UserService userService;
+    private final ConversationTracker conversationTracker;
+    private final UnreadMessageCounters unreadMessageCounters;
+    private final BroadcastDao broadcastDao;
+    private final MessageArchive messageArchive;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public MessageServiceImpl(MessageDao messageDao, UserService userService) {
+    public MessageServiceImpl(MessageDao messageDao, ConversationDao conversationDao, UserService userService,
+                              ConversationTracker conversationTracker, UnreadMessageCounters unreadMessageCounters,
+                              BroadcastDao broadcastDao, MessageArchive messageArchive,
+                              ApplicationEventPublisher eventPublisher) {
         this.messageDao = messageDao;
+        this.conversationDao = conversationDao;
         this.userService = userService;
+        this.conversationTracker = conversationTracker;
+        this.unreadMessageCounters = unreadMessageCounters;
+        this.broadcastDao = broadcastDao;
+        this.messageArchive = messageArchive;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @PreAuthorize("authentication.principal.id == #userId")
+    public CursorPage<Message> getReceivedMessages(Long userId, String cursor, int size) {
+        Cursor decodedCursor = Cursor.decode(cursor, 2);
+        int limit = CursorPage.normalizeSize(size) + 1;
+
+        // read and unread messages are separate ranges of the receiver index, each one is already sorted
+        List<Message> messages = merge(limit, messageDao.findReceivedMessages(userId, false, decodedCursor, limit),
+                                       messageDao.findReceivedMessages(userId, true, decodedCursor, limit));
+        return CursorPage.of(messages, limit - 1, MessageServiceImpl::getCursor);
+    }
+
+    @Override
+    @PreAuthorize("authentication.principal.id == #userId")
+    public CursorPage<Message> getUnreadMessages(Long userId, String cursor, int size) {
+        Cursor decodedCursor = Cursor.decode(cursor, 2);
+        int pageSize = CursorPage.normalizeSize(size);
+
+        List<Message> messages = messageDao.findReceivedMessages(userId, false, decodedCursor, pageSize + 1);
+        return CursorPage.of(messages, pageSize, MessageServiceImpl::getCursor);
+    }
+
+    @Override
+    @PreAuthorize("authentication.principal.id == #userId")
+    public CursorPage<Message> getAllMessages(Long userId, String cursor, int size) {
+        Cursor decodedCursor = Cursor.decode(cursor, 2);
+        int limit = CursorPage.normalizeSize(size) + 1;
+
+        // a single query with a disjunction of the sender and the receiver couldn't use any of the indexes
+        List<Message> messages = merge(limit, messageDao.findReceivedMessages(userId, false, decodedCursor, limit),
+                                       messageDao.findReceivedMessages(userId, true, decodedCursor, limit),
+                                       messageDao.findSentMessages(userId, decodedCursor, limit));
+        return CursorPage.of(messages, limit - 1, MessageServiceImpl::getCursor);
     }
 
     @Override
     @PreAuthorize("authentication.principal.id == #userId")
-    public List<Message> getReceivedMessages(Long userId) {
-        return messageDao.findMessagesByReceiverId(userId);
+    public CursorPage<ArchivedMessage> getArchivedMessages(Long userId, String cursor, int size) {
+        return messageArchive.getMessages(userId, Cursor.decode(cursor, 3), CursorPage.normalizeSize(size));
     }
 
     @Override
     @PreAuthorize("authentication.principal.id == #userId")
-    public List<Message> getUnreadMessages(Long userId) {
-        return messageDao.findMessagesByReadFalseAndReceiverId(userId);
+    public int getUnreadMessageCount(Long userId) {
+        return unreadMessageCounters.getUnreadCount(userId);
     }
 
     @Override
     @PreAuthorize("authentication.principal.id == #userId")
-    public List<Message> getAllMessages(Long userId) {
-        return messageDao.findAllMessagesForUser(userId);
+    public CursorPage<Conversation> getConversations(Long userId, String cursor, int size) {
+        Cursor decodedCursor = Cursor.decode(cursor, 2);
+        int pageSize = CursorPage.normalizeSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Conversation> conversations = decodedCursor == null
+                ? conversationDao.getConversations(userId, limit)
+                : conversationDao.getConversationsAfter(userId, decodedCursor.getDateTime(0), decodedCursor.getLong(1), limit);
+        return CursorPage.of(conversations, pageSize,
+                             conversation -> Cursor.encode(conversation.getLastActivity(), conversation.getId()));
     }
 
     @Override
     @Transactional
     public Message createMessage(Message message) {
-        validateAndUpdateMessage(message);
-        return messageDao.save(message);
+        AuthenticatedUser currentUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
+        User receiver = userService.getUserById(message.getReceiver().getId()).orElse(null);
+        validateAndUpdateMessage(message, receiver, currentUser, () -> getUser(currentUser));
+        Message created = messageDao.save(message);
+        conversationTracker.onMessagesCreated(Collections.singletonList(created));
+        return created;
     }
 
     @Override
     @Transactional
     public List<Message> createMultipleMessages(List<Message> messages) {
-        messages.forEach(this::validateAndUpdateMessage);
-        return (List<Message>) messageDao.saveAll(messages);
+        AuthenticatedUser currentUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
+
+        // receivers of the whole batch are loaded with a single query and the sender at most once
+        Set<Long> receiverIds = messages.stream().map(message -> message.getReceiver().getId()).filter(Objects::nonNull)
+                                        .collect(Collectors.toSet());
+        Map<Long, User> receivers = userService.getUsersByIds(receiverIds).stream()
+                                               .collect(Collectors.toMap(User::getId, Function.identity()));
+        User sender = messages.stream().anyMatch(message -> isSenderReplaced(message, currentUser))
+                ? getUser(currentUser) : null;
+
+        messages.forEach(message -> validateAndUpdateMessage(message, receivers.get(message.getReceiver().getId()),
+                                                             currentUser, () -> sender));
+        // each id is fetched from the sequence separately, only the inserts themselves are sent in JDBC batches
+        List<Message> created = (List<Message>) messageDao.saveAll(messages);
+        conversationTracker.onMessagesCreated(created);
+        return created;
     }
 
     @Override
@@ -66,24 +169,37 @@ public class MessageServiceImpl implements MessageService {
         Message msg = messageDao.findById(message.getId())
                                 .orElseThrow(() -> new EntityNotFoundException(Message.class));
         verifyUserPermissions(msg);
+        if (msg.isRead() != message.isRead()) {
+            conversationTracker.onReadChanged(Collections.singletonList(msg), message.isRead());
+        }
         msg.setText(message.getText());
         msg.setRead(message.isRead());
-        return messageDao.save(msg);
+        Message updated = messageDao.save(msg);
+        conversationTracker.onMessageUpdated(updated);
+        return updated;
     }
 
     @Override
     @Transactional
     public void setMessagesRead(List<Long> messageIds) {
-        Iterable<Message> messages = messageDao.findAllById(messageIds);
-        AuthenticatedUser currentUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        Long userId = AuthUtils.getCurrentUser(AuthenticatedUser.class).getId();
 
-        messages.forEach(message -> {
-            if (currentUser.getId().equals(message.getReceiver().getId())) {
-                message.setRead(true);
-            }
-        });
+        // messages of other receivers and already read ones are skipped by the conditions of the update
+        List<UnreadCount> bySender = messageDao.getUnreadCountsBySender(messageIds, userId);
+        int updated = messageDao.setMessagesRead(messageIds, userId);
+        conversationTracker.onMessagesRead(userId, bySender, updated);
+    }
 
-        messageDao.saveAll(messages);
+    @Override
+    @Transactional
+    @PreAuthorize("authentication.principal.id == #userId")
+    public void setAllMessagesRead(Long userId, Long lastMessageId) {
+        List<UnreadCount> bySender = messageDao.getUnreadCountsBySenderUpTo(userId, lastMessageId);
+        int updated = messageDao.setMessagesReadUpTo(userId, lastMessageId);
+        conversationTracker.onMessagesRead(userId, bySender, updated);
     }
 
     @Override
@@ -92,6 +208,54 @@ public class MessageServiceImpl implements MessageService {
         Message message = messageDao.findById(id).orElseThrow(() -> new EntityNotFoundException(Message.class));
         verifyUserPermissions(message);
         messageDao.delete(message);
+        conversationTracker.onMessageDeleted(message);
+    }
+
+    @Override
+    @PreAuthorize("hasRole('ADMIN')")
+    public Broadcast getBroadcast(Long id) {
+        return broadcastDao.findById(id).orElseThrow(() -> new EntityNotFoundException(Broadcast.class));
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ADMIN')")
+    public Broadcast createBroadcast(String text) {
+        AuthenticatedUser currentUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
+        // the messages are sent in the background after the broadcast is committed
+        Broadcast broadcast = broadcastDao.save(new Broadcast(currentUser.getId(), text,
+                                                              Math.max(userService.getUserCount() - 1, 0)));
+        eventPublisher.publishEvent(new BroadcastStartedEvent(broadcast.getId()));
+        return broadcast;
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("hasRole('ADMIN')")
+    public Broadcast resumeBroadcast(Long id) {
+        Broadcast broadcast = getBroadcast(id);
+        if (broadcast.getStatus() != Broadcast.Status.RUNNING) {
+            throw new EntityValidationException("status", "broadcast.not.running");
+        }
+        eventPublisher.publishEvent(new BroadcastStartedEvent(broadcast.getId()));
+        return broadcast;
+    }
+
+    /**
+     * Merges pages of messages sorted from the newest one into a single page. Messages sent by the user to themselves
+     * are found both among the sent and the received ones, so they are included only once.
+     */
+    @SafeVarargs
+    private static List<Message> merge(int limit, List<Message>... pages) {
+        NavigableSet<Message> merged = new TreeSet<>(NEWEST_FIRST);
+        for (List<Message> page : pages) {
+            merged.addAll(page);
+        }
+        return merged.stream().limit(limit).collect(Collectors.toList());
+    }
+
+    private static String getCursor(Message message) {
+        return Cursor.encode(message.getSendTime(), message.getId());
     }
 
     private void verifyUserPermissions(Message message) {
@@ -102,22 +266,29 @@ public class MessageServiceImpl implements MessageService {
         }
     }
 
-    private void validateAndUpdateMessage(Message message) {
-        AuthenticatedUser currentUser = AuthUtils.getCurrentUser(AuthenticatedUser.class);
-        Optional<User> receiver = userService.getUserById(message.getReceiver().getId());
-
-        if (!receiver.isPresent() || receiver.get().getId().equals(currentUser.getId())) {
+    private void validateAndUpdateMessage(Message message, User receiver, AuthenticatedUser currentUser,
+                                          Supplier<User> sender) {
+        if (receiver == null || receiver.getId().equals(currentUser.getId())) {
             throw new EntityValidationException("receiver", "receiver.invalid");
         }
 
-        boolean senderInvalid = message.getSender() == null || message.getSender().getId() == null;
-
-        // set sender to current user if it's invalid or set by ineligible user
-        if (senderInvalid || !AuthUtils.isAdmin(currentUser)) {
-            User sender = userService.getUserById(currentUser.getId()).orElseThrow(NoSuchElementException::new);
-            message.setSender(sender);
+        if (isSenderReplaced(message, currentUser)) {
+            message.setSender(sender.get());
         }
-        message.setReceiver(receiver.get());
+        message.setReceiver(receiver);
         message.setRead(false);
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks if the sender of the message is replaced with the current user, which happens if the sender is invalid
+     * or has been set by an ineligible user.
+     */
+    private static boolean isSenderReplaced(Message message, AuthenticatedUser currentUser) {
+        boolean senderInvalid = message.getSender() == null || message.getSender().getId() == null;
+        return senderInvalid || !AuthUtils.isAdmin(currentUser);
+    }
+
+    private User getUser(AuthenticatedUser currentUser) {
+        return userService.getUserById(currentUser.getId()).orElseThrow(NoSuchElementException::new);
+    }
+}
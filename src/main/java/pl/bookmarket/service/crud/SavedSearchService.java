@@ -0,0 +1,14 @@
+package pl.bookmarket.service.crud;
+
+import pl.bookmarket.model.SavedSearch;
+
+import java.util.List;
+
+public interface SavedSearchService {
+
+    List<SavedSearch> getSavedSearches(Long userId);
+
+    SavedSearch createSavedSearch(Long userId, SavedSearch savedSearch);
+
+    void deleteSavedSearch(Long userId, Long id);
+}
@@ -0,0 +1,81 @@
+package pl.bookmarket.service.crud;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.SavedSearchDao;
+import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.model.Genre;
+import pl.bookmarket.model.SavedSearch;
+import pl.bookmarket.model.User;
+import pl.bookmarket.service.event.SavedSearchChangedEvent;
+import pl.bookmarket.service.search.SavedSearchPercolator;
+import pl.bookmarket.validation.exception.EntityNotFoundException;
+import pl.bookmarket.validation.exception.EntityValidationException;
+
+import java.util.List;
+
+@Service
+@Transactional(readOnly = true)
+public class SavedSearchServiceImpl implements SavedSearchService {
+
+    /**
+     * Maximum number of saved searches of a single user.
+     */
+    static final int MAX_SAVED_SEARCHES = 20;
+
+    private final SavedSearchDao savedSearchDao;
+    private final UserDao userDao;
+    private final GenreService genreService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SavedSearchServiceImpl(SavedSearchDao savedSearchDao, UserDao userDao, GenreService genreService,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.savedSearchDao = savedSearchDao;
+        this.userDao = userDao;
+        this.genreService = genreService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    @PreAuthorize("authentication.principal.id == #userId")
+    public List<SavedSearch> getSavedSearches(Long userId) {
+        return savedSearchDao.findSavedSearchesByOwnerIdOrderById(userId);
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("authentication.principal.id == #userId")
+    public SavedSearch createSavedSearch(Long userId, SavedSearch savedSearch) {
+        User owner = userDao.findById(userId).orElseThrow(() -> new EntityNotFoundException(User.class));
+        Long genreId = savedSearch.getGenre() == null ? null : savedSearch.getGenre().getId();
+
+        if (!SavedSearchPercolator.hasCriteria(genreId, savedSearch.getAuthor(), savedSearch.getMaxPrice(),
+                                               savedSearch.getKeywords())) {
+            throw new EntityValidationException("savedSearch", "saved.search.empty");
+        }
+        if (savedSearchDao.countByOwnerId(userId) >= MAX_SAVED_SEARCHES) {
+            throw new EntityValidationException("savedSearch", "saved.search.limit");
+        }
+
+        savedSearch.setId(null);
+        savedSearch.setOwner(owner);
+        savedSearch.setGenre(genreId == null ? null : genreService.getGenreById(genreId)
+                                                                  .orElseThrow(() -> new EntityNotFoundException(Genre.class)));
+        SavedSearch created = savedSearchDao.save(savedSearch);
+        eventPublisher.publishEvent(new SavedSearchChangedEvent(SavedSearchChangedEvent.Type.CREATED, created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    @PreAuthorize("authentication.principal.id == #userId")
+    public void deleteSavedSearch(Long userId, Long id) {
+        SavedSearch savedSearch = savedSearchDao.findById(id)
+                                                .filter(search -> search.getOwner().getId().equals(userId))
+                                                .orElseThrow(() -> new EntityNotFoundException(SavedSearch.class));
+        savedSearchDao.delete(savedSearch);
+        eventPublisher.publishEvent(new SavedSearchChangedEvent(SavedSearchChangedEvent.Type.DELETED, savedSearch));
+    }
+}
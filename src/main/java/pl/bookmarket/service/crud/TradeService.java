@@ -0,0 +1,15 @@
+package pl.bookmarket.service.crud;
+
+import pl.bookmarket.dto.PricePointDto;
+import pl.bookmarket.model.Trade;
+import pl.bookmarket.util.CursorPage;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface TradeService {
+
+    CursorPage<Trade> getBookHistory(Long bookId, String cursor, int size);
+
+    List<PricePointDto> getPriceHistory(String title, YearMonth from, YearMonth to);
+}
@@ -0,0 +1,72 @@
+package pl.bookmarket.service.crud;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.TradeDao;
+import pl.bookmarket.dto.PricePointDto;
+import pl.bookmarket.model.Trade;
+import pl.bookmarket.util.Cursor;
+import pl.bookmarket.util.CursorPage;
+import pl.bookmarket.validation.exception.EntityValidationException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional(readOnly = true)
+public class TradeServiceImpl implements TradeService {
+
+    /**
+     * Number of months of the price history returned when the range is not given.
+     */
+    static final int DEFAULT_HISTORY_MONTHS = 12;
+
+    private final TradeDao tradeDao;
+
+    public TradeServiceImpl(TradeDao tradeDao) {
+        this.tradeDao = tradeDao;
+    }
+
+    @Override
+    public CursorPage<Trade> getBookHistory(Long bookId, String cursor, int size) {
+        // the ledger outlives the books, so the history of a deleted book is still available
+        Cursor decodedCursor = Cursor.decode(cursor, 1);
+        int pageSize = CursorPage.normalizeSize(size);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Trade> trades = decodedCursor == null
+                ? tradeDao.findTradesByBookIdOrderByIdDesc(bookId, limit)
+                : tradeDao.findTradesByBookIdAndIdLessThanOrderByIdDesc(bookId, decodedCursor.getLong(0), limit);
+        return CursorPage.of(trades, pageSize, trade -> Cursor.encode(trade.getId()));
+    }
+
+    @Override
+    public List<PricePointDto> getPriceHistory(String title, YearMonth from, YearMonth to) {
+        if (to == null) {
+            to = YearMonth.now(ZoneOffset.UTC);
+        }
+        if (from == null) {
+            from = to.minusMonths(DEFAULT_HISTORY_MONTHS - 1);
+        }
+        if (from.isAfter(to)) {
+            throw new EntityValidationException("from", "history.range.invalid");
+        }
+
+        return tradeDao.getPriceHistory(title, toTradeMonth(from), toTradeMonth(to))
+                       .stream()
+                       .map(point -> new PricePointDto(YearMonth.of(point.getTradeMonth() / 100, point.getTradeMonth() % 100),
+                                                       point.getTrades(), point.getMinPrice(), point.getMaxPrice(),
+                                                       BigDecimal.valueOf(point.getAveragePrice())
+                                                                 .setScale(2, RoundingMode.HALF_UP)))
+                       .collect(Collectors.toList());
+    }
+
+    private int toTradeMonth(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+}
@@ -2,6 +2,7 @@ package pl.bookmarket.service.crud;
 
 import pl.bookmarket.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,8 +13,12 @@ public interface UserService {
 
     Optional<User> getUserById(Long id);
 
+    List<User> getUsersByIds(Collection<Long> ids);
+
     List<User> getAllUsers();
 
+    long getUserCount();
+
     User createUser(User user);
 
     User updateUser(User user);
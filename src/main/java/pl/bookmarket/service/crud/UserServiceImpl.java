@@ -1,20 +1,32 @@
 package pl.bookmarket.service.crud;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.MessageArchiveSegmentDao;
+import pl.bookmarket.dao.OfferDao;
 import pl.bookmarket.dao.RoleDao;
+import pl.bookmarket.dao.SavedSearchDao;
 import pl.bookmarket.dao.UserDao;
 import pl.bookmarket.model.Role;
+import pl.bookmarket.model.SavedSearch;
 import pl.bookmarket.model.User;
 import pl.bookmarket.service.email.MailService;
 import pl.bookmarket.service.email.template.AccountCreatedMail;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.OfferChangedEvent;
+import pl.bookmarket.service.event.SavedSearchChangedEvent;
+import pl.bookmarket.service.message.ConversationTracker;
 import pl.bookmarket.util.PasswordGenerator;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 import pl.bookmarket.validation.exception.EntityValidationException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -26,9 +38,24 @@ public class UserServiceImpl implements UserService {
     private final RoleDao roleDao;
     private final MailService mailService;
     private final PasswordEncoder passwordEncoder;
-
-    public UserServiceImpl(UserDao userDao, RoleDao roleDao, MailService mailService, PasswordEncoder passwordEncoder) {
+    private final ConversationTracker conversationTracker;
+    private final MessageArchiveSegmentDao messageArchiveSegmentDao;
+    private final SavedSearchDao savedSearchDao;
+    private final BookDao bookDao;
+    private final OfferDao offerDao;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserServiceImpl(UserDao userDao, RoleDao roleDao, MailService mailService, PasswordEncoder passwordEncoder,
+                           ConversationTracker conversationTracker, MessageArchiveSegmentDao messageArchiveSegmentDao,
+                           SavedSearchDao savedSearchDao, BookDao bookDao, OfferDao offerDao,
+                           ApplicationEventPublisher eventPublisher) {
         this.userDao = userDao;
+        this.bookDao = bookDao;
+        this.offerDao = offerDao;
+        this.conversationTracker = conversationTracker;
+        this.messageArchiveSegmentDao = messageArchiveSegmentDao;
+        this.savedSearchDao = savedSearchDao;
+        this.eventPublisher = eventPublisher;
         this.roleDao = roleDao;
         this.mailService = mailService;
         this.passwordEncoder = passwordEncoder;
@@ -49,6 +76,14 @@ public class UserServiceImpl implements UserService {
         return userDao.findById(id);
     }
 
+    @Override
+    public List<User> getUsersByIds(Collection<Long> ids) {
+        List<User> userList = new ArrayList<>();
+        userDao.findAllById(ids).forEach(userList::add);
+
+        return userList;
+    }
+
     @Override
     @PreAuthorize("hasRole('ADMIN')")
     public List<User> getAllUsers() {
@@ -58,6 +93,11 @@ public class UserServiceImpl implements UserService {
         return userList;
     }
 
+    @Override
+    public long getUserCount() {
+        return userDao.count();
+    }
+
     @Override
     @Transactional
     public User createUser(User user) {
@@ -93,6 +133,18 @@ public class UserServiceImpl implements UserService {
         if (!userDao.existsById(id)) {
             throw new EntityNotFoundException(User.class);
         }
+        conversationTracker.onUserDeleted(id);
+        // copies of the archived messages kept in the segments of the other users stay there
+        messageArchiveSegmentDao.deleteSegmentsOfUser(id);
+        List<SavedSearch> savedSearches = savedSearchDao.findSavedSearchesByOwnerIdOrderById(id);
+        savedSearchDao.deleteSavedSearchesByOwnerId(id);
+        savedSearches.forEach(savedSearch -> eventPublisher.publishEvent(
+                new SavedSearchChangedEvent(SavedSearchChangedEvent.Type.DELETED, savedSearch)));
+        // books and offers go with the user through the cascade, the read models learn about them from the events
+        bookDao.getBooksByOwnerId(id).forEach(book -> eventPublisher.publishEvent(
+                new BookChangedEvent(new BookSnapshot(book), null)));
+        offerDao.getOffersByBuyerId(id).forEach(offer -> eventPublisher.publishEvent(
+                new OfferChangedEvent(OfferChangedEvent.Type.DELETED, offer)));
         userDao.deleteById(id);
     }
 
@@ -0,0 +1,38 @@
+package pl.bookmarket.service.event;
+
+/**
+ * Published when a book is created, updated, deleted or changes its owner. Listeners which maintain in-memory
+ * read models should consume it after the transaction commits.
+ */
+public class BookChangedEvent {
+
+    private final BookSnapshot previous;
+    private final BookSnapshot current;
+
+    public BookChangedEvent(BookSnapshot previous, BookSnapshot current) {
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * @return state of the book before the change or <i>null</i> if the book has been created
+     */
+    public BookSnapshot getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return state of the book after the change or <i>null</i> if the book has been deleted
+     */
+    public BookSnapshot getCurrent() {
+        return current;
+    }
+
+    public boolean wasForSale() {
+        return previous != null && previous.isForSale();
+    }
+
+    public boolean isForSale() {
+        return current != null && current.isForSale();
+    }
+}
@@ -0,0 +1,95 @@
+package pl.bookmarket.service.event;
+
+import pl.bookmarket.model.Book;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Immutable copy of the book state, safe to be used after the persistence context the book was loaded in is closed.
+ */
+public class BookSnapshot {
+
+    private final Long id;
+    private final String title;
+    private final String author;
+    private final String publisher;
+    private final Long genreId;
+    private final Long ownerId;
+    private final Integer releaseYear;
+    private final boolean forSale;
+    private final BigDecimal price;
+    private final OffsetDateTime auctionEndsOn;
+    private final BigDecimal reservePrice;
+    private final OffsetDateTime listedOn;
+
+    public BookSnapshot(Book book) {
+        this.id = book.getId();
+        this.title = book.getTitle();
+        this.author = book.getAuthor();
+        this.publisher = book.getPublisher();
+        this.genreId = book.getGenre().getId();
+        this.ownerId = book.getOwner().getId();
+        this.releaseYear = book.getReleaseYear();
+        this.forSale = book.isForSale();
+        this.price = book.getPrice();
+        this.auctionEndsOn = book.getAuctionEndsOn();
+        this.reservePrice = book.getReservePrice();
+        this.listedOn = book.getListedOn();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public Long getGenreId() {
+        return genreId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Integer getReleaseYear() {
+        return releaseYear;
+    }
+
+    public boolean isForSale() {
+        return forSale;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public OffsetDateTime getAuctionEndsOn() {
+        return auctionEndsOn;
+    }
+
+    public BigDecimal getReservePrice() {
+        return reservePrice;
+    }
+
+    /**
+     * @return time when the book was marked for sale or <i>null</i> if it's not for sale
+     */
+    public OffsetDateTime getListedOn() {
+        return listedOn;
+    }
+
+    public boolean isAuction() {
+        return forSale && auctionEndsOn != null;
+    }
+}
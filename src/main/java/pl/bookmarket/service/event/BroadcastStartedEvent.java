@@ -0,0 +1,17 @@
+package pl.bookmarket.service.event;
+
+/**
+ * Published when a broadcast is started or resumed, its messages are sent after the change is committed.
+ */
+public class BroadcastStartedEvent {
+
+    private final Long broadcastId;
+
+    public BroadcastStartedEvent(Long broadcastId) {
+        this.broadcastId = broadcastId;
+    }
+
+    public Long getBroadcastId() {
+        return broadcastId;
+    }
+}
@@ -0,0 +1,64 @@
+package pl.bookmarket.service.event;
+
+import pl.bookmarket.model.Offer;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Published when a single offer is created or deleted. Offers removed together with their book, or when the book
+ * is sold or withdrawn from sale, are covered by the {@link BookChangedEvent}.
+ */
+public class OfferChangedEvent {
+
+    private final Type type;
+    private final Long offerId;
+    private final Long bookId;
+    private final Long buyerId;
+    private final BigDecimal amount;
+    private final OffsetDateTime expiresOn;
+
+    public OfferChangedEvent(Type type, Long offerId, Long bookId, Long buyerId, BigDecimal amount,
+                             OffsetDateTime expiresOn) {
+        this.type = type;
+        this.offerId = offerId;
+        this.bookId = bookId;
+        this.buyerId = buyerId;
+        this.amount = amount;
+        this.expiresOn = expiresOn;
+    }
+
+    public OfferChangedEvent(Type type, Offer offer) {
+        this(type, offer.getId(), offer.getBook().getId(), offer.getBuyer().getId(), offer.getAmount(),
+             offer.getExpiresOn());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getOfferId() {
+        return offerId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public Long getBuyerId() {
+        return buyerId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public OffsetDateTime getExpiresOn() {
+        return expiresOn;
+    }
+
+    public enum Type {
+        CREATED,
+        DELETED
+    }
+}
@@ -0,0 +1,62 @@
+package pl.bookmarket.service.event;
+
+import pl.bookmarket.model.SavedSearch;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when a saved search is created or deleted.
+ */
+public class SavedSearchChangedEvent {
+
+    private final Type type;
+    private final Long savedSearchId;
+    private final Long ownerId;
+    private final Long genreId;
+    private final String author;
+    private final BigDecimal maxPrice;
+    private final String keywords;
+
+    public SavedSearchChangedEvent(Type type, SavedSearch savedSearch) {
+        this.type = type;
+        this.savedSearchId = savedSearch.getId();
+        this.ownerId = savedSearch.getOwner().getId();
+        this.genreId = savedSearch.getGenre() == null ? null : savedSearch.getGenre().getId();
+        this.author = savedSearch.getAuthor();
+        this.maxPrice = savedSearch.getMaxPrice();
+        this.keywords = savedSearch.getKeywords();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getSavedSearchId() {
+        return savedSearchId;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Long getGenreId() {
+        return genreId;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public BigDecimal getMaxPrice() {
+        return maxPrice;
+    }
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public enum Type {
+        CREATED,
+        DELETED
+    }
+}
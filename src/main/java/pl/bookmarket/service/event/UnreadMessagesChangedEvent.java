@@ -0,0 +1,24 @@
+package pl.bookmarket.service.event;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Published when messages are created, read, unread or deleted, with the change of the number of unread messages
+ * of each affected receiver.
+ */
+public class UnreadMessagesChangedEvent {
+
+    private final Map<Long, Integer> deltas;
+
+    public UnreadMessagesChangedEvent(Map<Long, Integer> deltas) {
+        this.deltas = Collections.unmodifiableMap(deltas);
+    }
+
+    /**
+     * @return change of the number of unread messages by id of the receiver
+     */
+    public Map<Long, Integer> getDeltas() {
+        return deltas;
+    }
+}
@@ -0,0 +1,39 @@
+package pl.bookmarket.service.market;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.bookmarket.service.crud.MarketService;
+import pl.bookmarket.util.AuthUtils;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Periodically closes auctions which have ended. Each auction is closed in its own transaction, so a failure of one
+ * of them doesn't prevent closing the others.
+ */
+@Component
+public class AuctionCloser {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AuctionCloser.class);
+
+    private final AuctionOrderBook auctionOrderBook;
+    private final MarketService marketService;
+
+    public AuctionCloser(AuctionOrderBook auctionOrderBook, MarketService marketService) {
+        this.auctionOrderBook = auctionOrderBook;
+        this.marketService = marketService;
+    }
+
+    @Scheduled(fixedDelayString = "${bm.auction.close-interval}", initialDelayString = "${bm.auction.close-interval}")
+    public synchronized void closeEndedAuctions() {
+        for (Long bookId : auctionOrderBook.findEndedAuctions(OffsetDateTime.now())) {
+            try {
+                AuthUtils.runAsSystem(() -> marketService.closeAuction(bookId));
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to close the auction of the book with id {}.", bookId, e);
+            }
+        }
+    }
+}
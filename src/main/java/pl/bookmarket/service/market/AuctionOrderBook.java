@@ -0,0 +1,297 @@
+package pl.bookmarket.service.market;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.dao.projection.AuctionListing;
+import pl.bookmarket.dao.projection.BidListing;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.OfferChangedEvent;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Order book of the books sold in the auction mode. Bids are persisted as offers with an amount, this component
+ * keeps their ladder per auction in memory, so the highest bid is available without querying the database. The
+ * order book is loaded on application startup and updated after each committed change of a book or an offer.
+ */
+@Component
+public class AuctionOrderBook {
+
+    /**
+     * Maximum number of the bids returned in the ladder of the auction.
+     */
+    static final int LADDER_DEPTH = 10;
+
+    private static final Comparator<Bid> LADDER_ORDER = Comparator.comparing(Bid::getAmount).reversed()
+                                                                  .thenComparing(Bid::getOfferId);
+    private static final Comparator<Ladder> CLOSING_ORDER = Comparator.comparing((Ladder ladder) -> ladder.endsOn.toInstant())
+                                                                      .thenComparing(ladder -> ladder.bookId);
+
+    private final BookDao bookDao;
+    private final OfferDao offerDao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Ladder> ladders = new HashMap<>();
+    private NavigableSet<Ladder> closingQueue = new TreeSet<>(CLOSING_ORDER);
+
+    public AuctionOrderBook(BookDao bookDao, OfferDao offerDao) {
+        this.bookDao = bookDao;
+        this.offerDao = offerDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<AuctionListing> auctions = bookDao.getAuctionListings();
+        List<BidListing> bids = offerDao.getBidListings();
+
+        lock.writeLock().lock();
+        try {
+            ladders = new HashMap<>();
+            closingQueue = new TreeSet<>(CLOSING_ORDER);
+            for (AuctionListing auction : auctions) {
+                open(new Ladder(auction.getId(), auction.getAuctionEndsOn(), auction.getPrice(), auction.getReservePrice()));
+            }
+            for (BidListing bid : bids) {
+                Ladder ladder = ladders.get(bid.getBookId());
+                if (ladder != null) {
+                    ladder.add(new Bid(bid.getId(), bid.getBuyerId(), bid.getAmount()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the current state of the auction together with the top of its bid ladder.
+     *
+     * @param bookId id of the auctioned book
+     * @return state of the auction or empty {@link Optional} if the book is not auctioned
+     */
+    public Optional<Auction> getAuction(Long bookId) {
+        lock.readLock().lock();
+        try {
+            Ladder ladder = ladders.get(bookId);
+            return ladder == null ? Optional.empty() : Optional.of(ladder.toAuction());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds auctions which should be closed.
+     *
+     * @param now current time
+     * @return ids of the auctioned books whose auctions ended at or before the given time, the earliest first
+     */
+    public List<Long> findEndedAuctions(OffsetDateTime now) {
+        lock.readLock().lock();
+        try {
+            List<Long> ended = new ArrayList<>();
+            for (Ladder ladder : closingQueue) {
+                if (ladder.endsOn.isAfter(now)) {
+                    break;
+                }
+                ended.add(ladder.bookId);
+            }
+            return ended;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        BookSnapshot current = event.getCurrent();
+        Long bookId = current != null ? current.getId() : event.getPrevious().getId();
+
+        lock.writeLock().lock();
+        try {
+            Ladder previous = close(bookId);
+            if (current == null || !current.isAuction()) {
+                return;
+            }
+            Ladder ladder = new Ladder(bookId, current.getAuctionEndsOn(), current.getPrice(), current.getReservePrice());
+            // bids survive changes of the auction terms, they are removed together with their offers
+            if (previous != null) {
+                previous.bids.values().forEach(ladder::add);
+            }
+            open(ladder);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOfferChanged(OfferChangedEvent event) {
+        if (event.getAmount() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Ladder ladder = ladders.get(event.getBookId());
+            if (ladder == null) {
+                return;
+            }
+            if (event.getType() == OfferChangedEvent.Type.CREATED) {
+                ladder.add(new Bid(event.getOfferId(), event.getBuyerId(), event.getAmount()));
+            } else {
+                ladder.remove(event.getOfferId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void open(Ladder ladder) {
+        ladders.put(ladder.bookId, ladder);
+        closingQueue.add(ladder);
+    }
+
+    private Ladder close(Long bookId) {
+        Ladder ladder = ladders.remove(bookId);
+        if (ladder != null) {
+            closingQueue.remove(ladder);
+        }
+        return ladder;
+    }
+
+    private static class Ladder {
+        private final Long bookId;
+        private final OffsetDateTime endsOn;
+        private final BigDecimal startingPrice;
+        private final BigDecimal reservePrice;
+        private final Map<Long, Bid> bids = new HashMap<>();
+        private final NavigableSet<Bid> ladder = new TreeSet<>(LADDER_ORDER);
+        private Bid highest;
+
+        private Ladder(Long bookId, OffsetDateTime endsOn, BigDecimal startingPrice, BigDecimal reservePrice) {
+            this.bookId = bookId;
+            this.endsOn = endsOn;
+            this.startingPrice = startingPrice;
+            this.reservePrice = reservePrice;
+        }
+
+        private void add(Bid bid) {
+            Bid replaced = bids.put(bid.getOfferId(), bid);
+            if (replaced != null) {
+                ladder.remove(replaced);
+            }
+            ladder.add(bid);
+            highest = ladder.first();
+        }
+
+        private void remove(Long offerId) {
+            Bid removed = bids.remove(offerId);
+            if (removed != null) {
+                ladder.remove(removed);
+                highest = ladder.isEmpty() ? null : ladder.first();
+            }
+        }
+
+        private Auction toAuction() {
+            List<BigDecimal> top = ladder.stream().limit(LADDER_DEPTH).map(Bid::getAmount).collect(Collectors.toList());
+            return new Auction(bookId, endsOn, startingPrice, reservePrice, highest, bids.size(), top);
+        }
+    }
+
+    public static class Bid {
+        private final Long offerId;
+        private final Long buyerId;
+        private final BigDecimal amount;
+
+        public Bid(Long offerId, Long buyerId, BigDecimal amount) {
+            this.offerId = offerId;
+            this.buyerId = buyerId;
+            this.amount = amount;
+        }
+
+        public Long getOfferId() {
+            return offerId;
+        }
+
+        public Long getBuyerId() {
+            return buyerId;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+    }
+
+    public static class Auction {
+        private final Long bookId;
+        private final OffsetDateTime endsOn;
+        private final BigDecimal startingPrice;
+        private final BigDecimal reservePrice;
+        private final Bid highestBid;
+        private final int bidCount;
+        private final List<BigDecimal> ladder;
+
+        public Auction(Long bookId, OffsetDateTime endsOn, BigDecimal startingPrice, BigDecimal reservePrice,
+                       Bid highestBid, int bidCount, List<BigDecimal> ladder) {
+            this.bookId = bookId;
+            this.endsOn = endsOn;
+            this.startingPrice = startingPrice;
+            this.reservePrice = reservePrice;
+            this.highestBid = highestBid;
+            this.bidCount = bidCount;
+            this.ladder = Collections.unmodifiableList(ladder);
+        }
+
+        public Long getBookId() {
+            return bookId;
+        }
+
+        public OffsetDateTime getEndsOn() {
+            return endsOn;
+        }
+
+        public BigDecimal getStartingPrice() {
+            return startingPrice;
+        }
+
+        public BigDecimal getReservePrice() {
+            return reservePrice;
+        }
+
+        public Bid getHighestBid() {
+            return highestBid;
+        }
+
+        public int getBidCount() {
+            return bidCount;
+        }
+
+        public List<BigDecimal> getLadder() {
+            return ladder;
+        }
+
+        /**
+         * @return <i>true</i> if the highest bid is not lower than the reserve price, or there is no reserve price
+         * and at least one bid has been placed
+         */
+        public boolean isReserveMet() {
+            return highestBid != null && (reservePrice == null || highestBid.getAmount().compareTo(reservePrice) >= 0);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package pl.bookmarket.service.market;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import pl.bookmarket.service.crud.MarketService;
+import pl.bookmarket.util.AuthUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Advances the {@link OfferExpiryWheel} on each tick and removes the expired offers in batches, each one in its own
+ * transaction. Offers of a failed batch are still stored in the database, so they are picked up again after the
+ * wheel is rebuilt on the next startup.
+ */
+@Component
+public class OfferExpirer {
+
+    /**
+     * Maximum number of offers removed by a single delete statement.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private static final Logger LOG = LoggerFactory.getLogger(OfferExpirer.class);
+
+    private final OfferExpiryWheel offerExpiryWheel;
+    private final MarketService marketService;
+
+    public OfferExpirer(OfferExpiryWheel offerExpiryWheel, MarketService marketService) {
+        this.offerExpiryWheel = offerExpiryWheel;
+        this.marketService = marketService;
+    }
+
+    @Scheduled(fixedDelayString = "${bm.offer.expiry-tick}", initialDelayString = "${bm.offer.expiry-tick}")
+    public synchronized void expireOffers() {
+        List<Long> expired = offerExpiryWheel.advance(Instant.now());
+
+        for (int from = 0; from < expired.size(); from += BATCH_SIZE) {
+            List<Long> batch = expired.subList(from, Math.min(from + BATCH_SIZE, expired.size()));
+            try {
+                AuthUtils.runAsSystem(() -> marketService.expireOffers(batch));
+            } catch (RuntimeException e) {
+                LOG.warn("Failed to remove {} expired offers.", batch.size(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package pl.bookmarket.service.market;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.dao.projection.OfferExpiry;
+import pl.bookmarket.service.event.OfferChangedEvent;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hashed timing wheel of the offers with an expiry time. Each offer is put into the bucket of the tick in which it
+ * expires modulo the size of the wheel, so scheduling and cancelling take constant time and advancing the wheel
+ * visits only the buckets of the elapsed ticks, regardless of the number of pending offers. Offers which expire
+ * more than one revolution ahead stay in their bucket until the wheel reaches their tick.
+ */
+@Component
+public class OfferExpiryWheel {
+
+    /**
+     * Number of buckets of the wheel.
+     */
+    static final int WHEEL_SIZE = 512;
+
+    private final OfferDao offerDao;
+    private final long tickMillis;
+    private final Lock lock = new ReentrantLock();
+
+    private final List<Set<Long>> buckets = new ArrayList<>(WHEEL_SIZE);
+    private final Map<Long, Long> deadlines = new HashMap<>();
+
+    // the last tick whose bucket has been processed
+    private long currentTick;
+
+    public OfferExpiryWheel(OfferDao offerDao, @Value("${bm.offer.expiry-tick}") long tickMillis) {
+        this.offerDao = offerDao;
+        this.tickMillis = tickMillis;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets.add(new HashSet<>());
+        }
+        this.currentTick = toTick(Instant.now()) - 1;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<OfferExpiry> expiries = offerDao.getOfferExpiries();
+
+        lock.lock();
+        try {
+            buckets.forEach(Set::clear);
+            deadlines.clear();
+            currentTick = toTick(Instant.now()) - 1;
+            for (OfferExpiry expiry : expiries) {
+                add(expiry.getId(), expiry.getExpiresOn());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Schedules expiry of the offer. Offers which have already expired are returned by the next call of
+     * {@link #advance(Instant)}.
+     *
+     * @param offerId   id of the offer
+     * @param expiresOn expiry time of the offer
+     */
+    public void schedule(Long offerId, OffsetDateTime expiresOn) {
+        lock.lock();
+        try {
+            cancelScheduled(offerId);
+            add(offerId, expiresOn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel(Long offerId) {
+        lock.lock();
+        try {
+            cancelScheduled(offerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the wheel to the given time and removes the offers which expired in the meantime.
+     *
+     * @param now current time
+     * @return ids of the expired offers
+     */
+    public List<Long> advance(Instant now) {
+        long targetTick = toTick(now);
+        List<Long> expired = new ArrayList<>();
+
+        lock.lock();
+        try {
+            // a single revolution visits every bucket, so there's no need to repeat it after a long pause
+            long lastTick = Math.min(targetTick, currentTick + WHEEL_SIZE);
+            for (long tick = currentTick + 1; tick <= lastTick; tick++) {
+                Iterator<Long> iterator = buckets.get(bucketOf(tick)).iterator();
+                while (iterator.hasNext()) {
+                    Long offerId = iterator.next();
+                    if (deadlines.get(offerId) <= targetTick) {
+                        iterator.remove();
+                        deadlines.remove(offerId);
+                        expired.add(offerId);
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        } finally {
+            lock.unlock();
+        }
+        return expired;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return deadlines.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOfferChanged(OfferChangedEvent event) {
+        // offers deleted in bulk together with their book stay in the wheel until their expiry, removing them
+        // then is a no-op
+        if (event.getType() == OfferChangedEvent.Type.DELETED) {
+            cancel(event.getOfferId());
+        } else if (event.getExpiresOn() != null) {
+            schedule(event.getOfferId(), event.getExpiresOn());
+        }
+    }
+
+    private void add(Long offerId, OffsetDateTime expiresOn) {
+        long tick = Math.max(toDeadlineTick(expiresOn.toInstant()), currentTick + 1);
+        deadlines.put(offerId, tick);
+        buckets.get(bucketOf(tick)).add(offerId);
+    }
+
+    private void cancelScheduled(Long offerId) {
+        Long tick = deadlines.remove(offerId);
+        if (tick != null) {
+            buckets.get(bucketOf(tick)).remove(offerId);
+        }
+    }
+
+    private long toTick(Instant instant) {
+        return Math.floorDiv(instant.toEpochMilli(), tickMillis);
+    }
+
+    private long toDeadlineTick(Instant expiresOn) {
+        // an offer is due in the first tick which starts at or after its expiry time, so it never expires early
+        return Math.floorDiv(expiresOn.toEpochMilli() + tickMillis - 1, tickMillis);
+    }
+
+    private int bucketOf(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SIZE);
+    }
+}
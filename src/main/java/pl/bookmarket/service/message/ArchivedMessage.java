@@ -0,0 +1,65 @@
+package pl.bookmarket.service.message;
+
+import pl.bookmarket.model.Message;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Message read from the archive. Logins of the sender and the receiver are the ones they had when the message has
+ * been archived.
+ */
+public class ArchivedMessage {
+
+    private final Long id;
+    private final Long senderId;
+    private final String senderLogin;
+    private final Long receiverId;
+    private final String receiverLogin;
+    private final String text;
+    private final OffsetDateTime sendTime;
+
+    public ArchivedMessage(Long id, Long senderId, String senderLogin, Long receiverId, String receiverLogin,
+                           String text, OffsetDateTime sendTime) {
+        this.id = id;
+        this.senderId = senderId;
+        this.senderLogin = senderLogin;
+        this.receiverId = receiverId;
+        this.receiverLogin = receiverLogin;
+        this.text = text;
+        this.sendTime = sendTime;
+    }
+
+    public ArchivedMessage(Message message) {
+        this(message.getId(), message.getSender().getId(), message.getSender().getLogin(),
+             message.getReceiver().getId(), message.getReceiver().getLogin(), message.getText(),
+             message.getSendTime());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getSenderId() {
+        return senderId;
+    }
+
+    public String getSenderLogin() {
+        return senderLogin;
+    }
+
+    public Long getReceiverId() {
+        return receiverId;
+    }
+
+    public String getReceiverLogin() {
+        return receiverLogin;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public OffsetDateTime getSendTime() {
+        return sendTime;
+    }
+}
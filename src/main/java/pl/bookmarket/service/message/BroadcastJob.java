@@ -0,0 +1,103 @@
+package pl.bookmarket.service.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BroadcastDao;
+import pl.bookmarket.model.Broadcast;
+import pl.bookmarket.service.event.BroadcastStartedEvent;
+
+/**
+ * Sends the broadcasts in the background, chunk after chunk, so neither the list of users nor the transaction grows
+ * with the number of users. A failed chunk is retried a few times with an exponential backoff. Broadcasts which
+ * still fail, or are interrupted by a shutdown, are resumed on the next startup.
+ */
+@Component
+public class BroadcastJob {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BroadcastJob.class);
+
+    /**
+     * Maximum number of attempts to send a single chunk.
+     */
+    static final int MAX_ATTEMPTS = 5;
+
+    private static final long INITIAL_BACKOFF = 500L;
+    private static final long MAX_BACKOFF = 10000L;
+
+    private final BroadcastDao broadcastDao;
+    private final BroadcastSender broadcastSender;
+    private final int chunkSize;
+    private final long initialBackoff;
+
+    @Autowired
+    public BroadcastJob(BroadcastDao broadcastDao, BroadcastSender broadcastSender,
+                        @Value("${bm.broadcast.chunk-size}") int chunkSize) {
+        this(broadcastDao, broadcastSender, chunkSize, INITIAL_BACKOFF);
+    }
+
+    BroadcastJob(BroadcastDao broadcastDao, BroadcastSender broadcastSender, int chunkSize, long initialBackoff) {
+        this.broadcastDao = broadcastDao;
+        this.broadcastSender = broadcastSender;
+        this.chunkSize = chunkSize;
+        this.initialBackoff = initialBackoff;
+    }
+
+    @Async
+    @TransactionalEventListener
+    public void onBroadcastStarted(BroadcastStartedEvent event) {
+        run(event.getBroadcastId());
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeBroadcasts() {
+        broadcastDao.getBroadcastIds(Broadcast.Status.RUNNING).forEach(this::run);
+    }
+
+    /**
+     * Sends the remaining messages of the broadcast.
+     *
+     * @param broadcastId id of the broadcast
+     */
+    public void run(Long broadcastId) {
+        int failures = 0;
+        while (true) {
+            try {
+                if (!broadcastSender.sendNextChunk(broadcastId, chunkSize)) {
+                    return;
+                }
+                failures = 0;
+                LOG.debug("Broadcast with id {} has been sent to the next {} users.", broadcastId, chunkSize);
+            } catch (RuntimeException e) {
+                if (++failures == MAX_ATTEMPTS) {
+                    LOG.warn("Failed to send the broadcast with id {}, it's resumed on the next startup.", broadcastId,
+                             e);
+                    return;
+                }
+                long backoff = Math.min(initialBackoff << (failures - 1), MAX_BACKOFF);
+                LOG.debug("Failed to send a chunk of the broadcast with id {}, retrying in {} ms.", broadcastId,
+                          backoff, e);
+                if (!sleep(backoff)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package pl.bookmarket.service.message;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.BroadcastDao;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.model.Broadcast;
+import pl.bookmarket.model.Message;
+import pl.bookmarket.model.User;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Sends the messages of a broadcast to a single chunk of users at a time. The broadcast is locked for the duration
+ * of the chunk, so concurrent runs of the same broadcast wait for each other and continue where the previous chunk
+ * has ended.
+ */
+@Component
+public class BroadcastSender {
+
+    private final BroadcastDao broadcastDao;
+    private final MessageDao messageDao;
+    private final UserDao userDao;
+    private final ConversationTracker conversationTracker;
+
+    public BroadcastSender(BroadcastDao broadcastDao, MessageDao messageDao, UserDao userDao,
+                           ConversationTracker conversationTracker) {
+        this.broadcastDao = broadcastDao;
+        this.messageDao = messageDao;
+        this.userDao = userDao;
+        this.conversationTracker = conversationTracker;
+    }
+
+    /**
+     * Sends the messages of the broadcast to the next chunk of users.
+     *
+     * @param broadcastId id of the broadcast
+     * @param chunkSize   maximum number of messages sent in the chunk
+     * @return whether there are users left to be notified
+     */
+    @Transactional
+    public boolean sendNextChunk(Long broadcastId, int chunkSize) {
+        Optional<Broadcast> broadcastOptional = broadcastDao.lockBroadcast(broadcastId);
+        if (!broadcastOptional.isPresent() || broadcastOptional.get().getStatus() != Broadcast.Status.RUNNING) {
+            return false;
+        }
+
+        Broadcast broadcast = broadcastOptional.get();
+        Optional<User> sender = userDao.findById(broadcast.getSenderId());
+        if (!sender.isPresent()) {
+            broadcast.setStatus(Broadcast.Status.CANCELLED);
+            broadcast.setCompletedOn(OffsetDateTime.now());
+            return false;
+        }
+
+        List<User> receivers = userDao.getUsersAfter(broadcast.getLastUserId(), broadcast.getSenderId(),
+                                                     PageRequest.of(0, chunkSize));
+        if (!receivers.isEmpty()) {
+            List<Message> messages = receivers.stream().map(receiver -> new Message(sender.get(), receiver, broadcast.getText()))
+                                              .collect(Collectors.toList());
+            conversationTracker.onBroadcastSent(sender.get(), (List<Message>) messageDao.saveAll(messages));
+            broadcast.setLastUserId(receivers.get(receivers.size() - 1).getId());
+            broadcast.setSentCount(broadcast.getSentCount() + receivers.size());
+        }
+        if (receivers.size() < chunkSize) {
+            broadcast.setStatus(Broadcast.Status.COMPLETED);
+            broadcast.setCompletedOn(OffsetDateTime.now());
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,261 @@
+package pl.bookmarket.service.message;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.ConversationDao;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.dao.projection.UnreadCount;
+import pl.bookmarket.model.Conversation;
+import pl.bookmarket.model.Message;
+import pl.bookmarket.model.User;
+import pl.bookmarket.service.event.UnreadMessagesChangedEvent;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the conversations in line with the messages. Every code path which creates, reads or deletes messages
+ * (including the deletion of their users) calls this component in its own transaction, so the conversations are
+ * never out of date. Changes are grouped by conversation, a batch of messages costs a single statement per affected
+ * conversation.
+ */
+@Component
+@Transactional(propagation = Propagation.MANDATORY)
+public class ConversationTracker {
+    private static final Comparator<Message> SEND_ORDER = Comparator.comparing((Message message) -> message.getSendTime().toInstant())
+                                                                    .thenComparing(Message::getId);
+
+    private final ConversationDao conversationDao;
+    private final MessageDao messageDao;
+    private final UserDao userDao;
+    private final MessageArchive messageArchive;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ConversationTracker(ConversationDao conversationDao, MessageDao messageDao, UserDao userDao,
+                               MessageArchive messageArchive, ApplicationEventPublisher eventPublisher) {
+        this.conversationDao = conversationDao;
+        this.messageDao = messageDao;
+        this.userDao = userDao;
+        this.messageArchive = messageArchive;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Records new messages in the conversations of their senders and receivers.
+     *
+     * @param messages persisted messages
+     */
+    public void onMessagesCreated(Collection<Message> messages) {
+        Map<List<Long>, Change> changes = new LinkedHashMap<>();
+        for (Message message : messages) {
+            // a message sent by the user to themselves ends up in a single conversation, unread
+            change(changes, message.getSender(), message.getReceiver()).add(message, 0);
+            change(changes, message.getReceiver(), message.getSender()).add(message, 1);
+        }
+
+        // conversations are always updated in the same order, so concurrent transactions don't deadlock on their rows
+        List<Change> sorted = new ArrayList<>(changes.values());
+        sorted.sort(Comparator.comparing((Change change) -> change.owner.getId()).thenComparing(change -> change.peer.getId()));
+        for (Change change : sorted) {
+            if (update(change)) {
+                continue;
+            }
+            // first messages of a pair of users sent concurrently are serialized on the row of the owner of the new
+            // conversation, the waiting transaction finds the conversation created in the meantime
+            userDao.lockUsers(Collections.singleton(change.owner.getId()));
+            if (!update(change)) {
+                conversationDao.save(new Conversation(change.owner, change.peer, change.last, change.unread));
+            }
+        }
+        publishUnreadChanges(changes.values());
+    }
+
+    /**
+     * Records a chunk of a broadcast, a message of the same text from the sender to each of the receivers. The
+     * conversations are maintained set-based, the chunk costs the same number of statements regardless of its size.
+     *
+     * @param sender   sender of the broadcast
+     * @param messages persisted messages of the chunk, each one to a different receiver
+     */
+    public void onBroadcastSent(User sender, List<Message> messages) {
+        List<Long> receiverIds = messages.stream().map(message -> message.getReceiver().getId())
+                                         .collect(Collectors.toList());
+        List<Long> messageIds = messages.stream().map(Message::getId).collect(Collectors.toList());
+        String text = messages.get(0).getText();
+
+        // first messages of a pair of users are serialized on the rows of the owners, the same as in the one by one
+        // tracking, so conversations created concurrently are found by the updates instead of being inserted twice
+        List<Long> userIds = new ArrayList<>(receiverIds);
+        userIds.add(sender.getId());
+        userDao.lockUsers(userIds);
+        // existing conversations are updated first, so the inserted ones are not counted twice
+        conversationDao.updateLastSentMessages(sender.getId(), receiverIds, messageIds, text);
+        conversationDao.updateLastReceivedMessages(sender.getId(), receiverIds, messageIds, text);
+        conversationDao.insertSentConversations(messageIds);
+        conversationDao.insertReceivedConversations(messageIds);
+
+        Map<Long, Integer> deltas = new HashMap<>();
+        receiverIds.forEach(receiverId -> deltas.put(receiverId, 1));
+        eventPublisher.publishEvent(new UnreadMessagesChangedEvent(deltas));
+    }
+
+    /**
+     * Updates unread counters of the receivers of the messages whose read flag has been changed.
+     *
+     * @param messages messages whose read flag has been changed
+     * @param read     new value of the read flag
+     */
+    public void onReadChanged(Collection<Message> messages, boolean read) {
+        Map<List<Long>, Change> changes = new LinkedHashMap<>();
+        for (Message message : messages) {
+            change(changes, message.getReceiver(), message.getSender()).add(message, read ? -1 : 1);
+        }
+        changes.values().forEach(change -> conversationDao.addUnreadCount(change.owner.getId(), change.peer.getId(),
+                                                                          change.unread));
+        publishUnreadChanges(changes.values());
+    }
+
+    /**
+     * Updates unread counters of the conversations of the user who has read their messages in bulk.
+     *
+     * @param receiverId id of the user who has read the messages
+     * @param bySender   numbers of the unread messages selected for the update, by id of the sender
+     * @param updated    number of messages actually updated
+     */
+    public void onMessagesRead(Long receiverId, List<UnreadCount> bySender, int updated) {
+        if (updated == 0) {
+            return;
+        }
+        long expected = bySender.stream().mapToLong(UnreadCount::getCount).sum();
+        if (expected == updated) {
+            // a single statement recounts all the conversations with the senders of the read messages
+            conversationDao.recountUnread(receiverId, bySender.stream().map(UnreadCount::getUserId)
+                                                              .collect(Collectors.toList()));
+        } else {
+            // some of the messages have been read by a concurrent transaction between the select and the update,
+            // which has already committed, as the update waited for its row locks
+            conversationDao.recountUnread(receiverId);
+        }
+        eventPublisher.publishEvent(new UnreadMessagesChangedEvent(Collections.singletonMap(receiverId, -updated)));
+    }
+
+    public void onMessageUpdated(Message message) {
+        conversationDao.updateLastMessageText(message.getSender().getId(), message.getReceiver().getId(),
+                                              message.getText(), message.getId());
+    }
+
+    /**
+     * Removes the deleted message from the conversations. If it was the last message of the conversation,
+     * the previous one takes its place, taken from the archive when there's none left in the message table.
+     * Conversations without any messages are deleted.
+     *
+     * @param message deleted message
+     */
+    public void onMessageDeleted(Message message) {
+        Long senderId = message.getSender().getId();
+        Long receiverId = message.getReceiver().getId();
+        if (!message.isRead()) {
+            conversationDao.addUnreadCount(receiverId, senderId, -1);
+            eventPublisher.publishEvent(new UnreadMessagesChangedEvent(Collections.singletonMap(receiverId, -1)));
+        }
+        if (!conversationDao.existsByOwnerIdAndPeerIdAndLastMessageId(senderId, receiverId, message.getId())) {
+            return;
+        }
+
+        List<Message> previous = messageDao.getMessagesBetween(senderId, receiverId, PageRequest.of(0, 1));
+        if (!previous.isEmpty()) {
+            Message last = previous.get(0);
+            updateLastMessage(senderId, receiverId, last.getId(), last.getText(), last.getSender().getId(),
+                              last.getSendTime());
+            return;
+        }
+        ArchivedMessage archived = messageArchive.getLastMessageBetween(senderId, receiverId);
+        if (archived == null) {
+            conversationDao.deleteConversationsOfPair(senderId, receiverId);
+            return;
+        }
+        updateLastMessage(senderId, receiverId, archived.getId(), archived.getText(), archived.getSenderId(),
+                          archived.getSendTime());
+    }
+
+    /**
+     * Removes the conversations of the user who is about to be deleted together with their messages.
+     *
+     * @param userId id of the deleted user
+     */
+    public void onUserDeleted(Long userId) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        messageDao.getUnreadCountsOfUser(userId)
+                  .forEach(count -> deltas.put(count.getUserId(), -count.getCount().intValue()));
+        // conversations have no cascade from the user, they are removed in bulk together with the peers' ones
+        conversationDao.deleteConversationsOfUser(userId);
+        if (!deltas.isEmpty()) {
+            eventPublisher.publishEvent(new UnreadMessagesChangedEvent(deltas));
+        }
+    }
+
+    private void updateLastMessage(Long senderId, Long receiverId, Long lastId, String lastText, Long lastSenderId,
+                                   OffsetDateTime lastSendTime) {
+        conversationDao.updateLastMessage(senderId, receiverId, lastId, lastText, senderId.equals(lastSenderId),
+                                          lastSendTime, 0);
+        if (!senderId.equals(receiverId)) {
+            conversationDao.updateLastMessage(receiverId, senderId, lastId, lastText, receiverId.equals(lastSenderId),
+                                              lastSendTime, 0);
+        }
+    }
+
+    private boolean update(Change change) {
+        Message last = change.last;
+        return conversationDao.updateLastMessage(change.owner.getId(), change.peer.getId(), last.getId(), last.getText(),
+                                                 isSentBy(last, change.owner), last.getSendTime(), change.unread) > 0;
+    }
+
+    private void publishUnreadChanges(Collection<Change> changes) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        changes.stream().filter(change -> change.unread != 0)
+               .forEach(change -> deltas.merge(change.owner.getId(), change.unread, Integer::sum));
+        if (!deltas.isEmpty()) {
+            eventPublisher.publishEvent(new UnreadMessagesChangedEvent(deltas));
+        }
+    }
+
+    private static Change change(Map<List<Long>, Change> changes, User owner, User peer) {
+        return changes.computeIfAbsent(Arrays.asList(owner.getId(), peer.getId()), key -> new Change(owner, peer));
+    }
+
+    private static boolean isSentBy(Message message, User user) {
+        return message.getSender().getId().equals(user.getId());
+    }
+
+    private static class Change {
+        private final User owner;
+        private final User peer;
+        private Message last;
+        private int unread;
+
+        private Change(User owner, User peer) {
+            this.owner = owner;
+            this.peer = peer;
+        }
+
+        private void add(Message message, int unreadDelta) {
+            if (last == null || SEND_ORDER.compare(message, last) > 0) {
+                last = message;
+            }
+            unread += unreadDelta;
+        }
+    }
+}
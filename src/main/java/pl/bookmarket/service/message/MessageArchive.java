@@ -0,0 +1,189 @@
+package pl.bookmarket.service.message;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.MessageArchiveSegmentDao;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.model.Message;
+import pl.bookmarket.model.MessageArchiveSegment;
+import pl.bookmarket.util.Cursor;
+import pl.bookmarket.util.CursorPage;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Archive tier of the messages. Read messages older than the retention period are moved from the message table
+ * into compressed segments, one per user and month, and read back a page at a time.
+ */
+@Component
+public class MessageArchive {
+    private static final Comparator<ArchivedMessage> NEWEST_FIRST =
+            Comparator.comparingLong((ArchivedMessage message) -> message.getSendTime().toInstant().toEpochMilli())
+                      .reversed()
+                      .thenComparing(ArchivedMessage::getId, Comparator.reverseOrder());
+
+    /**
+     * Number of segments fetched by a single query when reading a page of the archive.
+     */
+    private static final int SEGMENT_FETCH_SIZE = 10;
+
+    private final MessageArchiveSegmentDao segmentDao;
+    private final MessageDao messageDao;
+
+    public MessageArchive(MessageArchiveSegmentDao segmentDao, MessageDao messageDao) {
+        this.segmentDao = segmentDao;
+        this.messageDao = messageDao;
+    }
+
+    /**
+     * Moves the oldest read messages sent before the given time into the archive. The messages are added to the
+     * existing segments of their users and months, so each month of a user stays in a single segment. Only the
+     * segments which already contain newer messages are decompressed and rewritten.
+     *
+     * @param sentBefore messages sent before this time are archived
+     * @param limit      maximum number of archived messages
+     * @return number of archived messages
+     */
+    @Transactional
+    public int archive(OffsetDateTime sentBefore, int limit) {
+        List<Message> messages = messageDao.getMessagesToArchive(sentBefore, PageRequest.of(0, limit));
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        Map<List<Long>, List<ArchivedMessage>> segments = new LinkedHashMap<>();
+        for (Message message : messages) {
+            ArchivedMessage archived = new ArchivedMessage(message);
+            long month = MessageArchiveSegment.toArchiveMonth(message.getSendTime());
+            segment(segments, message.getSender().getId(), month).add(archived);
+            if (!message.getSender().getId().equals(message.getReceiver().getId())) {
+                segment(segments, message.getReceiver().getId(), month).add(archived);
+            }
+        }
+
+        // concurrent runs merging into the same segments wait for each other, the unique constraint rejects
+        // the second of two concurrently created segments of a month
+        Set<Long> userIds = segments.keySet().stream().map(key -> key.get(0)).collect(Collectors.toSet());
+        Set<Integer> months = segments.keySet().stream().map(key -> key.get(1).intValue()).collect(Collectors.toSet());
+        Map<List<Long>, MessageArchiveSegment> existing = new HashMap<>();
+        segmentDao.lockSegments(userIds, months).forEach(segment -> existing.put(
+                Arrays.asList(segment.getUserId(), segment.getArchiveMonth().longValue()), segment));
+
+        List<MessageArchiveSegment> changed = new ArrayList<>();
+        segments.forEach((key, archived) -> {
+            MessageArchiveSegment segment = existing.get(key);
+            archived.sort(NEWEST_FIRST);
+            if (segment == null) {
+                changed.add(new MessageArchiveSegment(key.get(0), key.get(1).intValue(), archived.size(),
+                                                      MessageArchiveCodec.encode(archived)));
+                return;
+            }
+            int messageCount = segment.getMessageCount() + archived.size();
+            ArchivedMessage newest = MessageArchiveCodec.decodeFirst(segment.getData());
+            if (newest == null || NEWEST_FIRST.compare(archived.get(archived.size() - 1), newest) < 0) {
+                // messages are archived in the order of their ids, so they are usually newer than the whole segment,
+                // which then stays compressed and only gets a new block in front
+                segment.setData(MessageArchiveCodec.prepend(archived, segment.getData()));
+            } else {
+                archived.addAll(MessageArchiveCodec.decode(segment.getData()));
+                archived.sort(NEWEST_FIRST);
+                segment.setData(MessageArchiveCodec.encode(archived));
+            }
+            segment.setMessageCount(messageCount);
+            changed.add(segment);
+        });
+        segmentDao.saveAll(changed);
+        // only read messages are archived, so the unread counters don't change, and the conversations keep the copy
+        // of their last message
+        messageDao.deleteMessagesByIds(messages.stream().map(Message::getId).collect(Collectors.toList()));
+        return messages.size();
+    }
+
+    /**
+     * Reads a page of the archived messages of the user, newest first.
+     *
+     * @param userId id of the user
+     * @param cursor position of the last message of the previous page or <i>null</i> for the first page
+     * @param size   page size
+     * @return page of the archived messages
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ArchivedMessage> getMessages(Long userId, Cursor cursor, int size) {
+        int month = cursor == null ? Integer.MAX_VALUE : cursor.getLong(0).intValue();
+        // the cursor points at the message itself rather than at its position in the segment, which changes when
+        // later archiving runs merge older messages into the segment
+        long sendTime = cursor == null ? Long.MAX_VALUE : cursor.getLong(1);
+        long id = cursor == null ? Long.MAX_VALUE : cursor.getLong(2);
+
+        List<ArchivedMessage> fetched = new ArrayList<>();
+        List<MessageArchiveSegment> segments;
+        do {
+            segments = segmentDao.getSegmentsFrom(userId, month, PageRequest.of(0, SEGMENT_FETCH_SIZE));
+            // one message more than the page size tells whether there is a next page, the remaining segments
+            // aren't decoded once it has been found
+            fetch:
+            for (MessageArchiveSegment segment : segments) {
+                for (ArchivedMessage message : MessageArchiveCodec.decode(segment.getData())) {
+                    long messageSendTime = message.getSendTime().toInstant().toEpochMilli();
+                    if (messageSendTime < sendTime || (messageSendTime == sendTime && message.getId() < id)) {
+                        fetched.add(message);
+                        if (fetched.size() > size) {
+                            break fetch;
+                        }
+                    }
+                }
+            }
+            if (!segments.isEmpty()) {
+                month = segments.get(segments.size() - 1).getArchiveMonth() - 1;
+            }
+        } while (fetched.size() <= size && segments.size() == SEGMENT_FETCH_SIZE);
+
+        return CursorPage.of(fetched, size, message -> Cursor.encode(
+                MessageArchiveSegment.toArchiveMonth(message.getSendTime()),
+                message.getSendTime().toInstant().toEpochMilli(), message.getId()));
+    }
+
+    /**
+     * Finds the newest archived message exchanged by the pair of users. Segments of the first user are scanned
+     * newest months first, until a message of the pair is found.
+     *
+     * @param userId id of the first user
+     * @param peerId id of the second user
+     * @return the newest archived message of the pair or <i>null</i> if none of their messages has been archived
+     */
+    public ArchivedMessage getLastMessageBetween(Long userId, Long peerId) {
+        int month = Integer.MAX_VALUE;
+        List<MessageArchiveSegment> segments;
+        do {
+            segments = segmentDao.getSegmentsFrom(userId, month, PageRequest.of(0, SEGMENT_FETCH_SIZE));
+            for (MessageArchiveSegment segment : segments) {
+                for (ArchivedMessage message : MessageArchiveCodec.decode(segment.getData())) {
+                    boolean sent = message.getSenderId().equals(userId) && message.getReceiverId().equals(peerId);
+                    boolean received = message.getSenderId().equals(peerId) && message.getReceiverId().equals(userId);
+                    if (sent || received) {
+                        return message;
+                    }
+                }
+            }
+            if (!segments.isEmpty()) {
+                month = segments.get(segments.size() - 1).getArchiveMonth() - 1;
+            }
+        } while (segments.size() == SEGMENT_FETCH_SIZE);
+        return null;
+    }
+
+    private static List<ArchivedMessage> segment(Map<List<Long>, List<ArchivedMessage>> segments, Long userId,
+                                                 long month) {
+        return segments.computeIfAbsent(Arrays.asList(userId, month), key -> new ArrayList<>());
+    }
+}
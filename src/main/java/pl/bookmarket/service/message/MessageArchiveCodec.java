@@ -0,0 +1,112 @@
+package pl.bookmarket.service.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary format of the archive segments. Messages are written one after another as fixed sequences of primitive
+ * fields, preceded by their number, and the whole block is gzip compressed. A segment may consist of several such
+ * blocks, because gzip streams can be concatenated, so newer messages are put in front of a segment without
+ * decompressing it.
+ */
+final class MessageArchiveCodec {
+
+    private MessageArchiveCodec() {
+    }
+
+    static byte[] encode(List<ArchivedMessage> messages) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            output.writeInt(messages.size());
+            for (ArchivedMessage message : messages) {
+                output.writeLong(message.getId());
+                output.writeLong(message.getSenderId());
+                output.writeUTF(message.getSenderLogin());
+                output.writeLong(message.getReceiverId());
+                output.writeUTF(message.getReceiverLogin());
+                output.writeBoolean(message.getText() != null);
+                if (message.getText() != null) {
+                    output.writeUTF(message.getText());
+                }
+                output.writeLong(message.getSendTime().toInstant().toEpochMilli());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Puts the block of the given messages in front of the encoded segment. The messages have to be newer than all
+     * messages of the segment, so the segment stays sorted newest first.
+     */
+    static byte[] prepend(List<ArchivedMessage> messages, byte[] data) {
+        byte[] block = encode(messages);
+        byte[] result = Arrays.copyOf(block, block.length + data.length);
+        System.arraycopy(data, 0, result, block.length, data.length);
+        return result;
+    }
+
+    static List<ArchivedMessage> decode(byte[] data) {
+        try (PushbackInputStream blocks = new PushbackInputStream(new GZIPInputStream(new ByteArrayInputStream(data)));
+             DataInputStream input = new DataInputStream(blocks)) {
+            List<ArchivedMessage> messages = new ArrayList<>();
+            int next;
+            while ((next = blocks.read()) != -1) {
+                blocks.unread(next);
+                int count = input.readInt();
+                for (int i = 0; i < count; i++) {
+                    messages.add(readMessage(input));
+                }
+            }
+            return messages;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes only the first, that is the newest, message of the segment.
+     *
+     * @return the newest message or <i>null</i> if the segment is empty
+     */
+    static ArchivedMessage decodeFirst(byte[] data) {
+        try (PushbackInputStream blocks = new PushbackInputStream(new GZIPInputStream(new ByteArrayInputStream(data)));
+             DataInputStream input = new DataInputStream(blocks)) {
+            int next;
+            while ((next = blocks.read()) != -1) {
+                blocks.unread(next);
+                if (input.readInt() > 0) {
+                    return readMessage(input);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ArchivedMessage readMessage(DataInputStream input) throws IOException {
+        long id = input.readLong();
+        long senderId = input.readLong();
+        String senderLogin = input.readUTF();
+        long receiverId = input.readLong();
+        String receiverLogin = input.readUTF();
+        String text = input.readBoolean() ? input.readUTF() : null;
+        OffsetDateTime sendTime = OffsetDateTime.ofInstant(Instant.ofEpochMilli(input.readLong()), ZoneOffset.UTC);
+        return new ArchivedMessage(id, senderId, senderLogin, receiverId, receiverLogin, text, sendTime);
+    }
+}
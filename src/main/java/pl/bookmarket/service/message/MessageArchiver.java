@@ -0,0 +1,46 @@
+package pl.bookmarket.service.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Periodically moves the read messages older than the retention period into the {@link MessageArchive}, so the
+ * message table holds only the recent messages. Messages are archived in batches, each one in its own transaction.
+ * Messages of a failed batch stay in the message table and are archived by the next run.
+ */
+@Component
+public class MessageArchiver {
+
+    /**
+     * Maximum number of messages archived by a single transaction.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MessageArchiver.class);
+
+    private final MessageArchive messageArchive;
+    private final int retentionDays;
+
+    public MessageArchiver(MessageArchive messageArchive, @Value("${bm.message.retention-days}") int retentionDays) {
+        this.messageArchive = messageArchive;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedDelayString = "${bm.message.archive-interval}", initialDelayString = "${bm.message.archive-interval}")
+    public synchronized void archiveMessages() {
+        OffsetDateTime sentBefore = OffsetDateTime.now().minusDays(retentionDays);
+        try {
+            int archived;
+            do {
+                archived = messageArchive.archive(sentBefore, BATCH_SIZE);
+            } while (archived == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to archive messages sent before {}.", sentBefore, e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package pl.bookmarket.service.message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically drains the outbox of the notifications. Each batch is delivered in its own transaction, so a large
+ * backlog is committed in a few large groups instead of a transaction per notification. Notifications of a failed
+ * batch stay in the outbox and are delivered by the next run.
+ */
+@Component
+public class NotificationDrainer {
+
+    /**
+     * Maximum number of notifications delivered by a single transaction.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationDrainer.class);
+
+    private final NotificationOutbox notificationOutbox;
+
+    public NotificationDrainer(NotificationOutbox notificationOutbox) {
+        this.notificationOutbox = notificationOutbox;
+    }
+
+    @Scheduled(fixedDelayString = "${bm.notification.drain-interval}",
+            initialDelayString = "${bm.notification.drain-interval}")
+    public synchronized void drain() {
+        try {
+            int delivered;
+            do {
+                delivered = notificationOutbox.deliver(BATCH_SIZE);
+            } while (delivered == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to deliver notifications.", e);
+        }
+    }
+}
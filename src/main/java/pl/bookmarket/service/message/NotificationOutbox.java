@@ -0,0 +1,108 @@
+package pl.bookmarket.service.message;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.NotificationDao;
+import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.model.Message;
+import pl.bookmarket.model.Notification;
+import pl.bookmarket.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the notifications appended to the outbox by the business transactions into messages. A batch of
+ * notifications is delivered in a single transaction, which inserts its messages in JDBC batches, updates
+ * the conversations once per affected pair of users and removes the delivered notifications.
+ */
+@Component
+public class NotificationOutbox {
+
+    private final NotificationDao notificationDao;
+    private final MessageDao messageDao;
+    private final UserDao userDao;
+    private final ConversationTracker conversationTracker;
+
+    public NotificationOutbox(NotificationDao notificationDao, MessageDao messageDao, UserDao userDao,
+                              ConversationTracker conversationTracker) {
+        this.notificationDao = notificationDao;
+        this.messageDao = messageDao;
+        this.userDao = userDao;
+        this.conversationTracker = conversationTracker;
+    }
+
+    /**
+     * Delivers the oldest pending notifications. The notifications are locked, so concurrent drainers wait for
+     * each other instead of delivering them twice.
+     *
+     * @param limit maximum number of delivered notifications
+     * @return number of delivered notifications
+     */
+    @Transactional
+    public int deliver(int limit) {
+        List<Notification> notifications = notificationDao.getPendingNotifications(PageRequest.of(0, limit));
+        if (notifications.isEmpty()) {
+            return 0;
+        }
+
+        Set<Long> userIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            userIds.add(notification.getSenderId());
+            userIds.add(notification.getReceiverId());
+            userIds.addAll(notification.getOtherReceiverIds());
+        }
+        Map<Long, User> users = new HashMap<>();
+        userDao.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+
+        List<Message> messages = new ArrayList<>();
+        notifications.forEach(notification -> addMessages(notification, users, messages));
+        if (!messages.isEmpty()) {
+            conversationTracker.onMessagesCreated((List<Message>) messageDao.saveAll(messages));
+        }
+        notificationDao.deleteNotificationsByIds(notifications.stream().map(Notification::getId)
+                                                              .collect(Collectors.toList()));
+        return notifications.size();
+    }
+
+    private void addMessages(Notification notification, Map<Long, User> users, List<Message> messages) {
+        // users deleted since the notification has been appended are not notified anymore
+        User sender = users.get(notification.getSenderId());
+        if (sender == null) {
+            return;
+        }
+
+        switch (notification.getType()) {
+            case NEW_OFFER:
+                addMessage(sender, users.get(notification.getReceiverId()),
+                           String.format("{new.offer} \"%s\"", notification.getTitle()), messages);
+                break;
+            case BOOK_SOLD:
+                for (Long otherBuyerId : notification.getOtherReceiverIds()) {
+                    addMessage(sender, users.get(otherBuyerId), "{book.sold}: " + notification.getTitle(), messages);
+                }
+                addMessage(sender, users.get(notification.getReceiverId()),
+                           "{book.bought}: " + notification.getTitle(), messages);
+                break;
+            case OFFERS_EXPIRED:
+                addMessage(sender, users.get(notification.getReceiverId()),
+                           "{offers.expired}: " + notification.getTitle(), messages);
+                break;
+            default:
+                throw new IllegalStateException("Unknown notification type: " + notification.getType());
+        }
+    }
+
+    private static void addMessage(User sender, User receiver, String text, List<Message> messages) {
+        if (receiver != null) {
+            messages.add(new Message(sender, receiver, text));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package pl.bookmarket.service.message;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.projection.UnreadCount;
+import pl.bookmarket.service.event.UnreadMessagesChangedEvent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Numbers of the unread messages of the users, so the unread badge doesn't touch the message table. The counters
+ * are kept in a concurrent map, whose updates lock only the bin of the given user, so receivers of concurrently sent
+ * messages don't contend with each other. The counters are loaded on application startup and updated after each
+ * committed change of the messages.
+ */
+@Component
+public class UnreadMessageCounters {
+
+    private final MessageDao messageDao;
+
+    private volatile ConcurrentMap<Long, Integer> counters = new ConcurrentHashMap<>();
+
+    public UnreadMessageCounters(MessageDao messageDao) {
+        this.messageDao = messageDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ConcurrentMap<Long, Integer> loaded = new ConcurrentHashMap<>();
+        for (UnreadCount count : messageDao.getUnreadCounts()) {
+            loaded.put(count.getUserId(), count.getCount().intValue());
+        }
+        counters = loaded;
+    }
+
+    public int getUnreadCount(Long userId) {
+        return counters.getOrDefault(userId, 0);
+    }
+
+    @TransactionalEventListener
+    public void onUnreadMessagesChanged(UnreadMessagesChangedEvent event) {
+        ConcurrentMap<Long, Integer> current = counters;
+        // users without unread messages are removed, so the map holds only the users with a non-zero badge
+        event.getDeltas().forEach((userId, delta) -> current.compute(userId, (id, count) -> {
+            int updated = (count == null ? 0 : count) + delta;
+            return updated > 0 ? updated : null;
+        }));
+    }
+}
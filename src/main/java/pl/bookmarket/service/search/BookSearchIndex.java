@@ -0,0 +1,188 @@
+package pl.bookmarket.service.search;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.projection.SearchableBook;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.util.Cursor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of titles, authors and publishers of books marked for sale. Each word points to the books
+ * containing it, weighted by the field it was found in, so a query is answered by scanning only the books which
+ * contain at least one of the searched words. The index is loaded on application startup and updated after each
+ * committed change of a book.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float AUTHOR_WEIGHT = 2f;
+    private static final float PUBLISHER_WEIGHT = 1f;
+
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::getScore).reversed()
+                                                             .thenComparing(Hit::getBookId);
+
+    private final BookDao bookDao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Map<Long, Float>> postings = new HashMap<>();
+    private Map<Long, Set<String>> documents = new HashMap<>();
+
+    public BookSearchIndex(BookDao bookDao) {
+        this.bookDao = bookDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<String, Map<Long, Float>> newPostings = new HashMap<>();
+        Map<Long, Set<String>> newDocuments = new HashMap<>();
+
+        for (SearchableBook book : bookDao.getSearchableBooks()) {
+            addDocument(newPostings, newDocuments, book.getId(), book.getTitle(), book.getAuthor(), book.getPublisher());
+        }
+
+        lock.writeLock().lock();
+        try {
+            postings = newPostings;
+            documents = newDocuments;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds books containing any of the words of the query. Books are ranked by the sum of weights of matched words,
+     * where words found in the title weigh more than in the author, and those more than in the publisher. Words
+     * occurring in fewer books are more important than the common ones.
+     * <p>
+     * Scores depend on the number of books containing each word, so they change as the index is updated. The book of
+     * the cursor is therefore scored again with the current weights and the page continues after its current
+     * position, so books already returned are not repeated. The score stored in the cursor is used only when the book
+     * no longer matches the query.
+     *
+     * @param query  searched text
+     * @param cursor cursor pointing at the last hit of the previous page or <i>null</i> for the first page
+     * @param limit  maximum number of returned hits
+     * @return hits sorted by the score descending and book ID ascending
+     */
+    public List<Hit> search(String query, Cursor cursor, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextNormalizer.tokenize(query));
+        Map<Long, Double> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            for (String term : terms) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (double) documentCount / termPostings.size());
+                termPostings.forEach((bookId, weight) -> scores.merge(bookId, weight * idf, Double::sum));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // bounded heap keeping the lowest ranked hit at its head, so only the best hits are sorted
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        Hit after = cursor == null ? null
+                : new Hit(cursor.getLong(1), scores.getOrDefault(cursor.getLong(1), cursor.getDouble(0)));
+        scores.forEach((bookId, score) -> {
+            Hit hit = new Hit(bookId, score);
+            if (after != null && RANKING.compare(hit, after) <= 0) {
+                return;
+            }
+            best.add(hit);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+
+        List<Hit> result = new ArrayList<>(best);
+        result.sort(RANKING);
+        return result;
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.getPrevious() != null) {
+                removeDocument(event.getPrevious().getId());
+            }
+            if (event.isForSale()) {
+                BookSnapshot book = event.getCurrent();
+                removeDocument(book.getId());
+                addDocument(postings, documents, book.getId(), book.getTitle(), book.getAuthor(), book.getPublisher());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeDocument(Long bookId) {
+        Set<String> terms = documents.remove(bookId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            termPostings.remove(bookId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addDocument(Map<String, Map<Long, Float>> postings, Map<Long, Set<String>> documents,
+                                    Long bookId, String title, String author, String publisher) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, title, TITLE_WEIGHT);
+        addField(weights, author, AUTHOR_WEIGHT);
+        addField(weights, publisher, PUBLISHER_WEIGHT);
+
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(bookId, weight));
+        documents.put(bookId, Collections.unmodifiableSet(weights.keySet()));
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : TextNormalizer.tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    public static class Hit {
+        private final long bookId;
+        private final double score;
+
+        private Hit(long bookId, double score) {
+            this.bookId = bookId;
+            this.score = score;
+        }
+
+        public Long getBookId() {
+            return bookId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package pl.bookmarket.service.search;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.projection.TextValueCount;
+import pl.bookmarket.service.event.BookChangedEvent;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dictionary of distinct titles and authors of all books, shared by the {@link BookTextIndex indexes} built over
+ * these values. The dictionary counts books sharing each value, so the indexes are notified only when a value appears
+ * for the first time or when the last book having it is changed or deleted. The dictionary is loaded on application
+ * startup and updated after each committed change of a book.
+ */
+@Component
+public class BookTextDictionary {
+
+    private final BookDao bookDao;
+    private final List<BookTextIndex> indexes;
+    private final Lock lock = new ReentrantLock();
+
+    private final Map<BookTextField, Map<String, Long>> counts = new EnumMap<>(BookTextField.class);
+
+    BookTextDictionary(BookDao bookDao, List<BookTextIndex> indexes) {
+        this.bookDao = bookDao;
+        this.indexes = indexes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<BookTextField, List<TextValueCount>> loaded = new EnumMap<>(BookTextField.class);
+        loaded.put(BookTextField.TITLE, bookDao.getTitleCounts());
+        loaded.put(BookTextField.AUTHOR, bookDao.getAuthorCounts());
+
+        lock.lock();
+        try {
+            counts.clear();
+            Map<BookTextField, Set<String>> values = new EnumMap<>(BookTextField.class);
+            loaded.forEach((field, fieldValues) -> {
+                Map<String, Long> fieldCounts = new HashMap<>();
+                for (TextValueCount value : fieldValues) {
+                    fieldCounts.put(value.getValue(), value.getCount());
+                }
+                counts.put(field, fieldCounts);
+                values.put(field, fieldCounts.keySet());
+            });
+            indexes.forEach(index -> index.load(values));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookChanged(BookChangedEvent event) {
+        lock.lock();
+        try {
+            for (BookTextField field : BookTextField.values()) {
+                if (event.getPrevious() != null) {
+                    release(field, field.valueOf(event.getPrevious()));
+                }
+                if (event.getCurrent() != null) {
+                    acquire(field, field.valueOf(event.getCurrent()));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(BookTextField field, String value) {
+        Map<String, Long> fieldCounts = counts.computeIfAbsent(field, f -> new HashMap<>());
+        if (fieldCounts.merge(value, 1L, Long::sum) == 1L) {
+            indexes.forEach(index -> index.addValue(field, value));
+        }
+    }
+
+    private void release(BookTextField field, String value) {
+        Map<String, Long> fieldCounts = counts.get(field);
+        Long count = fieldCounts == null ? null : fieldCounts.get(value);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            fieldCounts.put(value, count - 1);
+        } else {
+            fieldCounts.remove(value);
+            indexes.forEach(index -> index.removeValue(field, value));
+        }
+    }
+}
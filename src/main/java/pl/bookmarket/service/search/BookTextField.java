@@ -0,0 +1,20 @@
+package pl.bookmarket.service.search;
+
+import pl.bookmarket.service.event.BookSnapshot;
+
+import java.util.function.Function;
+
+public enum BookTextField {
+    TITLE(BookSnapshot::getTitle),
+    AUTHOR(BookSnapshot::getAuthor);
+
+    private final Function<BookSnapshot, String> accessor;
+
+    BookTextField(Function<BookSnapshot, String> accessor) {
+        this.accessor = accessor;
+    }
+
+    public String valueOf(BookSnapshot book) {
+        return accessor.apply(book);
+    }
+}
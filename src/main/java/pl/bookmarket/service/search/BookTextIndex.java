@@ -0,0 +1,26 @@
+package pl.bookmarket.service.search;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * In-memory index built over distinct titles and authors of all books, kept up to date by the
+ * {@link BookTextDictionary}.
+ */
+interface BookTextIndex {
+
+    /**
+     * Replaces the content of the index with the given values.
+     */
+    void load(Map<BookTextField, ? extends Collection<String>> values);
+
+    /**
+     * Adds the value which is not present in the index yet.
+     */
+    void addValue(BookTextField field, String value);
+
+    /**
+     * Removes the value which is no longer used by any book.
+     */
+    void removeValue(BookTextField field, String value);
+}
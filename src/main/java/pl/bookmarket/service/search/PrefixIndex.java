@@ -0,0 +1,129 @@
+package pl.bookmarket.service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete index of distinct titles and authors. Every value is stored under its normalized form and under each
+ * of its suffixes starting at a word boundary, so <i>"tolk"</i> suggests <i>"J.R.R. Tolkien"</i>. Keys are kept
+ * sorted, so the suggestions for a prefix are found with a single lookup followed by a scan of at most a few entries.
+ */
+@Component
+public class PrefixIndex implements BookTextIndex {
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<BookTextField, NavigableSet<String>> keys = new EnumMap<>(BookTextField.class);
+
+    /**
+     * Finds values containing a word starting with the given prefix, in the alphabetical order of the matched text.
+     *
+     * @param prefix beginning of a title or an author typed by the user
+     * @param fields fields whose values are searched
+     * @param limit  maximum number of returned suggestions
+     * @return distinct matching values
+     */
+    public List<Suggestion> suggest(String prefix, Collection<BookTextField> fields, int limit) {
+        String normalizedPrefix = String.join(" ", TextNormalizer.tokenize(prefix));
+        List<Suggestion> result = new ArrayList<>();
+        if (normalizedPrefix.isEmpty()) {
+            return result;
+        }
+
+        lock.readLock().lock();
+        try {
+            for (BookTextField field : fields) {
+                NavigableSet<String> fieldKeys = keys.get(field);
+                if (fieldKeys == null) {
+                    continue;
+                }
+                Set<String> values = new LinkedHashSet<>();
+                for (String key : fieldKeys.subSet(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false)) {
+                    values.add(key.substring(key.indexOf(SEPARATOR) + 1));
+                    if (values.size() >= limit) {
+                        break;
+                    }
+                }
+                values.forEach(value -> result.add(new Suggestion(field, value)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result.size() > limit ? result.subList(0, limit) : result;
+    }
+
+    @Override
+    public void load(Map<BookTextField, ? extends Collection<String>> values) {
+        lock.writeLock().lock();
+        try {
+            keys.clear();
+            values.forEach((field, fieldValues) -> fieldValues.forEach(value -> add(field, value)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addValue(BookTextField field, String value) {
+        lock.writeLock().lock();
+        try {
+            add(field, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeValue(BookTextField field, String value) {
+        lock.writeLock().lock();
+        try {
+            keys.get(field).removeAll(keysOf(value));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(BookTextField field, String value) {
+        keys.computeIfAbsent(field, f -> new TreeSet<>()).addAll(keysOf(value));
+    }
+
+    private static List<String> keysOf(String value) {
+        List<String> words = TextNormalizer.tokenize(value);
+        List<String> result = new ArrayList<>(words.size());
+        for (int i = 0; i < words.size(); i++) {
+            // the value is appended to the key, so values sharing the same normalized form are kept separately
+            result.add(String.join(" ", words.subList(i, words.size())) + SEPARATOR + value);
+        }
+        return result;
+    }
+
+    public static class Suggestion {
+        private final BookTextField field;
+        private final String value;
+
+        private Suggestion(BookTextField field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        public BookTextField getField() {
+            return field;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+}
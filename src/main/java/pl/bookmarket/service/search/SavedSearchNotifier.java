@@ -0,0 +1,68 @@
+package pl.bookmarket.service.search;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.model.Message;
+import pl.bookmarket.model.User;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.message.ConversationTracker;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Notifies the owners of the saved searches about matching books put up for sale, so they don't have to poll the
+ * list of books for sale. The notifications are sent on behalf of the owner of the book after the change of the
+ * book is committed.
+ */
+@Component
+public class SavedSearchNotifier {
+    private static final int MAX_MESSAGE_LENGTH = 300;
+
+    private final SavedSearchPercolator percolator;
+    private final MessageDao messageDao;
+    private final UserDao userDao;
+    private final ConversationTracker conversationTracker;
+
+    public SavedSearchNotifier(SavedSearchPercolator percolator, MessageDao messageDao, UserDao userDao,
+                               ConversationTracker conversationTracker) {
+        this.percolator = percolator;
+        this.messageDao = messageDao;
+        this.userDao = userDao;
+        this.conversationTracker = conversationTracker;
+    }
+
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.wasForSale() || !event.isForSale()) {
+            return;
+        }
+
+        BookSnapshot book = event.getCurrent();
+        Set<Long> receivers = percolator.percolate(book);
+        receivers.remove(book.getOwnerId());
+        if (receivers.isEmpty()) {
+            return;
+        }
+
+        Optional<User> seller = userDao.findById(book.getOwnerId());
+        if (!seller.isPresent()) {
+            return;
+        }
+        String text = "{saved.search.match}: " + book.getTitle();
+        String truncated = text.length() > MAX_MESSAGE_LENGTH ? text.substring(0, MAX_MESSAGE_LENGTH) : text;
+        List<Message> messages = StreamSupport.stream(userDao.findAllById(receivers).spliterator(), false)
+                                              .map(receiver -> new Message(seller.get(), receiver, truncated))
+                                              .collect(Collectors.toList());
+        conversationTracker.onMessagesCreated((List<Message>) messageDao.saveAll(messages));
+    }
+}
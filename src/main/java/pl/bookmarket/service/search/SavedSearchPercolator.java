@@ -0,0 +1,221 @@
+package pl.bookmarket.service.search;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.SavedSearchDao;
+import pl.bookmarket.dao.projection.SavedSearchListing;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.SavedSearchChangedEvent;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reverse index of the saved searches, matching a book against the stored queries instead of the queries against
+ * the books. Each query is indexed under its most selective criterion only: the longest keyword, the author, the
+ * genre or, for queries limited by the price alone, the maximum price. A book is checked only against the queries
+ * indexed under its words, author, genre or a price not lower than its own, so the cost of matching depends on the
+ * number of candidate queries instead of all saved searches. The index is loaded on application startup and updated
+ * after each committed change of a saved search.
+ */
+@Component
+public class SavedSearchPercolator {
+
+    private static final Comparator<String> SELECTIVITY = Comparator.comparingInt(String::length).reversed()
+                                                                    .thenComparing(Comparator.naturalOrder());
+
+    private final SavedSearchDao savedSearchDao;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, Query> queries = new HashMap<>();
+    private Map<String, Set<Long>> keywordIndex = new HashMap<>();
+    private Map<String, Set<Long>> authorIndex = new HashMap<>();
+    private Map<Long, Set<Long>> genreIndex = new HashMap<>();
+    private NavigableMap<BigDecimal, Set<Long>> priceIndex = new TreeMap<>();
+
+    public SavedSearchPercolator(SavedSearchDao savedSearchDao) {
+        this.savedSearchDao = savedSearchDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<SavedSearchListing> listings = savedSearchDao.getSavedSearchListings();
+
+        lock.writeLock().lock();
+        try {
+            queries = new HashMap<>();
+            keywordIndex = new HashMap<>();
+            authorIndex = new HashMap<>();
+            genreIndex = new HashMap<>();
+            priceIndex = new TreeMap<>();
+            for (SavedSearchListing listing : listings) {
+                add(new Query(listing.getId(), listing.getOwnerId(), listing.getGenreId(), listing.getAuthor(),
+                              listing.getMaxPrice(), listing.getKeywords()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the users whose saved searches match the book. A search matches if the book belongs to its genre, is
+     * written by its author, costs no more than its maximum price and contains all its keywords in the title, author
+     * or publisher, ignoring the criteria which are not set.
+     *
+     * @param book book put up for sale
+     * @return ids of the owners of the matching saved searches
+     */
+    public Set<Long> percolate(BookSnapshot book) {
+        Set<String> words = new HashSet<>(TextNormalizer.tokenize(book.getTitle()));
+        words.addAll(TextNormalizer.tokenize(book.getAuthor()));
+        words.addAll(TextNormalizer.tokenize(book.getPublisher()));
+        String author = normalizeAuthor(book.getAuthor());
+        Set<Long> owners = new LinkedHashSet<>();
+
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = new HashSet<>();
+            for (String word : words) {
+                candidates.addAll(keywordIndex.getOrDefault(word, Collections.emptySet()));
+            }
+            candidates.addAll(authorIndex.getOrDefault(author, Collections.emptySet()));
+            candidates.addAll(genreIndex.getOrDefault(book.getGenreId(), Collections.emptySet()));
+            if (book.getPrice() != null) {
+                priceIndex.tailMap(book.getPrice(), true).values().forEach(candidates::addAll);
+            }
+
+            for (Long id : candidates) {
+                Query query = queries.get(id);
+                if (query.matches(book, author, words)) {
+                    owners.add(query.ownerId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return owners;
+    }
+
+    /**
+     * Checks if the criteria would match any book. Keywords and authors consisting of punctuation only are ignored.
+     *
+     * @return <i>true</i> if at least one criterion is set
+     */
+    public static boolean hasCriteria(Long genreId, String author, BigDecimal maxPrice, String keywords) {
+        return genreId != null || !normalizeAuthor(author).isEmpty() || maxPrice != null
+                || !TextNormalizer.tokenize(keywords).isEmpty();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return queries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onSavedSearchChanged(SavedSearchChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getSavedSearchId());
+            if (event.getType() == SavedSearchChangedEvent.Type.CREATED) {
+                add(new Query(event.getSavedSearchId(), event.getOwnerId(), event.getGenreId(), event.getAuthor(),
+                              event.getMaxPrice(), event.getKeywords()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Query query) {
+        queries.put(query.id, query);
+        if (!query.keywords.isEmpty()) {
+            keywordIndex.computeIfAbsent(query.getAnchorKeyword(), key -> new HashSet<>()).add(query.id);
+        } else if (query.author != null) {
+            authorIndex.computeIfAbsent(query.author, key -> new HashSet<>()).add(query.id);
+        } else if (query.genreId != null) {
+            genreIndex.computeIfAbsent(query.genreId, key -> new HashSet<>()).add(query.id);
+        } else if (query.maxPrice != null) {
+            priceIndex.computeIfAbsent(query.maxPrice, key -> new HashSet<>()).add(query.id);
+        }
+    }
+
+    private void remove(Long id) {
+        Query query = queries.remove(id);
+        if (query == null) {
+            return;
+        }
+        if (!query.keywords.isEmpty()) {
+            removeFrom(keywordIndex, query.getAnchorKeyword(), id);
+        } else if (query.author != null) {
+            removeFrom(authorIndex, query.author, id);
+        } else if (query.genreId != null) {
+            removeFrom(genreIndex, query.genreId, id);
+        } else if (query.maxPrice != null) {
+            removeFrom(priceIndex, query.maxPrice, id);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> index, K key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static String normalizeAuthor(String author) {
+        return String.join(" ", TextNormalizer.tokenize(author));
+    }
+
+    private static class Query {
+        private final Long id;
+        private final Long ownerId;
+        private final Long genreId;
+        private final String author;
+        private final BigDecimal maxPrice;
+        private final NavigableSet<String> keywords;
+
+        private Query(Long id, Long ownerId, Long genreId, String author, BigDecimal maxPrice, String keywords) {
+            String normalizedAuthor = normalizeAuthor(author);
+            this.id = id;
+            this.ownerId = ownerId;
+            this.genreId = genreId;
+            this.author = normalizedAuthor.isEmpty() ? null : normalizedAuthor;
+            this.maxPrice = maxPrice;
+            this.keywords = new TreeSet<>(SELECTIVITY);
+            this.keywords.addAll(TextNormalizer.tokenize(keywords));
+        }
+
+        // longer words are less common, so the query is checked against fewer books
+        private String getAnchorKeyword() {
+            return keywords.first();
+        }
+
+        private boolean matches(BookSnapshot book, String bookAuthor, Set<String> bookWords) {
+            return (genreId == null || genreId.equals(book.getGenreId()))
+                    && (author == null || author.equals(bookAuthor))
+                    && (maxPrice == null || book.getPrice() != null && book.getPrice().compareTo(maxPrice) <= 0)
+                    && bookWords.containsAll(keywords);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package pl.bookmarket.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class converting book texts into the form used by the search indexes. Letters are lower-cased and their
+ * diacritical marks are removed, so <i>"Żółć"</i> and <i>"zolc"</i> are considered equal.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICAL_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Lower-cases given text, removes diacritical marks and collapses whitespaces.
+     *
+     * @param text text to be normalized, may be <i>null</i>
+     * @return normalized text or empty string if the text is <i>null</i>
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        // 'ł' is a separate letter, not a letter with a combining mark, so it has to be replaced explicitly
+        String folded = DIACRITICAL_MARKS.matcher(decomposed).replaceAll("").replace('ł', 'l');
+        return WHITESPACES.matcher(folded).replaceAll(" ").trim();
+    }
+
+    /**
+     * Splits normalized text into words, skipping punctuation.
+     *
+     * @param text text to be tokenized, may be <i>null</i>
+     * @return list of normalized words in the order of their occurrence
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,198 @@
+package pl.bookmarket.service.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant index of distinct titles and authors. Every value is split into trigrams - sequences of three
+ * consecutive letters of its normalized words - and values are compared by the Jaccard similarity of their trigram
+ * sets, so <i>"Sienkiewcz"</i> still matches <i>"Sienkiewicz"</i>.
+ * <p>
+ * Only the values sharing at least one of the rarest trigrams of the query are verified, because a value missing all
+ * of them cannot reach the {@link #MIN_SIMILARITY}. The number of verified values is additionally limited by
+ * {@link #MAX_CANDIDATES}, which keeps the lookup time bounded regardless of the number of books.
+ */
+@Component
+public class TrigramIndex implements BookTextIndex {
+
+    public static final double MIN_SIMILARITY = 0.3;
+    static final int MAX_CANDIDATES = 10_000;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::getSimilarity).reversed()
+                                                               .thenComparing(Match::getValue);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<BookTextField, Map<String, Set<String>>> trigramsByValue = new EnumMap<>(BookTextField.class);
+    private final Map<BookTextField, Map<String, Set<String>>> postings = new EnumMap<>(BookTextField.class);
+
+    /**
+     * Finds values most similar to the given text.
+     *
+     * @param text   searched text, possibly misspelled
+     * @param fields fields whose values are searched
+     * @param limit  maximum number of returned matches
+     * @return matches with the similarity of at least {@link #MIN_SIMILARITY}, the most similar first
+     */
+    public List<Match> findSimilar(String text, Collection<BookTextField> fields, int limit) {
+        Set<String> queryTrigrams = trigrams(text);
+        if (queryTrigrams.isEmpty()) {
+            return Collections.emptyList();
+        }
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+
+        lock.readLock().lock();
+        try {
+            for (BookTextField field : fields) {
+                for (String value : findCandidates(field, queryTrigrams)) {
+                    double similarity = similarity(queryTrigrams, trigramsByValue.get(field).get(value));
+                    if (similarity >= MIN_SIMILARITY) {
+                        best.add(new Match(field, value, similarity));
+                        if (best.size() > limit) {
+                            best.poll();
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> result = new ArrayList<>(best);
+        result.sort(RANKING);
+        return result;
+    }
+
+    @Override
+    public void load(Map<BookTextField, ? extends Collection<String>> values) {
+        lock.writeLock().lock();
+        try {
+            trigramsByValue.clear();
+            postings.clear();
+            values.forEach((field, fieldValues) -> fieldValues.forEach(value -> add(field, value)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void addValue(BookTextField field, String value) {
+        lock.writeLock().lock();
+        try {
+            add(field, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeValue(BookTextField field, String value) {
+        lock.writeLock().lock();
+        try {
+            Set<String> valueTrigrams = trigramsByValue.get(field).remove(value);
+            Map<String, Set<String>> fieldPostings = postings.get(field);
+            for (String trigram : valueTrigrams) {
+                Set<String> values = fieldPostings.get(trigram);
+                values.remove(value);
+                if (values.isEmpty()) {
+                    fieldPostings.remove(trigram);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(BookTextField field, String value) {
+        Set<String> valueTrigrams = trigrams(value);
+        trigramsByValue.computeIfAbsent(field, f -> new HashMap<>()).put(value, valueTrigrams);
+        Map<String, Set<String>> fieldPostings = postings.computeIfAbsent(field, f -> new HashMap<>());
+        for (String trigram : valueTrigrams) {
+            fieldPostings.computeIfAbsent(trigram, t -> new HashSet<>()).add(value);
+        }
+    }
+
+    private Set<String> findCandidates(BookTextField field, Set<String> queryTrigrams) {
+        Map<String, Set<String>> fieldPostings = postings.getOrDefault(field, Collections.emptyMap());
+        List<Set<String>> lists = new ArrayList<>();
+        for (String trigram : queryTrigrams) {
+            lists.add(fieldPostings.getOrDefault(trigram, Collections.emptySet()));
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        // a value sharing less than MIN_SIMILARITY of the query trigrams can't be similar enough,
+        // so it has to contain at least one of the (size - required + 1) rarest trigrams
+        int required = (int) Math.ceil(MIN_SIMILARITY * queryTrigrams.size());
+        int prefixLength = queryTrigrams.size() - required + 1;
+
+        Set<String> candidates = new LinkedHashSet<>();
+        for (Set<String> values : lists.subList(0, prefixLength)) {
+            for (String value : values) {
+                candidates.add(value);
+                if (candidates.size() >= MAX_CANDIDATES) {
+                    return candidates;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static double similarity(Set<String> first, Set<String> second) {
+        int shared = 0;
+        for (String trigram : first) {
+            if (second.contains(trigram)) {
+                shared++;
+            }
+        }
+        return (double) shared / (first.size() + second.size() - shared);
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new HashSet<>();
+        for (String word : TextNormalizer.tokenize(text)) {
+            // padding makes the beginning and the end of a word count as separate trigrams
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    public static class Match {
+        private final BookTextField field;
+        private final String value;
+        private final double similarity;
+
+        private Match(BookTextField field, String value, double similarity) {
+            this.field = field;
+            this.value = value;
+            this.similarity = similarity;
+        }
+
+        public BookTextField getField() {
+            return field;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
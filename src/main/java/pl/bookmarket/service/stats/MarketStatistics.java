@@ -0,0 +1,149 @@
+package pl.bookmarket.service.stats;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.projection.ForSaleListing;
+import pl.bookmarket.dto.MarketStatsDto;
+import pl.bookmarket.dto.MarketStatsDto.GenreStats;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-genre market statistics maintained incrementally from the committed changes of books. Asking prices are those
+ * of the current listings, the old price of a book is removed when it changes or the book is taken off the market.
+ * Trades and time to sale are recorded each time a book changes its owner. The medians come from
+ * {@link QuantileSketch}es, and the statistics are published as an immutable snapshot after each change, so reading
+ * them doesn't depend on the size of the market.
+ * <p>
+ * On startup only the listings and their asking prices are loaded, trades are counted from the application start.
+ */
+@Component
+public class MarketStatistics {
+
+    /**
+     * Maximum relative error of the reported medians.
+     */
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    private final BookDao bookDao;
+
+    private Map<Long, GenreStatistics> genres = new TreeMap<>();
+    private volatile MarketStatsDto snapshot = new MarketStatsDto(Collections.emptyList());
+
+    public MarketStatistics(BookDao bookDao) {
+        this.bookDao = bookDao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<ForSaleListing> listings = bookDao.getForSaleListings();
+
+        synchronized (this) {
+            genres = new TreeMap<>();
+            for (ForSaleListing listing : listings) {
+                GenreStatistics statistics = getGenre(listing.getGenreId());
+                statistics.listings++;
+                statistics.addAskingPrice(listing.getPrice());
+            }
+            snapshot = createSnapshot();
+        }
+    }
+
+    public MarketStatsDto getStatistics() {
+        return snapshot;
+    }
+
+    @TransactionalEventListener
+    public synchronized void onBookChanged(BookChangedEvent event) {
+        BookSnapshot previous = event.getPrevious();
+        BookSnapshot current = event.getCurrent();
+
+        if (event.wasForSale()) {
+            GenreStatistics statistics = getGenre(previous.getGenreId());
+            statistics.listings--;
+            statistics.removeAskingPrice(previous.getPrice());
+        }
+        if (event.isForSale()) {
+            GenreStatistics statistics = getGenre(current.getGenreId());
+            statistics.listings++;
+            statistics.addAskingPrice(current.getPrice());
+        }
+        if (event.wasForSale() && current != null && !current.getOwnerId().equals(previous.getOwnerId())) {
+            getGenre(previous.getGenreId()).addTrade(previous.getListedOn(), OffsetDateTime.now());
+        }
+        snapshot = createSnapshot();
+    }
+
+    private GenreStatistics getGenre(Long genreId) {
+        return genres.computeIfAbsent(genreId, id -> new GenreStatistics());
+    }
+
+    private MarketStatsDto createSnapshot() {
+        List<GenreStats> genreStats = new ArrayList<>();
+        genres.forEach((genreId, statistics) -> genreStats.add(statistics.toGenreStats(genreId)));
+        return new MarketStatsDto(Collections.unmodifiableList(genreStats));
+    }
+
+    private static class GenreStatistics {
+        private final QuantileSketch askingPrices = new QuantileSketch(RELATIVE_ACCURACY);
+        private final QuantileSketch secondsToSale = new QuantileSketch(RELATIVE_ACCURACY);
+        private BigDecimal askingPriceSum = BigDecimal.ZERO;
+        private long secondsToSaleSum;
+        private long listings;
+        private long trades;
+
+        private void addAskingPrice(BigDecimal price) {
+            if (price != null) {
+                askingPriceSum = askingPriceSum.add(price);
+                askingPrices.add(price.doubleValue());
+            }
+        }
+
+        private void removeAskingPrice(BigDecimal price) {
+            if (price != null) {
+                askingPriceSum = askingPriceSum.subtract(price);
+                askingPrices.remove(price.doubleValue());
+            }
+        }
+
+        private void addTrade(OffsetDateTime listedOn, OffsetDateTime soldOn) {
+            trades++;
+            // books listed before the listing time was recorded have unknown time to sale
+            if (listedOn != null) {
+                long seconds = Math.max(0, Duration.between(listedOn, soldOn).getSeconds());
+                secondsToSaleSum += seconds;
+                secondsToSale.add(seconds);
+            }
+        }
+
+        private GenreStats toGenreStats(Long genreId) {
+            BigDecimal averagePrice = null;
+            BigDecimal medianPrice = null;
+            if (askingPrices.getCount() > 0) {
+                averagePrice = askingPriceSum.divide(BigDecimal.valueOf(askingPrices.getCount()), 2, RoundingMode.HALF_UP);
+                medianPrice = BigDecimal.valueOf(askingPrices.getQuantile(0.5)).setScale(2, RoundingMode.HALF_UP);
+            }
+
+            Long averageSeconds = null;
+            Long medianSeconds = null;
+            if (secondsToSale.getCount() > 0) {
+                averageSeconds = secondsToSaleSum / secondsToSale.getCount();
+                medianSeconds = Math.round(secondsToSale.getQuantile(0.5));
+            }
+            return new GenreStats(genreId, listings, trades, averagePrice, medianPrice, averageSeconds, medianSeconds);
+        }
+    }
+}
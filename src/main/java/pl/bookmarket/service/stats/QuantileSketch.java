@@ -0,0 +1,88 @@
+package pl.bookmarket.service.stats;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming quantile sketch with a bounded relative error. Values are counted in buckets whose bounds grow
+ * geometrically, so the memory used depends on the logarithm of the range of values instead of their number,
+ * and a quantile is reported as the representative value of its bucket, which differs from the exact value by
+ * at most the relative accuracy. Values can be removed as well, so the sketch can describe a changing set of values.
+ * The sketch is not thread-safe.
+ */
+public class QuantileSketch {
+
+    private final double gamma;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy maximum relative error of the reported quantiles, between 0 and 1 exclusive
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1.");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * @param value value to add, values lower than or equal to 0 are counted as 0
+     */
+    public void add(double value) {
+        if (value <= 0) {
+            zeroCount++;
+        } else {
+            // bucket i holds the values from the range (gamma^(i-1), gamma^i]
+            buckets.merge(getBucket(value), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    /**
+     * @param value value to remove, which has been added before
+     */
+    public void remove(double value) {
+        if (value <= 0) {
+            zeroCount--;
+        } else {
+            // empty buckets are removed, so they aren't iterated when computing the quantiles
+            buckets.computeIfPresent(getBucket(value), (bucket, size) -> size > 1 ? size - 1 : null);
+        }
+        count--;
+    }
+
+    /**
+     * @param quantile quantile to compute, between 0 and 1 inclusive
+     * @return approximate value of the quantile or {@link Double#NaN} if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (rank < seen) {
+                return 2 * Math.pow(gamma, bucket.getKey()) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, buckets.lastKey()) / (gamma + 1);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private int getBucket(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+}
@@ -1,9 +1,12 @@
 package pl.bookmarket.util;
 
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import pl.bookmarket.security.authentication.AuthenticatedUser;
 
 import javax.servlet.http.Cookie;
 import java.time.Duration;
@@ -68,6 +71,27 @@ public final class AuthUtils {
         return user.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN"));
     }
 
+    /**
+     * Runs given task in a new security context authenticated as the administrator with id <i>0</i>, which doesn't
+     * belong to any account. Meant for scheduled jobs, which reuse services checking permissions of the current user.
+     *
+     * @param task task to run, the previous security context is restored after it completes
+     */
+    public static void runAsSystem(Runnable task) {
+        AuthenticatedUser system = AuthenticatedUser.builder().id(0L).username("system").password("N/A")
+                                                    .authorities("ADMIN").build();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new UsernamePasswordAuthenticationToken(system, null, system.getAuthorities()));
+
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(context);
+        try {
+            task.run();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
     /**
      * Creates JWT refresh token stored in a secure, HTTP-only cookie, valid for 24 hours.
      *
@@ -0,0 +1,54 @@
+package pl.bookmarket.util;
+
+import pl.bookmarket.dto.ErrorDto;
+
+import java.util.function.Function;
+
+/**
+ * Outcome of processing a single element of a batch request. Either the item or the error is set.
+ *
+ * @param <T> type of the processed item
+ */
+public class BatchItemResult<T> {
+
+    private final int index;
+    private final T item;
+    private final ErrorDto error;
+
+    private BatchItemResult(int index, T item, ErrorDto error) {
+        this.index = index;
+        this.item = item;
+        this.error = error;
+    }
+
+    public static <T> BatchItemResult<T> success(int index, T item) {
+        return new BatchItemResult<>(index, item, null);
+    }
+
+    public static <T> BatchItemResult<T> failure(int index, ErrorDto error) {
+        return new BatchItemResult<>(index, null, error);
+    }
+
+    public <R> BatchItemResult<R> map(Function<T, R> mapper) {
+        return new BatchItemResult<>(index, item == null ? null : mapper.apply(item), error);
+    }
+
+    /**
+     * @return position of the element in the batch request, starting from 0
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public ErrorDto getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,27 @@
+package pl.bookmarket.util;
+
+import java.beans.PropertyEditorSupport;
+
+/**
+ * Converts request parameter text into enum constant ignoring the case of its name. If the text doesn't match
+ * any constant, the value is left unset.
+ *
+ * @param <E> type of the enum
+ */
+public class CaseInsensitiveEnumEditor<E extends Enum<E>> extends PropertyEditorSupport {
+
+    private final Class<E> enumType;
+
+    public CaseInsensitiveEnumEditor(Class<E> enumType) {
+        this.enumType = enumType;
+    }
+
+    @Override
+    public void setAsText(String text) throws IllegalArgumentException {
+        for (E enumValue : enumType.getEnumConstants()) {
+            if (enumValue.toString().equalsIgnoreCase(text)) {
+                setValue(enumValue);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package pl.bookmarket.util;
+
+import pl.bookmarket.validation.exception.EntityValidationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * Opaque token identifying the position of the last element returned by a keyset-paginated query. The token
+ * stores values of the sort key columns, so the next page can be fetched with a simple range condition instead
+ * of an offset, which keeps the cost of deep pages equal to the cost of the first one.
+ */
+public final class Cursor {
+
+    private static final String SEPARATOR = "|";
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile(Pattern.quote(SEPARATOR));
+
+    private final String[] values;
+
+    private Cursor(String[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Encodes given sort key values into an URL-safe cursor token.
+     *
+     * @param values sort key values of the last element of the page. Cannot contain <i>null</i> values.
+     * @return URL-safe cursor token
+     */
+    public static String encode(Object... values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes cursor token created by the {@link #encode(Object...)} method.
+     *
+     * @param token  cursor token, may be <i>null</i> or empty when the first page is requested
+     * @param length expected number of values stored in the token
+     * @return decoded cursor or <i>null</i> if the token is empty
+     * @throws EntityValidationException if the token is malformed
+     */
+    public static Cursor decode(String token, int length) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] values = SEPARATOR_PATTERN.split(decoded, -1);
+            if (values.length != length) {
+                throw invalidCursor();
+            }
+            return new Cursor(values);
+        } catch (IllegalArgumentException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public String getString(int index) {
+        return values[index];
+    }
+
+    public Long getLong(int index) {
+        try {
+            return Long.valueOf(values[index]);
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public BigDecimal getDecimal(int index) {
+        try {
+            return new BigDecimal(values[index]);
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public double getDouble(int index) {
+        try {
+            return Double.parseDouble(values[index]);
+        } catch (NumberFormatException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public OffsetDateTime getDateTime(int index) {
+        try {
+            return OffsetDateTime.parse(values[index]);
+        } catch (RuntimeException e) {
+            throw invalidCursor();
+        }
+    }
+
+    private static EntityValidationException invalidCursor() {
+        return new EntityValidationException("cursor", "cursor.invalid");
+    }
+}
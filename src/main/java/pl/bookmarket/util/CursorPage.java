@@ -0,0 +1,62 @@
+package pl.bookmarket.util;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * A single page of a keyset-paginated result together with the cursor pointing at the next page.
+ *
+ * @param <T> type of the page elements
+ */
+public class CursorPage<T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a page from the query result fetched with the limit greater by one than the requested page size.
+     * The additional element is used only to determine if there is a next page and is not included in the content.
+     *
+     * @param fetched         query result containing at most <i>size + 1</i> elements
+     * @param size            requested page size
+     * @param cursorExtractor function encoding the sort key of an element into a cursor token
+     * @return page with the next cursor set to the sort key of the last element or <i>null</i> if it's the last page
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int size, Function<T, String> cursorExtractor) {
+        if (fetched.size() <= size) {
+            return new CursorPage<>(fetched, null);
+        }
+        List<T> content = fetched.subList(0, size);
+        return new CursorPage<>(content, cursorExtractor.apply(content.get(size - 1)));
+    }
+
+    /**
+     * Restricts requested page size to the range from 1 to {@link #MAX_SIZE}.
+     *
+     * @param size requested page size
+     * @return page size which can be safely used as the query limit
+     */
+    public static int normalizeSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(content.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
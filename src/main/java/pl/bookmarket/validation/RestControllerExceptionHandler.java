@@ -1,21 +1,26 @@
 package pl.bookmarket.validation;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import pl.bookmarket.dto.ErrorDto;
+import pl.bookmarket.model.Offer;
 import pl.bookmarket.security.authentication.BearerTokenException;
+import pl.bookmarket.validation.exception.EntityConflictException;
 import pl.bookmarket.validation.exception.EntityNotFoundException;
 import pl.bookmarket.validation.exception.EntityValidationException;
 
 import javax.validation.ConstraintViolationException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -26,6 +31,10 @@ import static java.util.Collections.singletonMap;
 @RestControllerAdvice
 public class RestControllerExceptionHandler extends ResponseEntityExceptionHandler {
 
+    // errors returned when a database constraint rejects a change which passed the validation concurrently
+    private static final Map<String, ErrorDto> CONSTRAINT_ERRORS =
+            singletonMap(Offer.BOOK_BUYER_CONSTRAINT, new ErrorDto("offer.buyer", "offer.exists.for.user"));
+
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<Object> handleEntityNotFound(EntityNotFoundException e) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -38,6 +47,12 @@ public class RestControllerExceptionHandler extends ResponseEntityExceptionHandl
                              .body(singletonMap("errors", singletonList(e.getError())));
     }
 
+    @ExceptionHandler(EntityConflictException.class)
+    public ResponseEntity<Object> handleEntityConflictException(EntityConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                             .body(singletonMap("errors", singletonList(e.getError())));
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException e) {
         List<ErrorDto> errorDtoList = mapErrorCollectionToDto(e.getConstraintViolations(),
@@ -47,6 +62,24 @@ public class RestControllerExceptionHandler extends ResponseEntityExceptionHandl
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(responseBody);
     }
 
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        String constraintName = e.getCause() instanceof org.hibernate.exception.ConstraintViolationException
+                ? ((org.hibernate.exception.ConstraintViolationException) e.getCause()).getConstraintName() : null;
+
+        if (constraintName != null) {
+            // some databases report the name of the index backing the constraint, qualified with the schema name
+            String name = constraintName.toLowerCase(Locale.ROOT);
+            for (Map.Entry<String, ErrorDto> entry : CONSTRAINT_ERRORS.entrySet()) {
+                if (name.contains(entry.getKey())) {
+                    return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                                         .body(singletonMap("errors", singletonList(entry.getValue())));
+                }
+            }
+        }
+        throw e;
+    }
+
     @ExceptionHandler(BearerTokenException.class)
     public ResponseEntity<String> handleBearerTokenException(BearerTokenException e) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
@@ -62,6 +95,16 @@ public class RestControllerExceptionHandler extends ResponseEntityExceptionHandl
         return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(responseBody);
     }
 
+    @Override
+    protected ResponseEntity<Object> handleBindException(BindException ex, HttpHeaders headers, HttpStatus status,
+                                                         WebRequest request) {
+        List<ErrorDto> errorDtoList = mapErrorCollectionToDto(ex.getFieldErrors(),
+                error -> new ErrorDto(error.getField(), error.getDefaultMessage()));
+        Map<String, List<ErrorDto>> responseBody = singletonMap("errors", errorDtoList);
+
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(responseBody);
+    }
+
     private <E> List<ErrorDto> mapErrorCollectionToDto(Collection<E> errors, Function<E, ErrorDto> mapper) {
         return errors.stream().map(mapper).collect(Collectors.toList());
     }
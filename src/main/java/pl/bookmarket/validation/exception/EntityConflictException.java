@@ -0,0 +1,11 @@
+package pl.bookmarket.validation.exception;
+
+import pl.bookmarket.dto.ErrorDto;
+
+public class EntityConflictException extends EntityException {
+
+    public EntityConflictException(String field, String errorCode) {
+        super(String.format("Field '%s' has been changed concurrently. Error code is: '%s'", field, errorCode),
+              new ErrorDto(field, errorCode));
+    }
+}
@@ -0,0 +1,17 @@
+package pl.bookmarket.validation.exception;
+
+import pl.bookmarket.dto.ErrorDto;
+
+public abstract class EntityException extends RuntimeException {
+
+    private final ErrorDto error;
+
+    protected EntityException(String message, ErrorDto error) {
+        super(message);
+        this.error = error;
+    }
+
+    public ErrorDto getError() {
+        return error;
+    }
+}
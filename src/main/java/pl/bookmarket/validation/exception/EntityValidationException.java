@@ -2,16 +2,10 @@ package pl.bookmarket.validation.exception;
 
 import pl.bookmarket.dto.ErrorDto;
 
-public class EntityValidationException extends RuntimeException {
-
-    private final ErrorDto error;
+public class EntityValidationException extends EntityException {
 
     public EntityValidationException(String field, String errorCode) {
-        super(String.format("Field '%s' contains invalid value. Error code is: '%s'", field, errorCode));
-        this.error = new ErrorDto(field, errorCode);
-    }
-
-    public ErrorDto getError() {
-        return error;
+        super(String.format("Field '%s' contains invalid value. Error code is: '%s'", field, errorCode),
+              new ErrorDto(field, errorCode));
     }
-}
\ No newline at end of file
+}
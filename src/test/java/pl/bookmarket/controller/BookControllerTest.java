@@ -1,6 +1,7 @@
 package pl.bookmarket.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -18,12 +19,15 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import pl.bookmarket.dto.BookCreateDto;
 import pl.bookmarket.model.Genre;
+import pl.bookmarket.service.search.BookSearchIndex;
+import pl.bookmarket.service.search.BookTextDictionary;
 import pl.bookmarket.testhelpers.datafactory.BookBuilder;
 import pl.bookmarket.testhelpers.utils.WithAuthenticatedUser;
 import pl.bookmarket.util.ApplicationProperties;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.stream.Stream;
 
@@ -65,6 +69,18 @@ class BookControllerTest {
     @Autowired
     private ApplicationProperties properties;
 
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookTextDictionary bookTextDictionary;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchIndex.rebuild();
+        bookTextDictionary.rebuild();
+    }
+
     @Test
     @WithAuthenticatedUser(roles = "ADMIN")
     void shouldSuccessfullyReturnAllBooks() throws Exception {
@@ -152,6 +168,107 @@ class BookControllerTest {
                .andExpect(jsonPath("$", is(empty())));
     }
 
+    @Test
+    void shouldReturnBooksForSaleMatchingSearchQuery() throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/search").param("q", "Publisher 1").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(2)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(4L)))
+               .andExpect(jsonPath("$.content[1].id", equalsId(2L)))
+               .andExpect(jsonPath("$.nextCursor", nullValue()));
+
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/search").param("q", "tolkien").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", is(empty())));
+    }
+
+    @Test
+    void shouldPaginateSearchResults() throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/search").param("q", "publisher")
+                                                                     .param("size", "1")
+                                                                     .secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.nextCursor", is(notNullValue())));
+    }
+
+    @Test
+    void shouldFindCreatedBookWithoutDiacritics() throws Exception {
+        BookCreateDto bookCreateDto = BookBuilder.getDefaultBook()
+                                                 .withTitle("Przedwiośnie")
+                                                 .withAuthor("Stefan Żeromski")
+                                                 .withForSale(true)
+                                                 .withPrice(BigDecimal.TEN)
+                                                 .buildBookCreateDto();
+
+        mockMvc.perform(post(properties.getBooksApiUrl()).secure(true)
+                                                         .content(mapper.writeValueAsString(bookCreateDto))
+                                                         .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isCreated());
+
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/search").param("q", "zeromski przedwiosnie").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].title", equalTo("Przedwiośnie")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "?!"})
+    void shouldThrow422WhenSearchQueryIsBlank(String query) throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/search").param("q", query).secure(true))
+               .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void shouldReturnValuesSimilarToMisspelledText() throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/lookup").param("q", "sienkiewitz").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].field", equalTo("AUTHOR")))
+               .andExpect(jsonPath("$[0].value", equalTo("Henryk Sienkiewicz")));
+
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/lookup").param("q", "Lord of the Kings")
+                                                                     .param("field", "title")
+                                                                     .secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].field", equalTo("TITLE")))
+               .andExpect(jsonPath("$[0].value", equalTo("Lord of the Rings: Return of the King")));
+    }
+
+    @Test
+    void shouldThrow422WhenLookupTextIsBlank() throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/lookup").param("q", " ").secure(true))
+               .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void shouldSuggestTitlesAndAuthorsStartingWithPrefix() throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/suggest").param("prefix", "h").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(3)))
+               .andExpect(jsonPath("$[0].field", equalTo("TITLE")))
+               .andExpect(jsonPath("$[0].value", equalTo("Harry Potter and the Prisoner of Azkaban")))
+               .andExpect(jsonPath("$[1].field", equalTo("AUTHOR")))
+               .andExpect(jsonPath("$[1].value", equalTo("Harlan Coben")))
+               .andExpect(jsonPath("$[2].field", equalTo("AUTHOR")))
+               .andExpect(jsonPath("$[2].value", equalTo("Henryk Sienkiewicz")));
+
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/suggest").param("prefix", "h")
+                                                                      .param("field", "author")
+                                                                      .param("limit", "1")
+                                                                      .secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].value", equalTo("Harlan Coben")));
+    }
+
+    @Test
+    void shouldThrow422WhenSuggestPrefixIsBlank() throws Exception {
+        mockMvc.perform(get(properties.getBooksApiUrl() + "/suggest").param("prefix", "").secure(true))
+               .andExpect(status().isUnprocessableEntity());
+    }
+
     @ParameterizedTest
     @MethodSource("getValidYears")
     void shouldSuccessfullyCreateNewBookWithDifferentReleaseYears(Integer releaseYear) throws Exception {
@@ -306,6 +423,35 @@ class BookControllerTest {
                .andExpect(jsonPath("$.errors", hasItem(hasEntry(equalTo("errorCode"), oneOf("price.negative", "price.invalid.precision")))));
     }
 
+    @Test
+    void shouldThrow422WhenCreatingAuctionForBookWhichIsNotForSale() throws Exception {
+        BookCreateDto bookCreateDto = BookBuilder.getDefaultBook()
+                                                 .withAuctionEndsOn(OffsetDateTime.now().plusDays(1))
+                                                 .buildBookCreateDto();
+
+        mockMvc.perform(post(properties.getBooksApiUrl()).secure(true)
+                                                         .content(mapper.writeValueAsString(bookCreateDto))
+                                                         .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors", hasSize(1)))
+               .andExpect(jsonPath("$.errors", hasItem(hasEntry("field", "auctionEndsOn"))))
+               .andExpect(jsonPath("$.errors", hasItem(hasEntry(equalTo("errorCode"), equalTo("auction.not.for.sale")))));
+    }
+
+    @Test
+    void shouldThrow422WhenCreatingBookWithReservePriceWithoutAuction() throws Exception {
+        BookCreateDto bookCreateDto = BookBuilder.getDefaultBook().withForSale(true).withPrice(new BigDecimal("10.00"))
+                                                 .withReservePrice(new BigDecimal("20.00")).buildBookCreateDto();
+
+        mockMvc.perform(post(properties.getBooksApiUrl()).secure(true)
+                                                         .content(mapper.writeValueAsString(bookCreateDto))
+                                                         .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors", hasSize(1)))
+               .andExpect(jsonPath("$.errors", hasItem(hasEntry("field", "reservePrice"))))
+               .andExpect(jsonPath("$.errors", hasItem(hasEntry(equalTo("errorCode"), equalTo("auction.reserve.invalid")))));
+    }
+
     @ParameterizedTest
     @MethodSource("getInvalidForSaleStatus")
     void shouldThrow422WhenCreatingNewBookWithInvalidForSaleStatus(boolean forSale, BigDecimal price) throws Exception {
@@ -1,27 +1,57 @@
 package pl.bookmarket.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlMergeMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import pl.bookmarket.dto.BookCreateDto;
+import pl.bookmarket.dto.OfferBatchCreateDto;
 import pl.bookmarket.dto.OfferCreateDto;
+import pl.bookmarket.model.Genre;
+import pl.bookmarket.service.catalog.ForSaleCatalog;
+import pl.bookmarket.service.catalog.ForSaleFacets;
+import pl.bookmarket.service.market.AuctionCloser;
+import pl.bookmarket.service.market.AuctionOrderBook;
+import pl.bookmarket.service.market.OfferExpirer;
+import pl.bookmarket.service.market.OfferExpiryWheel;
+import pl.bookmarket.service.message.NotificationDrainer;
+import pl.bookmarket.service.stats.MarketStatistics;
 import pl.bookmarket.testhelpers.datafactory.AuthenticationFactory;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
 import pl.bookmarket.testhelpers.datafactory.OfferCreateBuilder;
 import pl.bookmarket.testhelpers.datafactory.UserBuilder;
 import pl.bookmarket.testhelpers.utils.WithAuthenticatedUser;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
@@ -31,6 +61,9 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
@@ -38,7 +71,9 @@ import static org.springframework.test.context.jdbc.SqlMergeMode.MergeMode.MERGE
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static pl.bookmarket.testhelpers.utils.EqualsId.equalsId;
 
@@ -56,6 +91,30 @@ class MarketControllerTest {
     @Autowired
     private ObjectMapper mapper;
 
+    @Autowired
+    private ForSaleCatalog forSaleCatalog;
+
+    @Autowired
+    private ForSaleFacets forSaleFacets;
+
+    @Autowired
+    private AuctionOrderBook auctionOrderBook;
+
+    @Autowired
+    private AuctionCloser auctionCloser;
+
+    @Autowired
+    private OfferExpiryWheel offerExpiryWheel;
+
+    @Autowired
+    private OfferExpirer offerExpirer;
+
+    @Autowired
+    private NotificationDrainer notificationDrainer;
+
+    @Autowired
+    private MarketStatistics marketStatistics;
+
     @Value("${bm.controllers.offer}")
     private String offerControllerUrl;
 
@@ -65,14 +124,168 @@ class MarketControllerTest {
     @Value("${bm.controllers.user}")
     private String userControllerUrl;
 
+    @BeforeEach
+    void rebuildForSaleCatalog() {
+        forSaleCatalog.rebuild();
+        forSaleFacets.rebuild();
+        auctionOrderBook.rebuild();
+        marketStatistics.rebuild();
+    }
+
+    @Test
+    void shouldStreamNewListingsToSubscribers() throws Exception {
+        MvcResult subscription = mockMvc.perform(get(bookControllerUrl + "/forsale/stream").secure(true))
+                                        .andExpect(request().asyncStarted())
+                                        .andReturn();
+        BookCreateDto book = BookBuilder.getDefaultBook().withGenre(new Genre(5L, "Criminal")).withForSale(true)
+                                        .withPrice(new BigDecimal("12.00")).buildBookCreateDto();
+
+        mockMvc.perform(put(bookControllerUrl + "/3").secure(true)
+                                                     .content(mapper.writeValueAsString(book))
+                                                     .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk());
+
+        // events are delivered by the drain threads of the stream, each one in several writes ended by a blank line
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = subscription.getResponse().getContentAsString();
+        while (!(content.contains("event:listing-added") && content.endsWith("\n\n"))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            content = subscription.getResponse().getContentAsString();
+        }
+        assertThat(content, containsString("event:listing-added"));
+        assertThat(content, containsString("\"bookId\":3"));
+        assertThat(content, containsString("\"price\":12.00"));
+    }
+
+    @Test
+    void shouldReturnFacetsOfBooksForSale() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/forsale/facets").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.total", is(2)))
+               .andExpect(jsonPath("$.genres", hasSize(2)))
+               .andExpect(jsonPath("$.genres[0].genreId", equalsId(3L)))
+               .andExpect(jsonPath("$.genres[0].count", is(1)))
+               .andExpect(jsonPath("$.genres[1].genreId", equalsId(5L)))
+               .andExpect(jsonPath("$.genres[1].count", is(1)))
+               .andExpect(jsonPath("$.prices", hasSize(6)))
+               .andExpect(jsonPath("$.prices[0].count", is(1)))
+               .andExpect(jsonPath("$.prices[1].count", is(0)))
+               .andExpect(jsonPath("$.prices[2].count", is(1)))
+               .andExpect(jsonPath("$.prices[5].to", is(nullValue())))
+               .andExpect(jsonPath("$.decades", hasSize(2)))
+               .andExpect(jsonPath("$.decades[0].decade", is(2000)))
+               .andExpect(jsonPath("$.decades[1].decade", is(2020)));
+    }
+
     @Test
     @WithAuthenticatedUser(id = 3)
     void shouldSuccessfullyReturnAllBooksForSale() throws Exception {
         mockMvc.perform(get(bookControllerUrl + "/forsale").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(2)))
-               .andExpect(jsonPath("$", hasItem(hasEntry(equalTo("id"), equalsId(2L)))))
-               .andExpect(jsonPath("$", hasItem(hasEntry(equalTo("id"), equalsId(4L)))));
+               .andExpect(jsonPath("$.content", hasSize(2)))
+               .andExpect(jsonPath("$.content", hasItem(hasEntry(equalTo("id"), equalsId(2L)))))
+               .andExpect(jsonPath("$.content", hasItem(hasEntry(equalTo("id"), equalsId(4L)))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 3)
+    void shouldReturnBooksForSalePageByPageOrderedByPrice() throws Exception {
+        String response = mockMvc.perform(get(bookControllerUrl + "/forsale?size=1").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content", hasSize(1)))
+                                 .andExpect(jsonPath("$.content[0].id", equalsId(2L)))
+                                 .andExpect(jsonPath("$.nextCursor", is(notNullValue())))
+                                 .andReturn().getResponse().getContentAsString();
+        String nextCursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(bookControllerUrl + "/forsale?size=1&cursor=" + nextCursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(4L)))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 3)
+    void shouldReturnBooksForSalePageByPageOrderedById() throws Exception {
+        String response = mockMvc.perform(get(bookControllerUrl + "/forsale?size=1&sort=id").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content", hasSize(1)))
+                                 .andExpect(jsonPath("$.content[0].id", equalsId(2L)))
+                                 .andReturn().getResponse().getContentAsString();
+        String nextCursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(bookControllerUrl + "/forsale?size=1&sort=id&cursor=" + nextCursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(4L)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"genreId=5", "minPrice=10", "maxPrice=10", "author=harlan coben", "publisher=Test Publisher 2",
+            "releasedFrom=2010", "releasedTo=2010"})
+    @WithAuthenticatedUser(id = 3)
+    void shouldReturnFilteredBooksForSale(String filter) throws Exception {
+        Long expectedId = filter.startsWith("genreId") || filter.startsWith("minPrice") || filter.startsWith("author")
+                || filter.startsWith("releasedFrom") ? 4L : 2L;
+
+        mockMvc.perform(get(bookControllerUrl + "/forsale?" + filter).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(expectedId)));
+    }
+
+    @Test
+    void shouldNotReturnOwnBooksAndBooksAlreadyOfferedForSale() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/forsale").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", is(empty())));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET FOR_SALE = true, PRICE = 5.00 WHERE ID = 3", scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldNotReturnBookForSaleAfterMakingAnOfferForIt() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/forsale").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(2)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(3L)))
+               .andExpect(jsonPath("$.content[1].id", equalsId(2L)));
+
+        OfferCreateDto offerCreateDto = new OfferCreateBuilder().withBookId(3L).build();
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(offerCreateDto))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isCreated());
+
+        mockMvc.perform(get(bookControllerUrl + "/forsale").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(2L)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 3)
+    void shouldThrow422WhenGettingBooksForSaleWithCursorOfAnotherSortOrder() throws Exception {
+        String response = mockMvc.perform(get(bookControllerUrl + "/forsale?size=1&sort=id").secure(true))
+                                 .andReturn().getResponse().getContentAsString();
+        String nextCursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(bookControllerUrl + "/forsale?sort=price&cursor=" + nextCursor).secure(true))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("cursor")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("cursor.invalid")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"cursor=invalid", "minPrice=-1"})
+    @WithAuthenticatedUser(id = 3)
+    void shouldThrow422WhenGettingBooksForSaleWithInvalidParameters(String parameter) throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/forsale?" + parameter).secure(true))
+               .andExpect(status().isUnprocessableEntity());
     }
 
     @Test
@@ -135,6 +348,60 @@ class MarketControllerTest {
                .andExpect(status().isForbidden());
     }
 
+    @Test
+    @Sql(statements = {"INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+            + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "UPDATE BOOK SET FOR_SALE = true, PRICE = 5.00 WHERE ID = 3",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (3, null, 3, 2)",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (4, null, 2, 3)",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (5, null, 3, 3)"})
+    @SqlMergeMode(MERGE)
+    void shouldReturnIncomingOffersPageByPageStartingFromNewest() throws Exception {
+        String response = mockMvc.perform(get(userControllerUrl + "/1/incoming-offers?size=2").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id", contains(equalsId(5L), equalsId(4L))))
+                                 .andExpect(jsonPath("$.content[0].book.id", equalsId(3L)))
+                                 .andExpect(jsonPath("$.content[0].buyer.id", equalsId(3L)))
+                                 .andExpect(jsonPath("$.nextCursor", is(notNullValue())))
+                                 .andReturn().getResponse().getContentAsString();
+        String nextCursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(userControllerUrl + "/1/incoming-offers?size=2&cursor=" + nextCursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(3L), equalsId(1L))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    @Sql(statements = {"INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+            + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "UPDATE BOOK SET FOR_SALE = true, PRICE = 5.00 WHERE ID = 3",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (3, null, 3, 2)",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (4, null, 2, 3)",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (5, null, 3, 3)"})
+    @SqlMergeMode(MERGE)
+    void shouldReturnIncomingOffersGroupedByBook() throws Exception {
+        String response = mockMvc.perform(get(userControllerUrl + "/1/incoming-offers?sort=book&size=3").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id", contains(equalsId(4L), equalsId(1L), equalsId(5L))))
+                                 .andReturn().getResponse().getContentAsString();
+        String nextCursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(userControllerUrl + "/1/incoming-offers?sort=book&cursor=" + nextCursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(3L))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+        mockMvc.perform(get(userControllerUrl + "/1/incoming-offers?sort=newest&cursor=" + nextCursor).secure(true))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("cursor.invalid")));
+    }
+
+    @Test
+    void shouldThrow403WhenGettingIncomingOffersForAnotherUser() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/2/incoming-offers").secure(true))
+               .andExpect(status().isForbidden());
+    }
+
     @Test
     void shouldSuccessfullyGetOfferById() throws Exception {
         mockMvc.perform(get(offerControllerUrl + "/2").secure(true))
@@ -156,6 +423,112 @@ class MarketControllerTest {
                .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldThrow403WhenUserGetsMarketStatistics() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/stats").secure(true))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithAuthenticatedUser(roles = "ADMIN")
+    void shouldReturnMarketStatisticsOfBooksForSale() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/stats").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.genres", hasSize(2)))
+               .andExpect(jsonPath("$.genres[0].genreId", equalsId(3L)))
+               .andExpect(jsonPath("$.genres[0].listings", is(1)))
+               .andExpect(jsonPath("$.genres[0].trades", is(0)))
+               .andExpect(jsonPath("$.genres[0].averageAskingPrice", is(8.5)))
+               .andExpect(jsonPath("$.genres[0].averageSecondsToSale", is(nullValue())))
+               .andExpect(jsonPath("$.genres[1].genreId", equalsId(5L)))
+               .andExpect(jsonPath("$.genres[1].listings", is(1)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldCountTradeInMarketStatisticsWhenOfferIsAccepted() throws Exception {
+        mockMvc.perform(post(offerControllerUrl + "/2").secure(true))
+               .andExpect(status().isNoContent());
+
+        Authentication admin = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getAdminUser());
+        mockMvc.perform(get(bookControllerUrl + "/stats").secure(true).with(authentication(admin)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.genres[1].genreId", equalsId(5L)))
+               .andExpect(jsonPath("$.genres[1].listings", is(0)))
+               .andExpect(jsonPath("$.genres[1].trades", is(1)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldRecordTradeInLedgerWhenOfferIsAccepted() throws Exception {
+        mockMvc.perform(post(offerControllerUrl + "/2").secure(true))
+               .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(bookControllerUrl + "/4/history").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].bookId", equalsId(4L)))
+               .andExpect(jsonPath("$.content[0].title", equalTo("Call me Win")))
+               .andExpect(jsonPath("$.content[0].sellerId").doesNotExist())
+               .andExpect(jsonPath("$.content[0].buyerId").doesNotExist())
+               .andExpect(jsonPath("$.content[0].price", is(20.0)))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+
+        mockMvc.perform(get(bookControllerUrl + "/history").param("title", "Call me Win").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].trades", is(1)))
+               .andExpect(jsonPath("$[0].averagePrice", is(20.0)));
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO TRADE (ID, BOOK_ID, TITLE, SELLER_ID, BUYER_ID, PRICE, TRADED_ON, TRADE_MONTH) VALUES "
+            + "(100, 2, 'Harry Potter and the Prisoner of Azkaban', 2, 1, 10.00, '2022-05-03 10:00:00+00', 202205), "
+            + "(101, 2, 'Harry Potter and the Prisoner of Azkaban', 1, 2, 14.00, '2022-05-20 10:00:00+00', 202205), "
+            + "(102, 2, 'Harry Potter and the Prisoner of Azkaban', 2, 1, 9.00, '2022-07-01 10:00:00+00', 202207), "
+            + "(103, 99, 'Harry Potter and the Prisoner of Azkaban', 3, 4, 30.00, '2022-06-15 10:00:00+00', 202206)")
+    @SqlMergeMode(MERGE)
+    void shouldReturnPagedBookHistoryAndMonthlyPriceHistory() throws Exception {
+        String response = mockMvc.perform(get(bookControllerUrl + "/2/history").param("size", "2").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id", contains(102, 101)))
+                                 .andExpect(jsonPath("$.nextCursor", is(notNullValue())))
+                                 .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(bookControllerUrl + "/2/history").param("size", "2").param("cursor", cursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(100)))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+
+        mockMvc.perform(get(bookControllerUrl + "/history").secure(true)
+                                                           .param("title", "Harry Potter and the Prisoner of Azkaban")
+                                                           .param("from", "2022-05")
+                                                           .param("to", "2022-06"))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[*].month", contains("2022-05", "2022-06")))
+               .andExpect(jsonPath("$[0].trades", is(2)))
+               .andExpect(jsonPath("$[0].minPrice", is(10.0)))
+               .andExpect(jsonPath("$[0].maxPrice", is(14.0)))
+               .andExpect(jsonPath("$[0].averagePrice", is(12.0)))
+               .andExpect(jsonPath("$[1].trades", is(1)));
+    }
+
+    @Test
+    void shouldThrow422WhenPriceHistoryRangeIsInvalid() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/history").secure(true)
+                                                           .param("title", "Call me Win")
+                                                           .param("from", "2022-07")
+                                                           .param("to", "2022-05"))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("from")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("history.range.invalid")));
+    }
+
     @Test
     void shouldThrow403WhenGettingOfferOfAnotherUserById() throws Exception {
         mockMvc.perform(get(offerControllerUrl + "/1").secure(true))
@@ -189,12 +562,13 @@ class MarketControllerTest {
                .andExpect(jsonPath("$.book.id", equalsId(offerCreateDto.getBookId())))
                .andExpect(jsonPath("$.buyer.id", equalsId(2L)));
 
+        notificationDrainer.drain();
         mockMvc.perform(get(userControllerUrl + "/2/messages").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(1)))
-               .andExpect(jsonPath("$[0].text", containsString("new.offer")))
-               .andExpect(jsonPath("$[0].sender.id", equalsId(2L)))
-               .andExpect(jsonPath("$[0].receiver.id", equalsId(1L)));
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].text", containsString("new.offer")))
+               .andExpect(jsonPath("$.content[0].sender.id", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].receiver.id", equalsId(1L)));
     }
 
     @Test
@@ -264,6 +638,312 @@ class MarketControllerTest {
                .andExpect(jsonPath("$.errors", hasItem(hasEntry(equalTo("errorCode"), equalTo("offer.exists.for.user")))));
     }
 
+    @Test
+    @Sql(statements = "UPDATE BOOK SET FOR_SALE = true, PRICE = 5.00 WHERE ID = 3",
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldCreateOnlyOneOfConcurrentlyAddedOffersOfTheSameUser() throws Exception {
+        String offer = mapper.writeValueAsString(new OfferCreateBuilder().withBookId(3L).build());
+        Authentication buyer = AuthenticationFactory.getAuthenticatedUser(2L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+
+        for (int i = 0; i < 16; i++) {
+            responses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                               .with(authentication(buyer))
+                                                               .content(offer)
+                                                               .contentType(MediaType.APPLICATION_JSON))
+                              .andReturn().getResponse();
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<MockHttpServletResponse> future : responses) {
+            MockHttpServletResponse response = future.get();
+            if (response.getStatus() == HttpStatus.CREATED.value()) {
+                created++;
+            } else {
+                assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), response.getStatus());
+                assertTrue(response.getContentAsString().contains("offer.exists.for.user"));
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        mockMvc.perform(get(bookControllerUrl + "/3/offers").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', 1, CURRENT_TIMESTAMP), RESERVE_PRICE = 15.00 "
+            + "WHERE ID = 2", scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldSuccessfullyPlaceBidInAuction() throws Exception {
+        OfferCreateDto bid = new OfferCreateBuilder().withBookId(2L).withAmount(new BigDecimal("12.00")).build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(bid))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.amount", is(closeTo(new BigDecimal("12.00"), new BigDecimal("0.00"))), BigDecimal.class));
+
+        mockMvc.perform(get(bookControllerUrl + "/2/auction").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.bookId", equalsId(2L)))
+               .andExpect(jsonPath("$.endsOn", is(notNullValue())))
+               .andExpect(jsonPath("$.startingPrice", is(closeTo(new BigDecimal("8.50"), new BigDecimal("0.00"))), BigDecimal.class))
+               .andExpect(jsonPath("$.highestBid", is(closeTo(new BigDecimal("12.00"), new BigDecimal("0.00"))), BigDecimal.class))
+               .andExpect(jsonPath("$.bidCount", is(1)))
+               .andExpect(jsonPath("$.reserveMet", is(false)))
+               .andExpect(jsonPath("$.ladder", hasSize(1)))
+               .andExpect(jsonPath("$.reservePrice").doesNotExist());
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', 1, CURRENT_TIMESTAMP) WHERE ID = 2",
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenBidIsLowerThanStartingPrice() throws Exception {
+        OfferCreateDto bid = new OfferCreateBuilder().withBookId(2L).withAmount(new BigDecimal("8.00")).build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(bid))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("amount")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("offer.amount.too.low")));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = {"INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+            + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', 1, CURRENT_TIMESTAMP) WHERE ID = 2",
+            "INSERT INTO OFFER (ID, COMMENT, AMOUNT, BOOK_ID, BUYER_ID) VALUES (100, null, 10.00, 2, 3)"},
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenBidIsNotHigherThanHighestBid() throws Exception {
+        auctionOrderBook.rebuild();
+        OfferCreateDto bid = new OfferCreateBuilder().withBookId(2L).withAmount(new BigDecimal("10.00")).build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(bid))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("amount")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("offer.amount.too.low")));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', 1, CURRENT_TIMESTAMP) WHERE ID = 2",
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenBidHasNoAmount() throws Exception {
+        OfferCreateDto bid = new OfferCreateBuilder().withBookId(2L).build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(bid))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("amount")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("offer.amount.required")));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenOfferForBookWithFixedPriceHasAmount() throws Exception {
+        OfferCreateDto offer = new OfferCreateBuilder().withBookId(2L).withAmount(new BigDecimal("1.00")).build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(offer))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("amount")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("offer.amount.not.allowed")));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', -1, CURRENT_TIMESTAMP) WHERE ID = 2",
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenBiddingInEndedAuction() throws Exception {
+        OfferCreateDto bid = new OfferCreateBuilder().withBookId(2L).withAmount(new BigDecimal("12.00")).build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(bid))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("book")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("auction.closed")));
+    }
+
+    @Test
+    void shouldThrow404WhenGettingAuctionOfBookWhichIsNotAuctioned() throws Exception {
+        mockMvc.perform(get(bookControllerUrl + "/2/auction").secure(true))
+               .andExpect(status().isNotFound())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("auction.id")));
+    }
+
+    @Test
+    @Sql(statements = {"UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', -1, CURRENT_TIMESTAMP) WHERE ID = 2",
+            "INSERT INTO OFFER (ID, COMMENT, AMOUNT, BOOK_ID, BUYER_ID) VALUES (100, null, 9.00, 2, 2)"},
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldSellBookToHighestBidderWhenAuctionEnds() throws Exception {
+        auctionOrderBook.rebuild();
+        auctionCloser.closeEndedAuctions();
+
+        Authentication admin = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getAdminUser());
+        mockMvc.perform(get(bookControllerUrl + "/2").secure(true).with(authentication(admin)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.owner.id", equalsId(2L)))
+               .andExpect(jsonPath("$.forSale", is(false)))
+               .andExpect(jsonPath("$.auctionEndsOn", is(nullValue())));
+        mockMvc.perform(get(bookControllerUrl + "/2/auction").secure(true))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Sql(statements = {"UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', -1, CURRENT_TIMESTAMP), RESERVE_PRICE = 15.00 "
+            + "WHERE ID = 2", "INSERT INTO OFFER (ID, COMMENT, AMOUNT, BOOK_ID, BUYER_ID) VALUES (100, null, 9.00, 2, 2)"},
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldKeepBookForSaleWhenAuctionEndsBelowReservePrice() throws Exception {
+        auctionOrderBook.rebuild();
+        auctionCloser.closeEndedAuctions();
+
+        mockMvc.perform(get(bookControllerUrl + "/2").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.owner.id", equalsId(1L)))
+               .andExpect(jsonPath("$.forSale", is(true)))
+               .andExpect(jsonPath("$.auctionEndsOn", is(nullValue())));
+        mockMvc.perform(get(bookControllerUrl + "/2/offers").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET FOR_SALE = true, PRICE = 5.00 WHERE ID = 3",
+            scripts = {"/deleteMessages.sql", "/deleteOffers.sql"})
+    @SqlMergeMode(MERGE)
+    void shouldAddValidOffersOfBatchAndReportInvalidOnes() throws Exception {
+        OfferBatchCreateDto batch = new OfferBatchCreateDto();
+        batch.setOffers(Arrays.asList(new OfferCreateBuilder().withBookId(2L).withComment("First offer").build(),
+                                      new OfferCreateBuilder().withBookId(3L).build(),
+                                      new OfferCreateBuilder().withBookId(2L).build(),
+                                      new OfferCreateBuilder().withBookId(4L).build(),
+                                      new OfferCreateBuilder().withBookId(999L).build(),
+                                      new OfferCreateBuilder().withBookId(1L).build()));
+
+        mockMvc.perform(post(offerControllerUrl + "/batch").secure(true)
+                                                           .content(mapper.writeValueAsString(batch))
+                                                           .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(6)))
+               .andExpect(jsonPath("$[0].success", is(true)))
+               .andExpect(jsonPath("$[0].item.id", is(notNullValue())))
+               .andExpect(jsonPath("$[0].item.book.id", equalsId(2L)))
+               .andExpect(jsonPath("$[0].item.comment", equalTo("First offer")))
+               .andExpect(jsonPath("$[1].success", is(true)))
+               .andExpect(jsonPath("$[1].item.book.id", equalsId(3L)))
+               .andExpect(jsonPath("$[2].index", is(2)))
+               .andExpect(jsonPath("$[2].success", is(false)))
+               .andExpect(jsonPath("$[2].error.errorCode", equalTo("offer.exists.for.user")))
+               .andExpect(jsonPath("$[3].error.errorCode", equalTo("own.book.offer")))
+               .andExpect(jsonPath("$[4].error.field", equalTo("book.id")))
+               .andExpect(jsonPath("$[4].error.errorCode", equalTo("not.found")))
+               .andExpect(jsonPath("$[5].error.errorCode", equalTo("book.not.for.sale")));
+
+        mockMvc.perform(get(userControllerUrl + "/2/offers").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(2)));
+        notificationDrainer.drain();
+        Authentication seller = AuthenticationFactory.getAuthenticatedUser(1L);
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true).with(authentication(seller)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(2)))
+               .andExpect(jsonPath("$.content[*].text",
+                                   containsInAnyOrder("{new.offer} \"Harry Potter and the Prisoner of Azkaban\"",
+                                                      "{new.offer} \"Lord of the Rings: Return of the King\"")));
+    }
+
+    @Test
+    void shouldThrow422WhenAddingEmptyBatchOfOffers() throws Exception {
+        OfferBatchCreateDto batch = new OfferBatchCreateDto();
+        batch.setOffers(Collections.emptyList());
+
+        mockMvc.perform(post(offerControllerUrl + "/batch").secure(true)
+                                                           .content(mapper.writeValueAsString(batch))
+                                                           .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("offers")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("field.blank")));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    void shouldThrow422WhenAddingOfferWhichHasAlreadyExpired() throws Exception {
+        OfferCreateDto offerCreateDto = new OfferCreateBuilder().withBookId(2L)
+                                                                .withExpiresOn(OffsetDateTime.now().minusMinutes(1))
+                                                                .build();
+
+        mockMvc.perform(post(offerControllerUrl).secure(true)
+                                                .content(mapper.writeValueAsString(offerCreateDto))
+                                                .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors", hasItem(hasEntry(equalTo("field"), equalTo("expiresOn")))))
+               .andExpect(jsonPath("$.errors", hasItem(hasEntry(equalTo("errorCode"), equalTo("offer.expiry.invalid")))));
+    }
+
+    @Test
+    @Sql(statements = {"UPDATE BOOK SET FOR_SALE = true, PRICE = 5.00 WHERE ID = 1",
+            "UPDATE OFFER SET EXPIRES_ON = DATEADD('HOUR', -1, CURRENT_TIMESTAMP) WHERE ID = 2",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID, EXPIRES_ON) "
+                    + "VALUES (100, null, 1, 1, DATEADD('MINUTE', -1, CURRENT_TIMESTAMP))"},
+            scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldRemoveExpiredOffersAndNotifyEachBuyerOnce() throws Exception {
+        offerExpiryWheel.rebuild();
+        offerExpirer.expireOffers();
+        notificationDrainer.drain();
+
+        mockMvc.perform(get(userControllerUrl + "/1/offers").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", is(empty())));
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].sender.id", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].text", containsString("{offers.expired}")))
+               .andExpect(jsonPath("$.content[0].text", containsString("Call me Win")))
+               .andExpect(jsonPath("$.content[0].text", containsString("Knights of the Cross")));
+        mockMvc.perform(get(bookControllerUrl + "/2/offers").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    @Sql(statements = "UPDATE OFFER SET EXPIRES_ON = DATEADD('MINUTE', -1, CURRENT_TIMESTAMP) WHERE ID = 1")
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenAcceptingExpiredOffer() throws Exception {
+        mockMvc.perform(post(offerControllerUrl + "/1").secure(true))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("offer")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("offer.expired")));
+    }
+
     @Test
     @Sql(value = "/deleteMessages.sql", executionPhase = BEFORE_TEST_METHOD)
     @SqlMergeMode(MERGE)
@@ -274,7 +954,7 @@ class MarketControllerTest {
                .andExpect(jsonPath("$.id", equalsId(1L)));
         mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", is(empty())));
+               .andExpect(jsonPath("$.content", is(empty())));
         mockMvc.perform(get(bookControllerUrl + "/2").secure(true))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.id", equalsId(2L)))
@@ -287,12 +967,13 @@ class MarketControllerTest {
 
         mockMvc.perform(get(offerControllerUrl + "/1").secure(true))
                .andExpect(status().isNotFound());
+        notificationDrainer.drain();
         mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(1)))
-               .andExpect(jsonPath("$[0].text", containsString("book.bought")))
-               .andExpect(jsonPath("$[0].sender.id", equalsId(1L)))
-               .andExpect(jsonPath("$[0].receiver.id", equalsId(2L)));
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].text", containsString("book.bought")))
+               .andExpect(jsonPath("$.content[0].sender.id", equalsId(1L)))
+               .andExpect(jsonPath("$.content[0].receiver.id", equalsId(2L)));
         mockMvc.perform(get(bookControllerUrl + "/2").secure(true).with(authentication(admin)))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$.id", equalsId(2L)))
@@ -301,6 +982,39 @@ class MarketControllerTest {
                .andExpect(jsonPath("$.price", is(nullValue())));
     }
 
+    @Test
+    @Sql(statements = {"INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+            + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (3, null, 2, 3)"},
+            scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldNotifyBuyersOfOtherOffersWhenAcceptingOffer() throws Exception {
+        mockMvc.perform(post(offerControllerUrl + "/1").secure(true))
+               .andExpect(status().isNoContent());
+        notificationDrainer.drain();
+
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(2)))
+               .andExpect(jsonPath("$.content[?(@.receiver.id == 2)].text", contains(containsString("book.bought"))))
+               .andExpect(jsonPath("$.content[?(@.receiver.id == 3)].text",
+                                   contains("{book.sold}: Harry Potter and the Prisoner of Azkaban")))
+               .andExpect(jsonPath("$.content[?(@.receiver.id == 3)].sender.id", contains(equalsId(1L))));
+        mockMvc.perform(get(offerControllerUrl + "/3").secure(true))
+               .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = "UPDATE BOOK SET FOR_SALE = false, PRICE = null WHERE ID = 4")
+    @SqlMergeMode(MERGE)
+    void shouldThrow409WhenAcceptingOfferForBookWhichIsNoLongerForSale() throws Exception {
+        mockMvc.perform(post(offerControllerUrl + "/2").secure(true))
+               .andExpect(status().isConflict())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("book")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("book.already.sold")));
+    }
+
     @Test
     void shouldThrow404WhenAcceptingNonExistentOffer() throws Exception {
         mockMvc.perform(post(offerControllerUrl + "/999").secure(true))
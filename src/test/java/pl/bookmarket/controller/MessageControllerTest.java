@@ -14,15 +14,25 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlMergeMode;
 import org.springframework.test.web.servlet.MockMvc;
 import org.thymeleaf.util.StringUtils;
+import pl.bookmarket.dao.MessageArchiveSegmentDao;
 import pl.bookmarket.dto.MessageCreateDto;
+import pl.bookmarket.dto.BroadcastCreateDto;
+import pl.bookmarket.service.message.BroadcastJob;
+import pl.bookmarket.service.message.BroadcastSender;
+import pl.bookmarket.service.message.MessageArchive;
+import pl.bookmarket.service.message.MessageArchiver;
+import pl.bookmarket.service.message.UnreadMessageCounters;
+import pl.bookmarket.testhelpers.datafactory.AuthenticationFactory;
 import pl.bookmarket.testhelpers.datafactory.MessageBuilder;
 import pl.bookmarket.testhelpers.datafactory.UserBuilder;
 import pl.bookmarket.testhelpers.utils.WithAuthenticatedUser;
 
+import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.List;
 
@@ -32,9 +42,13 @@ import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.test.context.jdbc.SqlMergeMode.MergeMode.MERGE;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -59,6 +73,24 @@ class MessageControllerTest {
     @Autowired
     private ObjectMapper mapper;
 
+    @Autowired
+    private UnreadMessageCounters unreadMessageCounters;
+
+    @Autowired
+    private BroadcastSender broadcastSender;
+
+    @Autowired
+    private BroadcastJob broadcastJob;
+
+    @Autowired
+    private MessageArchiver messageArchiver;
+
+    @Autowired
+    private MessageArchive messageArchive;
+
+    @Autowired
+    private MessageArchiveSegmentDao segmentDao;
+
     @Value("${bm.controllers.message}")
     private String messageControllerUrl;
 
@@ -71,16 +103,60 @@ class MessageControllerTest {
     void shouldSuccessfullyReturnAllMessagesForGivenUser(String filter) throws Exception {
         mockMvc.perform(get(userControllerUrl + "/1/messages" + filter).secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(3)));
+               .andExpect(jsonPath("$.content", hasSize(3)));
+    }
+
+    @Test
+    void shouldReturnAllMessagesPageByPageNewestFirst() throws Exception {
+        String response = mockMvc.perform(get(userControllerUrl + "/1/messages?size=2").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id", contains(equalsId(3L), equalsId(2L))))
+                                 .andExpect(jsonPath("$.nextCursor", is(notNullValue())))
+                                 .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(userControllerUrl + "/1/messages?size=2&cursor=" + cursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(1L))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = {"INSERT INTO MESSAGE (ID, IS_READ, SENT_ON, TEXT, RECEIVER_ID, SENDER_ID) "
+            + "VALUES (100, false, '2022-05-01 10:00:00+01', 'Oldest unread', 2, 1)",
+            "INSERT INTO MESSAGE (ID, IS_READ, SENT_ON, TEXT, RECEIVER_ID, SENDER_ID) "
+                    + "VALUES (101, true, '2022-06-20 10:00:00+01', 'Newest read', 2, 1)"})
+    @SqlMergeMode(MERGE)
+    void shouldMergeReadAndUnreadMessagesIntoReceivedPages() throws Exception {
+        String response = mockMvc.perform(get(userControllerUrl + "/2/messages?filter=received&size=3").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id",
+                                                     contains(equalsId(101L), equalsId(3L), equalsId(1L))))
+                                 .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(response).get("nextCursor").asText();
+
+        mockMvc.perform(get(userControllerUrl + "/2/messages?filter=received&size=3&cursor=" + cursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(100L))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    void shouldThrow422WhenMessagesCursorIsInvalid() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/1/messages?cursor=invalid").secure(true))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("cursor")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("cursor.invalid")));
     }
 
     @Test
     void shouldSuccessfullyReturnReceivedMessagesForGivenUser() throws Exception {
         mockMvc.perform(get(userControllerUrl + "/1/messages?filter=received").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(1)))
-               .andExpect(jsonPath("$[0].id", equalsId(2L)))
-               .andExpect(jsonPath("$[0].text", equalTo("Thanks, I am fine :)")));
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].text", equalTo("Thanks, I am fine :)")));
     }
 
     @Test
@@ -88,10 +164,10 @@ class MessageControllerTest {
     void shouldSuccessfullyReturnUnreadMessagesForGivenUser() throws Exception {
         mockMvc.perform(get(userControllerUrl + "/2/messages?filter=unread").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(1)))
-               .andExpect(jsonPath("$[0].id", equalsId(3L)))
-               .andExpect(jsonPath("$[0].text", equalTo("Please check my books for sale.")))
-               .andExpect(jsonPath("$[0].read", is(false)));
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].id", equalsId(3L)))
+               .andExpect(jsonPath("$.content[0].text", equalTo("Please check my books for sale.")))
+               .andExpect(jsonPath("$.content[0].read", is(false)));
     }
 
     @Test
@@ -232,7 +308,8 @@ class MessageControllerTest {
     }
 
     @Test
-    @Sql(statements = "UPDATE MESSAGE SET IS_READ = FALSE;", executionPhase = BEFORE_TEST_METHOD)
+    @Sql(statements = {"UPDATE MESSAGE SET IS_READ = FALSE", "UPDATE CONVERSATION SET UNREAD_COUNT = 1 WHERE OWNER_ID = 1"},
+            executionPhase = BEFORE_TEST_METHOD)
     @SqlMergeMode(MERGE)
     void shouldSuccessfullySetMessagesWithCurrentUserBeingReceiverAsRead() throws Exception {
         List<Long> messageIds = Arrays.asList(1L, 2L, 3L);
@@ -244,8 +321,37 @@ class MessageControllerTest {
 
         mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$[*].id", contains(equalsId(1L), equalsId(2L), equalsId(3L))))
-               .andExpect(jsonPath("$[*].read", contains(is(false), is(true), is(false))));
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(3L), equalsId(2L), equalsId(1L))))
+               .andExpect(jsonPath("$.content[*].read", contains(is(false), is(true), is(false))));
+        mockMvc.perform(get(userControllerUrl + "/1/conversations").secure(true))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(0)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    @Sql(statements = {"INSERT INTO MESSAGE (ID, IS_READ, SENT_ON, TEXT, RECEIVER_ID, SENDER_ID) "
+            + "VALUES (100, false, CURRENT_TIMESTAMP, 'Newer unread', 2, 1)",
+            "UPDATE CONVERSATION SET UNREAD_COUNT = 2 WHERE OWNER_ID = 2"})
+    @SqlMergeMode(MERGE)
+    void shouldSetAllMessagesReadUpToGivenMessage() throws Exception {
+        unreadMessageCounters.rebuild();
+
+        mockMvc.perform(patch(userControllerUrl + "/2/messages?upTo=3").secure(true))
+               .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(userControllerUrl + "/2/messages?filter=unread").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(100L))));
+        mockMvc.perform(get(userControllerUrl + "/2/messages/unread-count").secure(true))
+               .andExpect(jsonPath("$.count", is(1)));
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(1)));
+    }
+
+    @Test
+    void shouldThrow403WhenSettingAllMessagesReadForAnotherUser() throws Exception {
+        mockMvc.perform(patch(userControllerUrl + "/2/messages?upTo=3").secure(true))
+               .andExpect(status().isForbidden());
     }
 
     @Test
@@ -254,6 +360,20 @@ class MessageControllerTest {
                .andExpect(status().isNoContent());
     }
 
+    @Test
+    void shouldKeepConversationWithArchivedMessagesWhenLastMessageIsDeleted() throws Exception {
+        messageArchive.archive(OffsetDateTime.now(), 10);
+
+        mockMvc.perform(delete(messageControllerUrl + "/3").secure(true))
+               .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(userControllerUrl + "/1/conversations").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].lastMessageId", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].lastMessageText", equalTo("Thanks, I am fine :)")));
+    }
+
     @Test
     void shouldThrow404WhenDeletingNonExistentMessage() throws Exception {
         mockMvc.perform(delete(messageControllerUrl + "/999").secure(true))
@@ -266,6 +386,336 @@ class MessageControllerTest {
                .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    void shouldReturnUnreadMessageCount() throws Exception {
+        unreadMessageCounters.rebuild();
+
+        mockMvc.perform(get(userControllerUrl + "/2/messages/unread-count").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.count", is(1)));
+    }
+
+    @Test
+    void shouldThrow403WhenGettingUnreadMessageCountOfAnotherUser() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/2/messages/unread-count").secure(true))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Sql(value = "/deleteMessages.sql", executionPhase = BEFORE_TEST_METHOD)
+    @SqlMergeMode(MERGE)
+    void shouldUpdateUnreadMessageCountWhenMessagesAreSentDeletedAndRead() throws Exception {
+        unreadMessageCounters.rebuild();
+        Authentication receiver = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(2L));
+        String message = mapper.writeValueAsString(MessageBuilder.getDefaultMessage().buildMessageCreateDto());
+        long firstId = mapper.readTree(mockMvc.perform(post(messageControllerUrl).secure(true).content(message)
+                                                                                .contentType(MediaType.APPLICATION_JSON))
+                                              .andReturn().getResponse().getContentAsString()).get("id").asLong();
+        long secondId = mapper.readTree(mockMvc.perform(post(messageControllerUrl).secure(true).content(message)
+                                                                                 .contentType(MediaType.APPLICATION_JSON))
+                                               .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(get(userControllerUrl + "/2/messages/unread-count").secure(true).with(authentication(receiver)))
+               .andExpect(jsonPath("$.count", is(2)));
+
+        mockMvc.perform(delete(messageControllerUrl + "/" + firstId).secure(true))
+               .andExpect(status().isNoContent());
+        mockMvc.perform(get(userControllerUrl + "/2/messages/unread-count").secure(true).with(authentication(receiver)))
+               .andExpect(jsonPath("$.count", is(1)));
+
+        mockMvc.perform(patch(messageControllerUrl).secure(true).with(authentication(receiver))
+                                                   .content(mapper.writeValueAsString(Arrays.asList(secondId)))
+                                                   .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent());
+        mockMvc.perform(get(userControllerUrl + "/2/messages/unread-count").secure(true).with(authentication(receiver)))
+               .andExpect(jsonPath("$.count", is(0)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(id = 2)
+    void shouldReturnConversationsOfUser() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].peer.id", equalsId(1L)))
+               .andExpect(jsonPath("$.content[0].lastMessageId", equalsId(3L)))
+               .andExpect(jsonPath("$.content[0].lastMessageSent", is(false)))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(1)))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    void shouldThrow403WhenGettingConversationsOfAnotherUser() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Sql(value = "/deleteMessages.sql", executionPhase = BEFORE_TEST_METHOD)
+    @SqlMergeMode(MERGE)
+    void shouldUpdateConversationsWhenMessagesAreSentAndRead() throws Exception {
+        Authentication receiver = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(2L));
+        MessageCreateDto messageCreateDto = MessageBuilder.getDefaultMessage().withText("First").buildMessageCreateDto();
+        mockMvc.perform(post(messageControllerUrl).secure(true)
+                                                  .content(mapper.writeValueAsString(messageCreateDto))
+                                                  .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isCreated());
+        messageCreateDto.setText("Second");
+        String response = mockMvc.perform(post(messageControllerUrl).secure(true)
+                                                                    .content(mapper.writeValueAsString(messageCreateDto))
+                                                                    .contentType(MediaType.APPLICATION_JSON))
+                                 .andExpect(status().isCreated())
+                                 .andReturn().getResponse().getContentAsString();
+        long lastMessageId = mapper.readTree(response).get("id").asLong();
+
+        mockMvc.perform(get(userControllerUrl + "/1/conversations").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].lastMessageId", equalsId(lastMessageId)))
+               .andExpect(jsonPath("$.content[0].lastMessageText", equalTo("Second")))
+               .andExpect(jsonPath("$.content[0].lastMessageSent", is(true)))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(0)));
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true).with(authentication(receiver)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].lastMessageSent", is(false)))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(2)));
+
+        mockMvc.perform(patch(messageControllerUrl).secure(true).with(authentication(receiver))
+                                                   .content(mapper.writeValueAsString(Arrays.asList(lastMessageId)))
+                                                   .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true).with(authentication(receiver)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].unreadCount", is(1)));
+    }
+
+    @Test
+    void shouldReplaceLastMessageOfConversationWhenItIsDeleted() throws Exception {
+        Authentication receiver = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(2L));
+
+        mockMvc.perform(delete(messageControllerUrl + "/3").secure(true))
+               .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(userControllerUrl + "/1/conversations").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].lastMessageId", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].lastMessageText", equalTo("Thanks, I am fine :)")))
+               .andExpect(jsonPath("$.content[0].lastMessageSent", is(false)));
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true).with(authentication(receiver)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].lastMessageId", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].lastMessageSent", is(true)))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(0)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(roles = {"USER", "ADMIN"})
+    @Sql(statements = {"INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+            + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "INSERT INTO BROADCAST (ID, SENDER_ID, TEXT, STATUS, LAST_USER_ID, SENT_COUNT, USER_COUNT, CREATED_ON) "
+                    + "VALUES (100, 1, 'Maintenance tonight', 'RUNNING', 0, 0, 2, CURRENT_TIMESTAMP)"},
+            scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldResumeBroadcastAfterLastSentChunk() throws Exception {
+        Authentication thirdUser = AuthenticationFactory.getAuthenticatedUser(3L);
+
+        assertTrue(broadcastSender.sendNextChunk(100L, 1));
+        mockMvc.perform(get(messageControllerUrl + "/broadcasts/100").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.status", equalTo("RUNNING")))
+               .andExpect(jsonPath("$.sentCount", is(1)))
+               .andExpect(jsonPath("$.userCount", is(2)));
+
+        broadcastJob.run(100L);
+
+        mockMvc.perform(get(messageControllerUrl + "/broadcasts/100").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.status", equalTo("COMPLETED")))
+               .andExpect(jsonPath("$.sentCount", is(2)))
+               .andExpect(jsonPath("$.completedOn", is(notNullValue())));
+        mockMvc.perform(get(userControllerUrl + "/3/messages").secure(true).with(authentication(thirdUser)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].text", equalTo("Maintenance tonight")))
+               .andExpect(jsonPath("$.content[0].sender.id", equalsId(1L)));
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(2)));
+    }
+
+    @Test
+    @Sql(statements = {"INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+            + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "INSERT INTO BROADCAST (ID, SENDER_ID, TEXT, STATUS, LAST_USER_ID, SENT_COUNT, USER_COUNT, CREATED_ON) "
+                    + "VALUES (100, 1, 'Maintenance tonight', 'RUNNING', 0, 0, 2, CURRENT_TIMESTAMP)",
+            "INSERT INTO CONVERSATION (ID, OWNER_ID, PEER_ID, LAST_MESSAGE_ID, LAST_MESSAGE_TEXT, LAST_MESSAGE_SENT, "
+                    + "LAST_ACTIVITY, UNREAD_COUNT) VALUES (100, 1, 2, 99, 'Hi', true, CURRENT_TIMESTAMP, 0), "
+                    + "(101, 2, 1, 99, 'Hi', false, CURRENT_TIMESTAMP, 1)",
+            "ALTER SEQUENCE CONVERSATION_SEQUENCE RESTART WITH 200"},
+            scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldUpdateExistingAndCreateMissingConversationsOfBroadcast() throws Exception {
+        Authentication secondUser = AuthenticationFactory.getAuthenticatedUser(2L);
+        Authentication thirdUser = AuthenticationFactory.getAuthenticatedUser(3L);
+
+        broadcastJob.run(100L);
+
+        mockMvc.perform(get(userControllerUrl + "/1/conversations").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(2)))
+               .andExpect(jsonPath("$.content[*].lastMessageText", contains("Maintenance tonight", "Maintenance tonight")))
+               .andExpect(jsonPath("$.content[*].lastMessageSent", contains(true, true)))
+               .andExpect(jsonPath("$.content[*].unreadCount", contains(0, 0)));
+        mockMvc.perform(get(userControllerUrl + "/2/conversations").secure(true).with(authentication(secondUser)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].lastMessageText", equalTo("Maintenance tonight")))
+               .andExpect(jsonPath("$.content[0].lastMessageSent", is(false)))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(2)));
+        mockMvc.perform(get(userControllerUrl + "/3/conversations").secure(true).with(authentication(thirdUser)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].peer.id", equalsId(1L)))
+               .andExpect(jsonPath("$.content[0].unreadCount", is(1)));
+    }
+
+    @Test
+    @WithAuthenticatedUser(roles = {"USER", "ADMIN"})
+    @Sql(value = "/deleteMessages.sql", executionPhase = BEFORE_TEST_METHOD)
+    @SqlMergeMode(MERGE)
+    void shouldSendBroadcastToEveryUserButSender() throws Exception {
+        Authentication receiver = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(2L));
+        BroadcastCreateDto broadcast = new BroadcastCreateDto();
+        broadcast.setText("New books every day!");
+
+        String response = mockMvc.perform(post(messageControllerUrl + "/broadcasts").secure(true)
+                                                                                  .content(mapper.writeValueAsString(broadcast))
+                                                                                  .contentType(MediaType.APPLICATION_JSON))
+                                 .andExpect(status().isAccepted())
+                                 .andExpect(jsonPath("$.id", is(notNullValue())))
+                                 .andExpect(jsonPath("$.status", equalTo("RUNNING")))
+                                 .andExpect(jsonPath("$.userCount", is(1)))
+                                 .andReturn().getResponse().getContentAsString();
+        Long id = mapper.readTree(response).get("id").asLong();
+
+        // the background run of the broadcast, if it's still in progress, is finished first
+        broadcastJob.run(id);
+
+        mockMvc.perform(get(userControllerUrl + "/2/messages").secure(true).with(authentication(receiver)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].text", equalTo("New books every day!")));
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)));
+    }
+
+    @Test
+    void shouldThrow403WhenRegularUserStartsBroadcast() throws Exception {
+        BroadcastCreateDto broadcast = new BroadcastCreateDto();
+        broadcast.setText("Hello everyone");
+
+        mockMvc.perform(post(messageControllerUrl + "/broadcasts").secure(true)
+                                                                  .content(mapper.writeValueAsString(broadcast))
+                                                                  .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithAuthenticatedUser(roles = {"USER", "ADMIN"})
+    @Sql(statements = "INSERT INTO BROADCAST (ID, SENDER_ID, TEXT, STATUS, LAST_USER_ID, SENT_COUNT, USER_COUNT, "
+            + "CREATED_ON, COMPLETED_ON) VALUES (100, 1, 'Done', 'COMPLETED', 2, 1, 1, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+            scripts = "/deleteMessages.sql")
+    @SqlMergeMode(MERGE)
+    void shouldThrow422WhenResumingCompletedBroadcast() throws Exception {
+        mockMvc.perform(post(messageControllerUrl + "/broadcasts/100/resume").secure(true))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("broadcast.not.running")));
+    }
+
+    @Test
+    void shouldMoveOldReadMessagesToArchive() throws Exception {
+        Authentication receiver = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(2L));
+
+        messageArchiver.archiveMessages();
+
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(3L))));
+        String response = mockMvc.perform(get(userControllerUrl + "/1/messages/archive?size=1").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id", contains(equalsId(2L))))
+                                 .andExpect(jsonPath("$.content[0].text", equalTo("Thanks, I am fine :)")))
+                                 .andExpect(jsonPath("$.content[0].sender.id", equalsId(2L)))
+                                 .andExpect(jsonPath("$.content[0].sender.login", equalTo("TestUser2")))
+                                 .andExpect(jsonPath("$.nextCursor", is(notNullValue())))
+                                 .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(response).get("nextCursor").asText();
+        mockMvc.perform(get(userControllerUrl + "/1/messages/archive?size=1&cursor=" + cursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(1L))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+        mockMvc.perform(get(userControllerUrl + "/2/messages/archive").secure(true).with(authentication(receiver)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(2L), equalsId(1L))));
+        // the conversation keeps its last message, which is still unread
+        mockMvc.perform(get(userControllerUrl + "/1/conversations").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[0].lastMessageId", equalsId(3L)));
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO MESSAGE (ID, IS_READ, SENT_ON, TEXT, RECEIVER_ID, SENDER_ID) "
+            + "VALUES (100, true, '2022-05-08 18:00:00+01', 'Are you there?', 2, 1)")
+    @SqlMergeMode(MERGE)
+    void shouldMergeArchivedMessagesIntoSingleSegmentPerMonth() throws Exception {
+        OffsetDateTime now = OffsetDateTime.now();
+        assertEquals(2, messageArchive.archive(now, 2));
+        assertEquals(1, messageArchive.archive(now, 2));
+
+        assertEquals(2, segmentDao.count());
+        String response = mockMvc.perform(get(userControllerUrl + "/1/messages/archive?size=2").secure(true))
+                                 .andExpect(status().isOk())
+                                 .andExpect(jsonPath("$.content[*].id", contains(equalsId(2L), equalsId(100L))))
+                                 .andReturn().getResponse().getContentAsString();
+        String cursor = mapper.readTree(response).get("nextCursor").asText();
+        mockMvc.perform(get(userControllerUrl + "/1/messages/archive?size=2&cursor=" + cursor).secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(1L))))
+               .andExpect(jsonPath("$.nextCursor", is(nullValue())));
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO MESSAGE (ID, IS_READ, SENT_ON, TEXT, RECEIVER_ID, SENDER_ID) "
+            + "VALUES (100, true, '2022-05-10 18:00:00+01', 'Are you there?', 2, 1)")
+    @SqlMergeMode(MERGE)
+    void shouldPrependNewerArchivedMessagesToSegment() throws Exception {
+        OffsetDateTime now = OffsetDateTime.now();
+        assertEquals(2, messageArchive.archive(now, 2));
+        assertEquals(1, messageArchive.archive(now, 2));
+
+        assertEquals(2, segmentDao.count());
+        segmentDao.findAll().forEach(segment -> assertEquals(3, segment.getMessageCount()));
+        mockMvc.perform(get(userControllerUrl + "/1/messages/archive").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content[*].id", contains(equalsId(100L), equalsId(2L), equalsId(1L))));
+    }
+
+    @Test
+    void shouldThrow403WhenReadingArchiveOfAnotherUser() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/2/messages/archive").secure(true))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldThrow422WhenArchiveCursorIsInvalid() throws Exception {
+        mockMvc.perform(get(userControllerUrl + "/1/messages/archive?cursor=invalid").secure(true))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("cursor.invalid")));
+    }
+
     private static List<String> getInvalidMessageText() {
         return Arrays.asList(StringUtils.repeat("a", 301));
     }
@@ -0,0 +1,174 @@
+package pl.bookmarket.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+import org.springframework.test.web.servlet.MockMvc;
+import pl.bookmarket.dto.BookCreateDto;
+import pl.bookmarket.dto.SavedSearchCreateDto;
+import pl.bookmarket.service.search.SavedSearchPercolator;
+import pl.bookmarket.testhelpers.datafactory.AuthenticationFactory;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+import pl.bookmarket.testhelpers.datafactory.UserBuilder;
+import pl.bookmarket.testhelpers.utils.WithAuthenticatedUser;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.context.jdbc.SqlMergeMode.MergeMode.MERGE;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static pl.bookmarket.testhelpers.utils.EqualsId.equalsId;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Sql(value = "/insertAllData.sql", executionPhase = BEFORE_TEST_METHOD)
+@Sql(value = "/deleteAllData.sql", executionPhase = AFTER_TEST_METHOD)
+@WithAuthenticatedUser
+class SavedSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private SavedSearchPercolator savedSearchPercolator;
+
+    @Value("${bm.controllers.user}")
+    private String userControllerUrl;
+
+    @Value("${bm.controllers.book}")
+    private String bookControllerUrl;
+
+    @BeforeEach
+    void rebuildPercolator() {
+        savedSearchPercolator.rebuild();
+    }
+
+    @Test
+    void shouldCreateAndReturnSavedSearch() throws Exception {
+        SavedSearchCreateDto savedSearch = getSavedSearch(3L, "Tolkien", "10.00", "rings king");
+
+        mockMvc.perform(post(userControllerUrl + "/1/saved-searches").secure(true)
+                                                                     .content(mapper.writeValueAsString(savedSearch))
+                                                                     .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isCreated())
+               .andExpect(jsonPath("$.id", is(notNullValue())))
+               .andExpect(jsonPath("$.genreId", equalsId(3L)))
+               .andExpect(jsonPath("$.author", equalTo("Tolkien")))
+               .andExpect(jsonPath("$.maxPrice", is(10.0)))
+               .andExpect(jsonPath("$.keywords", equalTo("rings king")));
+
+        mockMvc.perform(get(userControllerUrl + "/1/saved-searches").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(1)))
+               .andExpect(jsonPath("$[0].genreId", equalsId(3L)));
+    }
+
+    @Test
+    void shouldThrow422WhenSavedSearchHasNoCriteria() throws Exception {
+        SavedSearchCreateDto savedSearch = getSavedSearch(null, " ", null, "...");
+
+        mockMvc.perform(post(userControllerUrl + "/1/saved-searches").secure(true)
+                                                                     .content(mapper.writeValueAsString(savedSearch))
+                                                                     .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isUnprocessableEntity())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("savedSearch")))
+               .andExpect(jsonPath("$.errors[0].errorCode", equalTo("saved.search.empty")));
+    }
+
+    @Test
+    void shouldThrow404WhenSavedSearchHasNonExistingGenre() throws Exception {
+        SavedSearchCreateDto savedSearch = getSavedSearch(999L, null, null, null);
+
+        mockMvc.perform(post(userControllerUrl + "/1/saved-searches").secure(true)
+                                                                     .content(mapper.writeValueAsString(savedSearch))
+                                                                     .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNotFound())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("genre.id")));
+    }
+
+    @Test
+    void shouldThrow403WhenCreatingSavedSearchForAnotherUser() throws Exception {
+        SavedSearchCreateDto savedSearch = getSavedSearch(3L, null, null, null);
+
+        mockMvc.perform(post(userControllerUrl + "/2/saved-searches").secure(true)
+                                                                     .content(mapper.writeValueAsString(savedSearch))
+                                                                     .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @Sql(statements = "INSERT INTO SAVED_SEARCH (ID, OWNER_ID, GENRE_ID) VALUES (100, 1, 3), (101, 2, 3)")
+    @SqlMergeMode(MERGE)
+    void shouldDeleteOnlyOwnSavedSearch() throws Exception {
+        mockMvc.perform(delete(userControllerUrl + "/1/saved-searches/101").secure(true))
+               .andExpect(status().isNotFound())
+               .andExpect(jsonPath("$.errors[0].field", equalTo("savedsearch.id")));
+
+        mockMvc.perform(delete(userControllerUrl + "/1/saved-searches/100").secure(true))
+               .andExpect(status().isNoContent());
+
+        mockMvc.perform(get(userControllerUrl + "/1/saved-searches").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Sql(scripts = "/deleteMessages.sql", statements = "INSERT INTO SAVED_SEARCH (ID, OWNER_ID, GENRE_ID, MAX_PRICE) "
+            + "VALUES (100, 1, 1, 20.00), (101, 1, 1, 5.00)")
+    @SqlMergeMode(MERGE)
+    void shouldNotifyOwnerOfMatchingSavedSearchAboutNewListing() throws Exception {
+        savedSearchPercolator.rebuild();
+        BookCreateDto book = BookBuilder.getDefaultBook().withForSale(true).withPrice(new BigDecimal("15.00"))
+                                        .buildBookCreateDto();
+        Authentication seller = AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(2L));
+
+        mockMvc.perform(post(bookControllerUrl).secure(true)
+                                               .with(authentication(seller))
+                                               .content(mapper.writeValueAsString(book))
+                                               .contentType(MediaType.APPLICATION_JSON))
+               .andExpect(status().isCreated());
+
+        mockMvc.perform(get(userControllerUrl + "/1/messages").secure(true))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.content", hasSize(1)))
+               .andExpect(jsonPath("$.content[0].text", containsString("saved.search.match")))
+               .andExpect(jsonPath("$.content[0].text", containsString(book.getTitle())))
+               .andExpect(jsonPath("$.content[0].sender.id", equalsId(2L)))
+               .andExpect(jsonPath("$.content[0].receiver.id", equalsId(1L)));
+    }
+
+    private SavedSearchCreateDto getSavedSearch(Long genreId, String author, String maxPrice, String keywords) {
+        SavedSearchCreateDto savedSearch = new SavedSearchCreateDto();
+        savedSearch.setGenreId(genreId);
+        savedSearch.setAuthor(author);
+        savedSearch.setMaxPrice(maxPrice == null ? null : new BigDecimal(maxPrice));
+        savedSearch.setKeywords(keywords);
+        return savedSearch;
+    }
+}
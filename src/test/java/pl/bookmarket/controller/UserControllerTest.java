@@ -18,6 +18,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.thymeleaf.util.StringUtils;
 import pl.bookmarket.dto.RoleDto;
 import pl.bookmarket.dto.UserCreateDto;
+import pl.bookmarket.service.search.BookSearchIndex;
 import pl.bookmarket.testhelpers.datafactory.AuthenticationFactory;
 import pl.bookmarket.testhelpers.datafactory.UserBuilder;
 import pl.bookmarket.testhelpers.utils.WithAuthenticatedUser;
@@ -37,6 +38,8 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
 import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
@@ -65,6 +68,9 @@ class UserControllerTest {
     @Autowired
     private ApplicationProperties properties;
 
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
     @Test
     @WithAuthenticatedUser(roles = "ADMIN")
     void shouldReturnAllUsers() throws Exception {
@@ -417,6 +423,8 @@ class UserControllerTest {
     @Sql(value = "/deleteAllData.sql", executionPhase = AFTER_TEST_METHOD)
     void shouldSuccessfullyRemoveAllBooksMessagesOffersAfterDeletingUser() throws Exception {
         Authentication userToDelete = AuthenticationFactory.getAuthenticatedUser(2L);
+        bookSearchIndex.rebuild();
+        assertEquals(4L, bookSearchIndex.search("call me win", null, 10).get(0).getBookId());
         mockMvc.perform(get(properties.getUsersApiUrl() + "/2/books").secure(true))
                .andExpect(status().isOk())
                .andExpect(jsonPath("$", hasSize(2)));
@@ -426,7 +434,7 @@ class UserControllerTest {
         mockMvc.perform(get(properties.getUsersApiUrl() + "/2/messages").secure(true)
                                                                         .with(authentication(userToDelete)))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", hasSize(3)));
+               .andExpect(jsonPath("$.content", hasSize(3)));
 
         mockMvc.perform(delete(properties.getUsersApiUrl() + "/2").secure(true))
                .andExpect(status().isNoContent());
@@ -441,7 +449,20 @@ class UserControllerTest {
         mockMvc.perform(get(properties.getUsersApiUrl() + "/2/messages").secure(true)
                                                                         .with(authentication(userToDelete)))
                .andExpect(status().isOk())
-               .andExpect(jsonPath("$", empty()));
+               .andExpect(jsonPath("$.content", empty()));
+        assertTrue(bookSearchIndex.search("call me win", null, 10).isEmpty());
+    }
+
+    @Test
+    @WithAuthenticatedUser(roles = "ADMIN")
+    @Sql(scripts = "/insertAllData.sql", statements = "INSERT INTO SAVED_SEARCH (ID, OWNER_ID, GENRE_ID) VALUES (100, 2, 3)",
+            executionPhase = BEFORE_TEST_METHOD)
+    @Sql(value = "/deleteAllData.sql", executionPhase = AFTER_TEST_METHOD)
+    void shouldSuccessfullyDeleteUserWithSavedSearches() throws Exception {
+        mockMvc.perform(delete(properties.getUsersApiUrl() + "/2").secure(true))
+               .andExpect(status().isNoContent());
+        mockMvc.perform(get(properties.getUsersApiUrl() + "/2").secure(true))
+               .andExpect(status().isNotFound());
     }
 
     @Test
@@ -0,0 +1,158 @@
+package pl.bookmarket.service.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.dto.BookFilterDto;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Genre;
+import pl.bookmarket.service.catalog.ForSaleCatalog.Listing;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.OfferChangedEvent;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+import pl.bookmarket.testhelpers.datafactory.UserBuilder;
+import pl.bookmarket.util.Cursor;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class ForSaleCatalogTest {
+
+    private static final Long CURRENT_USER_ID = 10L;
+    private static final Long OTHER_USER_ID = 20L;
+
+    @Mock
+    private BookDao bookDao;
+
+    @Mock
+    private OfferDao offerDao;
+
+    private ForSaleCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getForSaleListings()).thenReturn(Collections.emptyList());
+        Mockito.when(offerDao.getOfferReferences()).thenReturn(Collections.emptyList());
+        catalog = new ForSaleCatalog(bookDao, offerDao);
+        catalog.rebuild();
+
+        addBook(1L, 1L, OTHER_USER_ID, "20.00");
+        addBook(2L, 2L, OTHER_USER_ID, "5.50");
+        addBook(3L, 1L, OTHER_USER_ID, "5.50");
+        addBook(4L, 2L, CURRENT_USER_ID, "1.00");
+        addBook(5L, 2L, OTHER_USER_ID, "12.00");
+    }
+
+    @Test
+    void shouldReturnListingsOfAllGenresSortedByPriceAndId() {
+        assertEquals(Arrays.asList(2L, 3L, 5L, 1L), findIds(new BookFilterDto(), null, 10));
+    }
+
+    @Test
+    void shouldReturnListingsFilteredByGenreAndPriceRange() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setGenreId(2L);
+        filter.setMinPrice(new BigDecimal("5.50"));
+        filter.setMaxPrice(new BigDecimal("11.99"));
+
+        assertEquals(Collections.singletonList(2L), findIds(filter, null, 10));
+    }
+
+    @Test
+    void shouldRoundPriceRangeInwardsAndClampHugeBounds() {
+        BookFilterDto filter = new BookFilterDto();
+        filter.setMinPrice(new BigDecimal("5.495"));
+        filter.setMaxPrice(new BigDecimal("12.005"));
+        assertEquals(Arrays.asList(2L, 3L, 5L), findIds(filter, null, 10));
+
+        filter.setMinPrice(new BigDecimal("5.501"));
+        filter.setMaxPrice(new BigDecimal("1e30"));
+        assertEquals(Arrays.asList(5L, 1L), findIds(filter, null, 10));
+
+        filter.setMinPrice(new BigDecimal("1e30"));
+        assertTrue(findIds(filter, null, 10).isEmpty());
+    }
+
+    @Test
+    void shouldContinueFromCursor() {
+        List<Listing> firstPage = catalog.findBooksForSale(CURRENT_USER_ID, new BookFilterDto(), null, 2);
+        Listing last = firstPage.get(1);
+        Cursor cursor = Cursor.decode(Cursor.encode("PRICE", last.getPrice(), last.getId()), 3);
+
+        assertEquals(Arrays.asList(5L, 1L), findIds(new BookFilterDto(), cursor, 10));
+    }
+
+    @Test
+    void shouldExcludeBooksOfferedByCurrentUser() {
+        catalog.onOfferChanged(new OfferChangedEvent(OfferChangedEvent.Type.CREATED, 1L, 5L, CURRENT_USER_ID, null, null));
+        assertFalse(findIds(new BookFilterDto(), null, 10).contains(5L));
+
+        catalog.onOfferChanged(new OfferChangedEvent(OfferChangedEvent.Type.DELETED, 1L, 5L, CURRENT_USER_ID, null, null));
+        assertTrue(findIds(new BookFilterDto(), null, 10).contains(5L));
+    }
+
+    @Test
+    void shouldMoveListingWhenPriceChanges() {
+        Book book = getBook(1L, 1L, OTHER_USER_ID, "20.00");
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setPrice(new BigDecimal("0.99"));
+        catalog.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 5L), findIds(new BookFilterDto(), null, 10));
+    }
+
+    @Test
+    void shouldRemoveListingAndOffersWhenBookIsSold() {
+        catalog.onOfferChanged(new OfferChangedEvent(OfferChangedEvent.Type.CREATED, 1L, 3L, CURRENT_USER_ID, null, null));
+        Book book = getBook(3L, 1L, OTHER_USER_ID, "5.50");
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setForSale(false);
+        book.setPrice(null);
+        book.setOwner(UserBuilder.getDefaultUser().withId(30L).build());
+        catalog.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertEquals(Arrays.asList(2L, 5L, 1L), findIds(new BookFilterDto(), null, 10));
+
+        // the book put up for sale again should be visible, because its previous offers were deleted
+        BookSnapshot sold = new BookSnapshot(book);
+        book.setForSale(true);
+        book.setPrice(new BigDecimal("7.00"));
+        catalog.onBookChanged(new BookChangedEvent(sold, new BookSnapshot(book)));
+
+        assertEquals(Arrays.asList(2L, 3L, 5L, 1L), findIds(new BookFilterDto(), null, 10));
+    }
+
+    private List<Long> findIds(BookFilterDto filter, Cursor cursor, int limit) {
+        return catalog.findBooksForSale(CURRENT_USER_ID, filter, cursor, limit).stream()
+                      .map(Listing::getId)
+                      .collect(Collectors.toList());
+    }
+
+    private void addBook(Long id, Long genreId, Long ownerId, String price) {
+        catalog.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(id, genreId, ownerId, price))));
+    }
+
+    private Book getBook(Long id, Long genreId, Long ownerId, String price) {
+        return BookBuilder.getDefaultBook()
+                          .withId(id)
+                          .withGenre(new Genre(genreId, "Genre " + genreId))
+                          .withOwner(UserBuilder.getDefaultUser().withId(ownerId).build())
+                          .withForSale(true)
+                          .withPrice(new BigDecimal(price))
+                          .build();
+    }
+}
@@ -0,0 +1,166 @@
+package pl.bookmarket.service.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import pl.bookmarket.dto.ListingEventDto;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+import pl.bookmarket.testhelpers.datafactory.UserBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForSaleEventStreamTest {
+
+    private static final int BUFFER_SIZE = 3;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private ForSaleEventStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new ForSaleEventStream(tasks::add, BUFFER_SIZE, 60000L, 10000L);
+    }
+
+    @Test
+    void shouldPushListingPriceAndSaleEvents() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(emitter);
+
+        Book book = getBook(1L, "10.00");
+        stream.onBookChanged(new BookChangedEvent(null, new BookSnapshot(book)));
+        BookSnapshot listed = new BookSnapshot(book);
+        book.setPrice(new BigDecimal("8.00"));
+        stream.onBookChanged(new BookChangedEvent(listed, new BookSnapshot(book)));
+        BookSnapshot discounted = new BookSnapshot(book);
+        book.setOwner(UserBuilder.getDefaultUser().build());
+        book.setForSale(false);
+        stream.onBookChanged(new BookChangedEvent(discounted, new BookSnapshot(book)));
+        runTasks();
+
+        assertEquals(Arrays.asList("listing-added", "price-changed", "sold"), emitter.names);
+        assertEquals(new BigDecimal("10.00"), emitter.events.get(1).getPreviousPrice());
+    }
+
+    @Test
+    void shouldDropOldestEventsOfSlowSubscriber() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.subscribe(emitter);
+
+        for (long id = 1; id <= 5; id++) {
+            stream.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(id, "10.00"))));
+        }
+        assertEquals(1, tasks.size());
+        runTasks();
+
+        assertEquals(Arrays.asList("overflow", "listing-added", "listing-added", "listing-added"), emitter.names);
+        assertEquals(Collections.singletonList(2L), emitter.dropped);
+        assertEquals(3L, emitter.events.get(0).getBookId());
+    }
+
+    @Test
+    void shouldRemoveSubscriberWhichCannotReceiveEvents() {
+        RecordingEmitter active = new RecordingEmitter();
+        stream.subscribe(active);
+        stream.subscribe(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        stream.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(1L, "10.00"))));
+        runTasks();
+
+        assertEquals(1, stream.getSubscriberCount());
+        assertEquals(Collections.singletonList("listing-added"), active.names);
+    }
+
+    @Test
+    void shouldSendHeartbeatOnlyToIdleSubscribers() {
+        RecordingEmitter busy = new RecordingEmitter();
+        stream.subscribe(busy);
+        for (long id = 1; id <= BUFFER_SIZE; id++) {
+            stream.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(id, "10.00"))));
+        }
+        RecordingEmitter idle = new RecordingEmitter();
+        stream.subscribe(idle);
+
+        stream.sendHeartbeat();
+        runTasks();
+
+        assertEquals(1, idle.comments);
+        assertEquals(0, busy.comments);
+        assertTrue(busy.dropped.isEmpty());
+        assertEquals(BUFFER_SIZE, busy.names.size());
+    }
+
+    @Test
+    void shouldEvictSubscriberWhoseSendTimesOut() {
+        stream = new ForSaleEventStream(tasks::add, BUFFER_SIZE, 60000L, 0L);
+        RecordingEmitter stalled = new RecordingEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                super.send(builder);
+                // the send is still in progress when the timeout is checked
+                stream.evictStalledSubscribers();
+            }
+        };
+        stream.subscribe(stalled);
+
+        stream.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(1L, "10.00"))));
+        stream.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(2L, "10.00"))));
+        runTasks();
+
+        assertEquals(0, stream.getSubscriberCount());
+        assertEquals(Collections.singletonList("listing-added"), stalled.names);
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private Book getBook(Long id, String price) {
+        return BookBuilder.getDefaultBook().withId(id).withForSale(true).withPrice(new BigDecimal(price)).build();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> names = new ArrayList<>();
+        private final List<ListingEventDto> events = new ArrayList<>();
+        private final List<Long> dropped = new ArrayList<>();
+        private int comments;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            Set<DataWithMediaType> data = builder.build();
+            for (DataWithMediaType item : data) {
+                Object value = item.getData();
+                if (value instanceof ListingEventDto) {
+                    events.add((ListingEventDto) value);
+                } else if (value instanceof Long) {
+                    dropped.add((Long) value);
+                } else if (value.toString().startsWith(":")) {
+                    comments++;
+                } else if (value.toString().contains("event:")) {
+                    String text = value.toString();
+                    int start = text.indexOf("event:") + "event:".length();
+                    names.add(text.substring(start, text.indexOf('\n', start)));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package pl.bookmarket.service.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dto.ForSaleFacetsDto;
+import pl.bookmarket.dto.ForSaleFacetsDto.PriceBucket;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Genre;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class ForSaleFacetsTest {
+
+    @Mock
+    private BookDao bookDao;
+
+    private ForSaleFacets facets;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getForSaleListings()).thenReturn(Collections.emptyList());
+        facets = new ForSaleFacets(bookDao);
+        facets.rebuild();
+
+        addBook(getBook(1L, 1L, "9.99", 1999));
+        addBook(getBook(2L, 2L, "10.00", 2005));
+        addBook(getBook(3L, 2L, "250.00", 2009));
+        addBook(getBook(4L, 1L, "0.50", null));
+        addBook(getBook(5L, 2L, "49.99", 2021));
+    }
+
+    @Test
+    void shouldCountBooksByGenrePriceAndDecade() {
+        ForSaleFacetsDto result = facets.getFacets();
+
+        assertEquals(5, result.getTotal());
+        assertEquals(Arrays.asList("2:3", "1:2"), genres(result));
+        assertEquals(Arrays.asList(2L, 1L, 1L, 0L, 0L, 1L), prices(result));
+        assertEquals(Arrays.asList("1990:1", "2000:2", "2020:1"), decades(result));
+    }
+
+    @Test
+    void shouldUpdateCountsWhenBookChanges() {
+        Book book = getBook(3L, 2L, "250.00", 2009);
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setGenre(new Genre(1L, "Genre 1"));
+        book.setPrice(new BigDecimal("15.00"));
+        book.setReleaseYear(1995);
+        facets.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        ForSaleFacetsDto result = facets.getFacets();
+        assertEquals(5, result.getTotal());
+        assertEquals(Arrays.asList("1:3", "2:2"), genres(result));
+        assertEquals(Arrays.asList(2L, 2L, 1L, 0L, 0L, 0L), prices(result));
+        assertEquals(Arrays.asList("1990:2", "2000:1", "2020:1"), decades(result));
+    }
+
+    @Test
+    void shouldRemoveBookWithdrawnFromSale() {
+        Book book = getBook(5L, 2L, "49.99", 2021);
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setForSale(false);
+        book.setPrice(null);
+        facets.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        ForSaleFacetsDto result = facets.getFacets();
+        assertEquals(4, result.getTotal());
+        assertEquals(Arrays.asList("1:2", "2:2"), genres(result));
+        assertEquals(Arrays.asList(2L, 1L, 0L, 0L, 0L, 1L), prices(result));
+        assertEquals(Arrays.asList("1990:1", "2000:2"), decades(result));
+    }
+
+    private List<String> genres(ForSaleFacetsDto result) {
+        return result.getGenres().stream().map(genre -> genre.getGenreId() + ":" + genre.getCount())
+                     .collect(Collectors.toList());
+    }
+
+    private List<Long> prices(ForSaleFacetsDto result) {
+        return result.getPrices().stream().map(PriceBucket::getCount).collect(Collectors.toList());
+    }
+
+    private List<String> decades(ForSaleFacetsDto result) {
+        return result.getDecades().stream().map(decade -> decade.getDecade() + ":" + decade.getCount())
+                     .collect(Collectors.toList());
+    }
+
+    private void addBook(Book book) {
+        facets.onBookChanged(new BookChangedEvent(null, new BookSnapshot(book)));
+    }
+
+    private Book getBook(Long id, Long genreId, String price, Integer releaseYear) {
+        return BookBuilder.getDefaultBook()
+                          .withId(id)
+                          .withGenre(new Genre(genreId, "Genre " + genreId))
+                          .withForSale(true)
+                          .withPrice(new BigDecimal(price))
+                          .withReleaseYear(releaseYear)
+                          .build();
+    }
+}
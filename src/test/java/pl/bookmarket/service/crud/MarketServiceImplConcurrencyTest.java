@@ -0,0 +1,161 @@
+package pl.bookmarket.service.crud;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlMergeMode;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Offer;
+import pl.bookmarket.service.message.NotificationDrainer;
+import pl.bookmarket.testhelpers.datafactory.AuthenticationFactory;
+import pl.bookmarket.validation.exception.EntityConflictException;
+import pl.bookmarket.validation.exception.EntityNotFoundException;
+import pl.bookmarket.validation.exception.EntityValidationException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.AFTER_TEST_METHOD;
+import static org.springframework.test.context.jdbc.Sql.ExecutionPhase.BEFORE_TEST_METHOD;
+import static org.springframework.test.context.jdbc.SqlMergeMode.MergeMode.MERGE;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Sql(value = "/insertAllData.sql", executionPhase = BEFORE_TEST_METHOD)
+@Sql(value = "/deleteAllData.sql", executionPhase = AFTER_TEST_METHOD)
+class MarketServiceImplConcurrencyTest {
+
+    private static final int ATTEMPTS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private MarketService marketService;
+
+    @Autowired
+    private BookDao bookDao;
+
+    @Autowired
+    private OfferDao offerDao;
+
+    @Autowired
+    private MessageDao messageDao;
+
+    @Autowired
+    private NotificationDrainer notificationDrainer;
+
+    @Test
+    @Sql(statements = {"DELETE FROM NOTIFICATION", "DELETE FROM CONVERSATION", "DELETE FROM MESSAGE",
+            "INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) "
+                    + "VALUES (3, 'TestUser3', 'testuser3@bookmarket.com', 'password', false, CURRENT_TIMESTAMP)",
+            "INSERT INTO OFFER (ID, COMMENT, BOOK_ID, BUYER_ID) VALUES (3, null, 2, 3)"})
+    @SqlMergeMode(MERGE)
+    void shouldAcceptExactlyOneOfConcurrentlyAcceptedOffers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        Map<Class<?>, AtomicInteger> rejections = new ConcurrentHashMap<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < ATTEMPTS; i++) {
+            long offerId = i % 2 == 0 ? 1L : 3L;
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(AuthenticationFactory.getAuthenticatedUser(1L));
+                try {
+                    start.await();
+                    marketService.acceptOffer(offerId);
+                    accepted.incrementAndGet();
+                } catch (EntityConflictException | EntityNotFoundException e) {
+                    rejections.computeIfAbsent(e.getClass(), c -> new AtomicInteger()).incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        notificationDrainer.drain();
+
+        Book book = bookDao.findById(2L).orElseThrow(IllegalStateException::new);
+        long boughtMessages = StreamSupport.stream(messageDao.findAll().spliterator(), false)
+                                           .filter(message -> message.getText().startsWith("{book.bought}"))
+                                           .count();
+
+        assertEquals(1, accepted.get());
+        assertEquals(ATTEMPTS - 1, rejections.values().stream().mapToInt(AtomicInteger::get).sum());
+        assertTrue(book.getOwner().getId() == 2L || book.getOwner().getId() == 3L);
+        assertFalse(book.isForSale());
+        assertEquals(1, boughtMessages);
+        assertFalse(offerDao.getOffersByBookId(2L).iterator().hasNext());
+    }
+
+    @Test
+    @Sql(statements = {"DELETE FROM OFFER", "UPDATE BOOK SET AUCTION_ENDS_ON = DATEADD('DAY', 1, CURRENT_TIMESTAMP) WHERE ID = 4",
+            "INSERT INTO CUSTOMER (ID, LOGIN, EMAIL, PASSWORD, IS_BLOCKED, REGISTERED_ON) SELECT X, 'Bidder' || X, "
+                    + "'bidder' || X || '@bookmarket.com', 'password', false, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(10, 25)"})
+    @SqlMergeMode(MERGE)
+    void shouldAcceptOnlyOneOfConcurrentEqualBids() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (long buyerId = 10; buyerId <= 25; buyerId++) {
+            long bidderId = buyerId;
+            futures.add(executor.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(AuthenticationFactory.getAuthenticatedUser(bidderId));
+                try {
+                    start.await();
+                    marketService.addOffer(getBid(4L, new BigDecimal("25.00")));
+                    accepted.incrementAndGet();
+                } catch (EntityValidationException e) {
+                    rejected.incrementAndGet();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(1, accepted.get());
+        assertEquals(15, rejected.get());
+        assertEquals(1, offerDao.getOffersByBookId(4L).size());
+    }
+
+    private static Offer getBid(Long bookId, BigDecimal amount) {
+        Book book = new Book();
+        book.setId(bookId);
+        Offer offer = new Offer();
+        offer.setBook(book);
+        offer.setAmount(amount);
+        return offer;
+    }
+}
@@ -11,19 +11,28 @@ import org.mockito.Mockito;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.ConversationDao;
 import pl.bookmarket.dao.MessageDao;
 import pl.bookmarket.model.Message;
 import pl.bookmarket.model.User;
+import pl.bookmarket.service.message.ConversationTracker;
+import pl.bookmarket.service.message.UnreadMessageCounters;
 import pl.bookmarket.testhelpers.datafactory.AuthenticationFactory;
 import pl.bookmarket.testhelpers.datafactory.MessageBuilder;
 import pl.bookmarket.testhelpers.datafactory.UserBuilder;
+import pl.bookmarket.validation.exception.EntityValidationException;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(SpringExtension.class)
 class MessageServiceImplTest {
@@ -31,9 +40,18 @@ class MessageServiceImplTest {
     @Mock
     private MessageDao messageDao;
 
+    @Mock
+    private ConversationDao conversationDao;
+
     @Mock
     private UserService userService;
 
+    @Mock
+    private ConversationTracker conversationTracker;
+
+    @Mock
+    private UnreadMessageCounters unreadMessageCounters;
+
     @InjectMocks
     private MessageServiceImpl messageService;
 
@@ -101,6 +119,46 @@ class MessageServiceImplTest {
         assertFalse(message.isRead());
     }
 
+    @Test
+    void shouldResolveReceiversAndSenderOnceWhenCreatingMultipleMessages() {
+        Long currentUserId = 3L;
+        UserBuilder regularUserBuilder = UserBuilder.getDefaultUser().withId(currentUserId);
+        SecurityContextHolder.getContext().setAuthentication(AuthenticationFactory.getAuthenticationFromUser(regularUserBuilder));
+        User firstReceiver = UserBuilder.getDefaultUser().withId(1L).build();
+        User secondReceiver = UserBuilder.getDefaultUser().withId(2L).build();
+        List<Message> messages = Arrays.asList(MessageBuilder.getDefaultMessage().withId(null).withReceiver(firstReceiver).build(),
+                                               MessageBuilder.getDefaultMessage().withId(null).withReceiver(secondReceiver).build(),
+                                               MessageBuilder.getDefaultMessage().withId(null).withReceiver(firstReceiver).build());
+        Mockito.when(userService.getUsersByIds(ArgumentMatchers.anyCollection()))
+               .thenReturn(Arrays.asList(firstReceiver, secondReceiver));
+        Mockito.when(userService.getUserById(currentUserId)).thenReturn(Optional.of(regularUserBuilder.build()));
+        Mockito.when(messageDao.saveAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Message> created = messageService.createMultipleMessages(messages);
+
+        Mockito.verify(userService).getUsersByIds(new HashSet<>(Arrays.asList(1L, 2L)));
+        Mockito.verify(userService, Mockito.times(1)).getUserById(ArgumentMatchers.anyLong());
+        assertEquals(Arrays.asList(1L, 2L, 1L), created.stream().map(message -> message.getReceiver().getId())
+                                                       .collect(Collectors.toList()));
+        assertTrue(created.stream().allMatch(message -> currentUserId.equals(message.getSender().getId())));
+    }
+
+    @Test
+    void shouldRejectMultipleMessagesWithNonExistentReceiver() {
+        SecurityContextHolder.getContext().setAuthentication(
+                AuthenticationFactory.getAuthenticationFromUser(UserBuilder.getDefaultUser().withId(1L)));
+        User receiver = UserBuilder.getDefaultUser().withId(2L).build();
+        List<Message> messages = Arrays.asList(MessageBuilder.getDefaultMessage().withId(null).withReceiver(receiver).build(),
+                                               MessageBuilder.getDefaultMessage().withId(null).withReceiver(
+                                                       UserBuilder.getDefaultUser().withId(999L).build()).build());
+        Mockito.when(userService.getUsersByIds(ArgumentMatchers.anyCollection()))
+               .thenReturn(Collections.singletonList(receiver));
+        Mockito.when(userService.getUserById(1L)).thenReturn(Optional.of(UserBuilder.getDefaultUser().build()));
+
+        assertThrows(EntityValidationException.class, () -> messageService.createMultipleMessages(messages));
+        Mockito.verify(messageDao, Mockito.never()).saveAll(ArgumentMatchers.anyList());
+    }
+
     private static List<User> getInvalidSenders() {
         return Arrays.asList(null, UserBuilder.getDefaultUser().withId(null).build());
     }
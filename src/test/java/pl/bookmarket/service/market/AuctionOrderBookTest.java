@@ -0,0 +1,130 @@
+package pl.bookmarket.service.market;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.OfferChangedEvent;
+import pl.bookmarket.service.market.AuctionOrderBook.Auction;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class AuctionOrderBookTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.parse("2022-07-01T12:00:00Z");
+
+    @Mock
+    private BookDao bookDao;
+
+    @Mock
+    private OfferDao offerDao;
+
+    private AuctionOrderBook orderBook;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getAuctionListings()).thenReturn(Collections.emptyList());
+        Mockito.when(offerDao.getBidListings()).thenReturn(Collections.emptyList());
+        orderBook = new AuctionOrderBook(bookDao, offerDao);
+        orderBook.rebuild();
+
+        orderBook.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getAuctionedBook(1L, NOW.plusHours(1), "20.00"))));
+        orderBook.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getAuctionedBook(2L, NOW.minusHours(1), null))));
+        orderBook.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getAuctionedBook(3L, NOW.minusHours(2), null))));
+    }
+
+    @Test
+    void shouldKeepLadderOfBidsOrderedByAmount() {
+        bid(1L, 1L, "12.00");
+        bid(2L, 1L, "15.50");
+        bid(3L, 1L, "11.00");
+
+        Auction auction = orderBook.getAuction(1L).orElseThrow(AssertionError::new);
+        assertEquals(2L, auction.getHighestBid().getOfferId());
+        assertEquals(3, auction.getBidCount());
+        assertEquals(Arrays.asList(new BigDecimal("15.50"), new BigDecimal("12.00"), new BigDecimal("11.00")),
+                     auction.getLadder());
+        assertFalse(auction.isReserveMet());
+    }
+
+    @Test
+    void shouldPromoteNextBidWhenHighestIsWithdrawn() {
+        bid(1L, 1L, "12.00");
+        bid(2L, 1L, "25.00");
+        orderBook.onOfferChanged(new OfferChangedEvent(OfferChangedEvent.Type.DELETED, 2L, 1L, 2L,
+                                                       new BigDecimal("25.00"), null));
+
+        assertEquals(1L, orderBook.getAuction(1L).orElseThrow(AssertionError::new).getHighestBid().getOfferId());
+    }
+
+    @Test
+    void shouldMeetReserveWhenHighestBidReachesIt() {
+        bid(1L, 1L, "20.00");
+
+        assertTrue(orderBook.getAuction(1L).orElseThrow(AssertionError::new).isReserveMet());
+    }
+
+    @Test
+    void shouldKeepBidsWhenAuctionTermsChange() {
+        bid(1L, 1L, "12.00");
+        Book book = getAuctionedBook(1L, NOW.plusHours(1), "20.00");
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setAuctionEndsOn(NOW.minusMinutes(1));
+        orderBook.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertEquals(1L, orderBook.getAuction(1L).orElseThrow(AssertionError::new).getHighestBid().getOfferId());
+        assertEquals(Arrays.asList(3L, 2L, 1L), orderBook.findEndedAuctions(NOW));
+    }
+
+    @Test
+    void shouldRemoveAuctionOfSoldBook() {
+        bid(1L, 2L, "9.00");
+        Book book = getAuctionedBook(2L, NOW.minusHours(1), null);
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setForSale(false);
+        book.setPrice(null);
+        book.setAuctionEndsOn(null);
+        orderBook.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertFalse(orderBook.getAuction(2L).isPresent());
+        assertEquals(Collections.singletonList(3L), orderBook.findEndedAuctions(NOW));
+    }
+
+    @Test
+    void shouldIgnoreOffersWithoutAmount() {
+        orderBook.onOfferChanged(new OfferChangedEvent(OfferChangedEvent.Type.CREATED, 1L, 1L, 2L, null, null));
+
+        assertEquals(0, orderBook.getAuction(1L).orElseThrow(AssertionError::new).getBidCount());
+    }
+
+    private void bid(Long offerId, Long bookId, String amount) {
+        orderBook.onOfferChanged(new OfferChangedEvent(OfferChangedEvent.Type.CREATED, offerId, bookId, 2L,
+                                                       new BigDecimal(amount), null));
+    }
+
+    private Book getAuctionedBook(Long id, OffsetDateTime endsOn, String reservePrice) {
+        return BookBuilder.getDefaultBook()
+                          .withId(id)
+                          .withForSale(true)
+                          .withPrice(new BigDecimal("10.00"))
+                          .withAuctionEndsOn(endsOn)
+                          .withReservePrice(reservePrice == null ? null : new BigDecimal(reservePrice))
+                          .build();
+    }
+}
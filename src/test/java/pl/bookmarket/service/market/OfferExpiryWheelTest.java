@@ -0,0 +1,102 @@
+package pl.bookmarket.service.market;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.OfferDao;
+import pl.bookmarket.service.event.OfferChangedEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class OfferExpiryWheelTest {
+
+    private static final long TICK_MILLIS = 1000L;
+
+    @Mock
+    private OfferDao offerDao;
+
+    private OfferExpiryWheel wheel;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(offerDao.getOfferExpiries()).thenReturn(Collections.emptyList());
+        wheel = new OfferExpiryWheel(offerDao, TICK_MILLIS);
+        wheel.rebuild();
+        now = Instant.now();
+    }
+
+    @Test
+    void shouldExpireOffersOnlyAfterTheirExpiryTime() {
+        wheel.schedule(1L, at(Duration.ofSeconds(5)));
+        wheel.schedule(2L, at(Duration.ofSeconds(10)));
+
+        assertTrue(wheel.advance(now.plusSeconds(3)).isEmpty());
+        assertEquals(Collections.singletonList(1L), wheel.advance(now.plusSeconds(6)));
+        assertEquals(Collections.singletonList(2L), wheel.advance(now.plusSeconds(11)));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldKeepOffersExpiringInLaterRevolutions() {
+        Duration revolution = Duration.ofMillis(OfferExpiryWheel.WHEEL_SIZE * TICK_MILLIS);
+        wheel.schedule(1L, at(Duration.ofSeconds(5)));
+        wheel.schedule(2L, at(revolution.plusSeconds(5)));
+
+        assertEquals(Collections.singletonList(1L), wheel.advance(now.plusSeconds(6)));
+        assertEquals(1, wheel.size());
+        assertEquals(Collections.singletonList(2L), wheel.advance(now.plus(revolution).plusSeconds(6)));
+    }
+
+    @Test
+    void shouldExpireAllDueOffersAfterLongPause() {
+        wheel.schedule(1L, at(Duration.ofSeconds(5)));
+        wheel.schedule(2L, at(Duration.ofHours(2)));
+        wheel.schedule(3L, at(Duration.ofHours(30)));
+
+        List<Long> expired = wheel.advance(now.plus(Duration.ofDays(1)));
+
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(expired));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void shouldExpireAlreadyExpiredOfferOnNextTick() {
+        wheel.schedule(1L, at(Duration.ofMinutes(-5)));
+
+        assertEquals(Collections.singletonList(1L), wheel.advance(now.plusSeconds(2)));
+    }
+
+    @Test
+    void shouldNotExpireCancelledOrRescheduledOffers() {
+        wheel.onOfferChanged(getEvent(OfferChangedEvent.Type.CREATED, 1L));
+        wheel.onOfferChanged(getEvent(OfferChangedEvent.Type.CREATED, 2L));
+        wheel.onOfferChanged(getEvent(OfferChangedEvent.Type.DELETED, 1L));
+        wheel.schedule(2L, at(Duration.ofSeconds(20)));
+
+        assertTrue(wheel.advance(now.plusSeconds(10)).isEmpty());
+        assertEquals(Collections.singletonList(2L), wheel.advance(now.plusSeconds(21)));
+    }
+
+    private OfferChangedEvent getEvent(OfferChangedEvent.Type type, Long offerId) {
+        return new OfferChangedEvent(type, offerId, 1L, offerId, null, at(Duration.ofSeconds(5)));
+    }
+
+    private OffsetDateTime at(Duration offset) {
+        return OffsetDateTime.ofInstant(now.plus(offset), ZoneOffset.UTC);
+    }
+}
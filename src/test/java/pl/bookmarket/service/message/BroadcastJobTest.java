@@ -0,0 +1,52 @@
+package pl.bookmarket.service.message;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BroadcastDao;
+
+@ExtendWith(SpringExtension.class)
+class BroadcastJobTest {
+
+    private static final int CHUNK_SIZE = 10;
+
+    @Mock
+    private BroadcastDao broadcastDao;
+
+    @Mock
+    private BroadcastSender broadcastSender;
+
+    private BroadcastJob broadcastJob;
+
+    @BeforeEach
+    void setUp() {
+        broadcastJob = new BroadcastJob(broadcastDao, broadcastSender, CHUNK_SIZE, 0L);
+    }
+
+    @Test
+    void shouldRetryFailedChunkAndContinueWithNextOnes() {
+        Mockito.when(broadcastSender.sendNextChunk(1L, CHUNK_SIZE))
+               .thenThrow(new CannotAcquireLockException("Lock timeout"))
+               .thenReturn(true)
+               .thenThrow(new CannotAcquireLockException("Lock timeout"))
+               .thenReturn(false);
+
+        broadcastJob.run(1L);
+
+        Mockito.verify(broadcastSender, Mockito.times(4)).sendNextChunk(1L, CHUNK_SIZE);
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        Mockito.when(broadcastSender.sendNextChunk(1L, CHUNK_SIZE))
+               .thenThrow(new CannotAcquireLockException("Lock timeout"));
+
+        broadcastJob.run(1L);
+
+        Mockito.verify(broadcastSender, Mockito.times(BroadcastJob.MAX_ATTEMPTS)).sendNextChunk(1L, CHUNK_SIZE);
+    }
+}
@@ -0,0 +1,58 @@
+package pl.bookmarket.service.message;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageArchiveCodecTest {
+
+    @Test
+    void shouldDecodeEncodedMessages() {
+        OffsetDateTime sendTime = OffsetDateTime.parse("2022-05-09T09:30:00.123+01:00");
+        List<ArchivedMessage> messages = Arrays.asList(
+                new ArchivedMessage(2L, 2L, "TestUser2", 1L, "TestUser1", "Thanks, I am fine :)", sendTime),
+                new ArchivedMessage(1L, 1L, "TestUser1", 2L, "TestUser2", null, sendTime.minusDays(1)));
+
+        List<ArchivedMessage> decoded = MessageArchiveCodec.decode(MessageArchiveCodec.encode(messages));
+
+        assertEquals(2, decoded.size());
+        ArchivedMessage first = decoded.get(0);
+        assertEquals(2L, first.getId());
+        assertEquals("TestUser2", first.getSenderLogin());
+        assertEquals(1L, first.getReceiverId());
+        assertEquals("Thanks, I am fine :)", first.getText());
+        assertTrue(sendTime.isEqual(first.getSendTime()));
+        assertNull(decoded.get(1).getText());
+    }
+
+    @Test
+    void shouldDecodeMessagesPrependedToSegment() {
+        OffsetDateTime sendTime = OffsetDateTime.parse("2022-05-09T09:30:00+01:00");
+        byte[] segment = MessageArchiveCodec.encode(Collections.singletonList(
+                new ArchivedMessage(1L, 1L, "TestUser1", 2L, "TestUser2", "Hi", sendTime)));
+        List<ArchivedMessage> newer = Arrays.asList(
+                new ArchivedMessage(3L, 2L, "TestUser2", 1L, "TestUser1", "Bye", sendTime.plusHours(2)),
+                new ArchivedMessage(2L, 2L, "TestUser2", 1L, "TestUser1", "Hello", sendTime.plusHours(1)));
+
+        byte[] prepended = MessageArchiveCodec.prepend(newer, segment);
+
+        assertEquals(Arrays.asList(3L, 2L, 1L), MessageArchiveCodec.decode(prepended).stream()
+                                                                  .map(ArchivedMessage::getId)
+                                                                  .collect(Collectors.toList()));
+        assertEquals(3L, MessageArchiveCodec.decodeFirst(prepended).getId());
+    }
+
+    @Test
+    void shouldDecodeEmptySegment() {
+        assertTrue(MessageArchiveCodec.decode(MessageArchiveCodec.encode(Collections.emptyList())).isEmpty());
+        assertNull(MessageArchiveCodec.decodeFirst(MessageArchiveCodec.encode(Collections.emptyList())));
+    }
+}
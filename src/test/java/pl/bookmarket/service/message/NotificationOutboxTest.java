@@ -0,0 +1,82 @@
+package pl.bookmarket.service.message;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.NotificationDao;
+import pl.bookmarket.dao.UserDao;
+import pl.bookmarket.model.Message;
+import pl.bookmarket.model.Notification;
+import pl.bookmarket.testhelpers.datafactory.UserBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class NotificationOutboxTest {
+
+    @Mock
+    private NotificationDao notificationDao;
+
+    @Mock
+    private MessageDao messageDao;
+
+    @Mock
+    private UserDao userDao;
+
+    @Mock
+    private ConversationTracker conversationTracker;
+
+    private NotificationOutbox notificationOutbox;
+
+    @BeforeEach
+    void setUp() {
+        notificationOutbox = new NotificationOutbox(notificationDao, messageDao, userDao, conversationTracker);
+        // the user with id 4 has been deleted after the notifications have been appended
+        Mockito.when(userDao.findAllById(ArgumentMatchers.anyIterable()))
+               .thenReturn(Arrays.asList(UserBuilder.getDefaultUser().withId(1L).build(),
+                                         UserBuilder.getDefaultUser().withId(2L).build(),
+                                         UserBuilder.getDefaultUser().withId(3L).build()));
+        Mockito.when(messageDao.saveAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void shouldDeliverBatchOfNotificationsInSingleInsert() {
+        List<Notification> notifications = Arrays.asList(
+                new Notification(Notification.Type.NEW_OFFER, 2L, 1L, "Knights of the Cross"),
+                new Notification(Notification.Type.BOOK_SOLD, 1L, 2L, Arrays.asList(3L, 4L), "Call me Win"),
+                new Notification(Notification.Type.NEW_OFFER, 4L, 1L, "Call me Win"));
+        Mockito.when(notificationDao.getPendingNotifications(ArgumentMatchers.any())).thenReturn(notifications);
+
+        assertEquals(3, notificationOutbox.deliver(500));
+
+        ArgumentCaptor<List<Message>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(messageDao).saveAll(captor.capture());
+        assertEquals(Arrays.asList("2->1 {new.offer} \"Knights of the Cross\"", "1->3 {book.sold}: Call me Win",
+                                   "1->2 {book.bought}: Call me Win"),
+                     captor.getValue().stream().map(message -> message.getSender().getId() + "->"
+                             + message.getReceiver().getId() + " " + message.getText()).collect(Collectors.toList()));
+        Mockito.verify(conversationTracker).onMessagesCreated(captor.getValue());
+        Mockito.verify(notificationDao).deleteNotificationsByIds(ArgumentMatchers.argThat(ids -> ids.size() == 3));
+    }
+
+    @Test
+    void shouldNotTouchMessagesWhenOutboxIsEmpty() {
+        Mockito.when(notificationDao.getPendingNotifications(ArgumentMatchers.any())).thenReturn(Collections.emptyList());
+
+        assertEquals(0, notificationOutbox.deliver(500));
+
+        Mockito.verifyNoInteractions(messageDao, conversationTracker);
+        Mockito.verify(notificationDao, Mockito.never()).deleteNotificationsByIds(ArgumentMatchers.anyCollection());
+    }
+}
@@ -0,0 +1,73 @@
+package pl.bookmarket.service.message;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.MessageDao;
+import pl.bookmarket.dao.projection.UnreadCount;
+import pl.bookmarket.service.event.UnreadMessagesChangedEvent;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(SpringExtension.class)
+class UnreadMessageCountersTest {
+
+    @Mock
+    private MessageDao messageDao;
+
+    private UnreadMessageCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(messageDao.getUnreadCounts()).thenReturn(Collections.singletonList(getUnreadCount(1L, 3L)));
+        counters = new UnreadMessageCounters(messageDao);
+        counters.rebuild();
+    }
+
+    @Test
+    void shouldLoadCountersFromDatabase() {
+        assertEquals(3, counters.getUnreadCount(1L));
+        assertEquals(0, counters.getUnreadCount(2L));
+    }
+
+    @Test
+    void shouldApplyChangesOfMultipleUsers() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        deltas.put(1L, -2);
+        deltas.put(2L, 5);
+
+        counters.onUnreadMessagesChanged(new UnreadMessagesChangedEvent(deltas));
+
+        assertEquals(1, counters.getUnreadCount(1L));
+        assertEquals(5, counters.getUnreadCount(2L));
+    }
+
+    @Test
+    void shouldNotGoBelowZero() {
+        counters.onUnreadMessagesChanged(new UnreadMessagesChangedEvent(Collections.singletonMap(1L, -5)));
+        counters.onUnreadMessagesChanged(new UnreadMessagesChangedEvent(Collections.singletonMap(1L, 1)));
+
+        assertEquals(1, counters.getUnreadCount(1L));
+    }
+
+    private UnreadCount getUnreadCount(Long userId, Long count) {
+        return new UnreadCount() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,118 @@
+package pl.bookmarket.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.search.BookSearchIndex.Hit;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+import pl.bookmarket.util.Cursor;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class BookSearchIndexTest {
+
+    @Mock
+    private BookDao bookDao;
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getSearchableBooks()).thenReturn(Collections.emptyList());
+        index = new BookSearchIndex(bookDao);
+        index.rebuild();
+
+        addBook(1L, "Przedwiośnie", "Stefan Żeromski", "Wydawnictwo Łódzkie");
+        addBook(2L, "Ludzie bezdomni", "Stefan Żeromski", "Greg");
+        addBook(3L, "Lalka", "Bolesław Prus", "Greg");
+        addBook(4L, "Greg i przyjaciele", "Jan Kowalski", "Znak");
+    }
+
+    @Test
+    void shouldFindBooksIgnoringCaseAndDiacritics() {
+        assertEquals(Collections.singletonList(1L), search("PRZEDWIOSNIE", null, 10));
+        assertEquals(Collections.singletonList(1L), search("lodzkie", null, 10));
+        assertEquals(Collections.singletonList(3L), search("boleslaw", null, 10));
+    }
+
+    @Test
+    void shouldRankTitleMatchesHigherThanPublisherMatches() {
+        assertEquals(Arrays.asList(4L, 2L, 3L), search("greg", null, 10));
+    }
+
+    @Test
+    void shouldRankBooksMatchingMoreWordsHigher() {
+        assertEquals(Arrays.asList(2L, 1L), search("zeromski bezdomni", null, 10));
+    }
+
+    @Test
+    void shouldContinueFromCursor() {
+        List<Hit> firstPage = index.search("greg", null, 1);
+        Hit last = firstPage.get(0);
+        Cursor cursor = Cursor.decode(Cursor.encode(last.getScore(), last.getBookId()), 2);
+
+        assertEquals(Arrays.asList(2L, 3L), search("greg", cursor, 10));
+    }
+
+    @Test
+    void shouldNotRepeatHitsWhenScoresChangeBetweenPages() {
+        List<Hit> firstPage = index.search("greg", null, 1);
+        Hit last = firstPage.get(0);
+        Cursor cursor = Cursor.decode(Cursor.encode(last.getScore(), last.getBookId()), 2);
+        addBook(5L, "Nowy", "Jan Nowak", "Greg");
+
+        assertEquals(Arrays.asList(2L, 3L, 5L), search("greg", cursor, 10));
+    }
+
+    @Test
+    void shouldUpdateIndexWhenBookChanges() {
+        Book book = getBook(3L, "Lalka", "Bolesław Prus", "Greg");
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setTitle("Faraon");
+        index.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertTrue(search("lalka", null, 10).isEmpty());
+        assertEquals(Collections.singletonList(3L), search("faraon", null, 10));
+
+        BookSnapshot renamed = new BookSnapshot(book);
+        book.setForSale(false);
+        book.setPrice(null);
+        index.onBookChanged(new BookChangedEvent(renamed, new BookSnapshot(book)));
+
+        assertTrue(search("faraon", null, 10).isEmpty());
+    }
+
+    private List<Long> search(String query, Cursor cursor, int limit) {
+        return index.search(query, cursor, limit).stream().map(Hit::getBookId).collect(Collectors.toList());
+    }
+
+    private void addBook(Long id, String title, String author, String publisher) {
+        index.onBookChanged(new BookChangedEvent(null, new BookSnapshot(getBook(id, title, author, publisher))));
+    }
+
+    private Book getBook(Long id, String title, String author, String publisher) {
+        return BookBuilder.getDefaultBook()
+                          .withId(id)
+                          .withTitle(title)
+                          .withAuthor(author)
+                          .withPublisher(publisher)
+                          .withForSale(true)
+                          .withPrice(BigDecimal.TEN)
+                          .build();
+    }
+}
@@ -0,0 +1,103 @@
+package pl.bookmarket.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.projection.TextValueCount;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.search.PrefixIndex.Suggestion;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class PrefixIndexTest {
+
+    @Mock
+    private BookDao bookDao;
+
+    private PrefixIndex index;
+
+    private BookTextDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getTitleCounts()).thenReturn(Arrays.asList(valueCount("Lalka"),
+                                                                        valueCount("Ludzie bezdomni"),
+                                                                        valueCount("Lord of the Rings")));
+        Mockito.when(bookDao.getAuthorCounts()).thenReturn(Arrays.asList(valueCount("J.R.R. Tolkien"),
+                                                                         valueCount("Bolesław Prus")));
+        index = new PrefixIndex();
+        dictionary = new BookTextDictionary(bookDao, Collections.singletonList(index));
+        dictionary.rebuild();
+    }
+
+    @Test
+    void shouldSuggestValuesInAlphabeticalOrder() {
+        assertEquals(Arrays.asList("Lalka", "Lord of the Rings", "Ludzie bezdomni"), suggest("l", BookTextField.TITLE, 10));
+        assertEquals(Arrays.asList("Lalka", "Lord of the Rings"), suggest("l", BookTextField.TITLE, 2));
+    }
+
+    @Test
+    void shouldSuggestValuesByPrefixOfAnyWordIgnoringDiacritics() {
+        assertEquals(Collections.singletonList("J.R.R. Tolkien"), suggest("TOLK", BookTextField.AUTHOR, 10));
+        assertEquals(Collections.singletonList("J.R.R. Tolkien"), suggest("j.r.r. t", BookTextField.AUTHOR, 10));
+        assertEquals(Collections.singletonList("Bolesław Prus"), suggest("bolesl", BookTextField.AUTHOR, 10));
+        assertEquals(Collections.singletonList("Lord of the Rings"), suggest("the ri", BookTextField.TITLE, 10));
+    }
+
+    @Test
+    void shouldSuggestValuesOfAllGivenFields() {
+        List<Suggestion> suggestions = index.suggest("b", EnumSet.allOf(BookTextField.class), 10);
+
+        assertEquals(2, suggestions.size());
+        assertEquals(BookTextField.TITLE, suggestions.get(0).getField());
+        assertEquals("Ludzie bezdomni", suggestions.get(0).getValue());
+        assertEquals(BookTextField.AUTHOR, suggestions.get(1).getField());
+        assertEquals("Bolesław Prus", suggestions.get(1).getValue());
+    }
+
+    @Test
+    void shouldUpdateSuggestionsWhenBookChanges() {
+        Book book = BookBuilder.getDefaultBook().withTitle("Lalka").withAuthor("Bolesław Prus").build();
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setTitle("Faraon");
+        dictionary.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertEquals(Arrays.asList("Lord of the Rings", "Ludzie bezdomni"), suggest("l", BookTextField.TITLE, 10));
+        assertEquals(Collections.singletonList("Faraon"), suggest("far", BookTextField.TITLE, 10));
+        assertTrue(suggest("far", BookTextField.AUTHOR, 10).isEmpty());
+    }
+
+    private List<String> suggest(String prefix, BookTextField field, int limit) {
+        return index.suggest(prefix, EnumSet.of(field), limit).stream().map(Suggestion::getValue)
+                    .collect(Collectors.toList());
+    }
+
+    private static TextValueCount valueCount(String value) {
+        return new TextValueCount() {
+            @Override
+            public String getValue() {
+                return value;
+            }
+
+            @Override
+            public Long getCount() {
+                return 1L;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package pl.bookmarket.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.SavedSearchDao;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Genre;
+import pl.bookmarket.model.SavedSearch;
+import pl.bookmarket.model.User;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.event.SavedSearchChangedEvent;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class SavedSearchPercolatorTest {
+
+    @Mock
+    private SavedSearchDao savedSearchDao;
+
+    private SavedSearchPercolator percolator;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(savedSearchDao.getSavedSearchListings()).thenReturn(Collections.emptyList());
+        percolator = new SavedSearchPercolator(savedSearchDao);
+        percolator.rebuild();
+    }
+
+    @Test
+    void shouldMatchSearchesContainingAllKeywords() {
+        save(1L, 10L, null, null, null, "harry azkaban");
+        save(2L, 11L, null, null, null, "harry chamber");
+        save(3L, 12L, null, null, null, "ROWLING");
+
+        Book book = getBook("Harry Potter and the Prisoner of Azkaban", "J.K. Rowling", 3L, "8.50");
+
+        assertEquals(new HashSet<>(Arrays.asList(10L, 12L)), percolator.percolate(new BookSnapshot(book)));
+    }
+
+    @Test
+    void shouldMatchAuthorGenreAndPriceCriteria() {
+        save(1L, 10L, null, "j.k. rowling", null, null);
+        save(2L, 11L, 3L, null, new BigDecimal("10.00"), null);
+        save(3L, 12L, 3L, null, new BigDecimal("5.00"), null);
+        save(4L, 13L, null, null, new BigDecimal("8.50"), null);
+        save(5L, 14L, 4L, null, null, null);
+
+        Book book = getBook("Harry Potter and the Prisoner of Azkaban", "J.K. Rowling", 3L, "8.50");
+
+        assertEquals(new HashSet<>(Arrays.asList(10L, 11L, 13L)), percolator.percolate(new BookSnapshot(book)));
+    }
+
+    @Test
+    void shouldNotMatchDeletedSearches() {
+        SavedSearch savedSearch = save(1L, 10L, null, null, null, "potter");
+        percolator.onSavedSearchChanged(new SavedSearchChangedEvent(SavedSearchChangedEvent.Type.DELETED, savedSearch));
+
+        Book book = getBook("Harry Potter and the Prisoner of Azkaban", "J.K. Rowling", 3L, "8.50");
+
+        assertTrue(percolator.percolate(new BookSnapshot(book)).isEmpty());
+        assertEquals(0, percolator.size());
+    }
+
+    @Test
+    void shouldRequireAtLeastOneMeaningfulCriterion() {
+        assertFalse(SavedSearchPercolator.hasCriteria(null, " ", null, "?!"));
+        assertTrue(SavedSearchPercolator.hasCriteria(null, null, BigDecimal.ZERO, null));
+    }
+
+    private SavedSearch save(Long id, Long ownerId, Long genreId, String author, BigDecimal maxPrice, String keywords) {
+        User owner = new User();
+        owner.setId(ownerId);
+        SavedSearch savedSearch = new SavedSearch();
+        savedSearch.setId(id);
+        savedSearch.setOwner(owner);
+        savedSearch.setGenre(genreId == null ? null : new Genre(genreId, "Genre " + genreId));
+        savedSearch.setAuthor(author);
+        savedSearch.setMaxPrice(maxPrice);
+        savedSearch.setKeywords(keywords);
+        percolator.onSavedSearchChanged(new SavedSearchChangedEvent(SavedSearchChangedEvent.Type.CREATED, savedSearch));
+        return savedSearch;
+    }
+
+    private Book getBook(String title, String author, Long genreId, String price) {
+        return BookBuilder.getDefaultBook()
+                          .withTitle(title)
+                          .withAuthor(author)
+                          .withGenre(new Genre(genreId, "Genre " + genreId))
+                          .withForSale(true)
+                          .withPrice(new BigDecimal(price))
+                          .build();
+    }
+}
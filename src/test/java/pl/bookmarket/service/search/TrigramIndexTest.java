@@ -0,0 +1,108 @@
+package pl.bookmarket.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dao.projection.TextValueCount;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.service.search.TrigramIndex.Match;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(SpringExtension.class)
+class TrigramIndexTest {
+
+    @Mock
+    private BookDao bookDao;
+
+    private TrigramIndex index;
+
+    private BookTextDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getTitleCounts()).thenReturn(Arrays.asList(valueCount("Krzyżacy", 2L),
+                                                                        valueCount("Quo vadis", 1L)));
+        Mockito.when(bookDao.getAuthorCounts()).thenReturn(Arrays.asList(valueCount("Henryk Sienkiewicz", 3L),
+                                                                         valueCount("Stefan Żeromski", 1L)));
+        index = new TrigramIndex();
+        dictionary = new BookTextDictionary(bookDao, Collections.singletonList(index));
+        dictionary.rebuild();
+    }
+
+    @Test
+    void shouldFindMisspelledValues() {
+        assertEquals(Collections.singletonList("Henryk Sienkiewicz"), findSimilar("sienkiewcz", BookTextField.AUTHOR));
+        assertEquals(Collections.singletonList("Stefan Żeromski"), findSimilar("Zeromsky", BookTextField.AUTHOR));
+        assertEquals(Collections.singletonList("Krzyżacy"), findSimilar("krzyzaki", BookTextField.TITLE));
+    }
+
+    @Test
+    void shouldSearchOnlyGivenFields() {
+        assertTrue(findSimilar("sienkiewicz", BookTextField.TITLE).isEmpty());
+    }
+
+    @Test
+    void shouldRankMoreSimilarValuesFirst() {
+        Mockito.when(bookDao.getAuthorCounts()).thenReturn(Arrays.asList(valueCount("Jan Kowalski", 1L),
+                                                                         valueCount("Jan Kowalczyk", 1L)));
+        dictionary.rebuild();
+
+        List<Match> matches = index.findSimilar("jan kowalsky", EnumSet.of(BookTextField.AUTHOR), 10);
+
+        assertEquals(Arrays.asList("Jan Kowalski", "Jan Kowalczyk"),
+                     matches.stream().map(Match::getValue).collect(Collectors.toList()));
+        assertTrue(matches.get(0).getSimilarity() > matches.get(1).getSimilarity());
+    }
+
+    @Test
+    void shouldRemoveValueWhenLastBookHavingItChanges() {
+        Book book = BookBuilder.getDefaultBook().withAuthor("Stefan Żeromski").build();
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setAuthor("Bolesław Prus");
+        dictionary.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        assertTrue(findSimilar("zeromski", BookTextField.AUTHOR).isEmpty());
+        assertEquals(Collections.singletonList("Bolesław Prus"), findSimilar("boleslaw prus", BookTextField.AUTHOR));
+    }
+
+    @Test
+    void shouldKeepValueSharedByOtherBooks() {
+        Book book = BookBuilder.getDefaultBook().withTitle("Krzyżacy").build();
+        dictionary.onBookChanged(new BookChangedEvent(new BookSnapshot(book), null));
+
+        assertEquals(Collections.singletonList("Krzyżacy"), findSimilar("krzyzacy", BookTextField.TITLE));
+    }
+
+    private List<String> findSimilar(String text, BookTextField field) {
+        return index.findSimilar(text, EnumSet.of(field), 10).stream().map(Match::getValue).collect(Collectors.toList());
+    }
+
+    private static TextValueCount valueCount(String value, Long count) {
+        return new TextValueCount() {
+            @Override
+            public String getValue() {
+                return value;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
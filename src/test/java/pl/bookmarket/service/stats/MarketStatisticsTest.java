@@ -0,0 +1,135 @@
+package pl.bookmarket.service.stats;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.bookmarket.dao.BookDao;
+import pl.bookmarket.dto.MarketStatsDto.GenreStats;
+import pl.bookmarket.model.Book;
+import pl.bookmarket.model.Genre;
+import pl.bookmarket.service.event.BookChangedEvent;
+import pl.bookmarket.service.event.BookSnapshot;
+import pl.bookmarket.testhelpers.datafactory.BookBuilder;
+import pl.bookmarket.testhelpers.datafactory.UserBuilder;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(SpringExtension.class)
+class MarketStatisticsTest {
+
+    @Mock
+    private BookDao bookDao;
+
+    private MarketStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        Mockito.when(bookDao.getForSaleListings()).thenReturn(Collections.emptyList());
+        statistics = new MarketStatistics(bookDao);
+        statistics.rebuild();
+
+        addBook(getBook(1L, 1L, "10.00"));
+        addBook(getBook(2L, 1L, "20.00"));
+        addBook(getBook(3L, 1L, "60.00"));
+        addBook(getBook(4L, 2L, "5.00"));
+    }
+
+    @Test
+    void shouldAggregateAskingPricesPerGenre() {
+        List<GenreStats> genres = statistics.getStatistics().getGenres();
+
+        assertEquals(2, genres.size());
+        GenreStats first = genres.get(0);
+        assertEquals(1L, first.getGenreId());
+        assertEquals(3, first.getListings());
+        assertEquals(0, first.getTrades());
+        assertEquals(new BigDecimal("30.00"), first.getAverageAskingPrice());
+        assertEquals(20.0, first.getMedianAskingPrice().doubleValue(), 20 * MarketStatistics.RELATIVE_ACCURACY);
+        assertNull(first.getAverageSecondsToSale());
+        assertEquals(1, genres.get(1).getListings());
+    }
+
+    @Test
+    void shouldRecordNewAskingPriceAndMoveListingBetweenGenres() {
+        Book book = getBook(4L, 2L, "5.00");
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setGenre(new Genre(1L, "Genre 1"));
+        book.setPrice(new BigDecimal("30.00"));
+        statistics.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        List<GenreStats> genres = statistics.getStatistics().getGenres();
+        assertEquals(4, genres.get(0).getListings());
+        assertEquals(new BigDecimal("30.00"), genres.get(0).getAverageAskingPrice());
+        assertEquals(0, genres.get(1).getListings());
+    }
+
+    @Test
+    void shouldReplaceAskingPriceOnChangeAndRemoveItOnDelisting() {
+        Book book = getBook(3L, 1L, "60.00");
+        BookSnapshot listed = new BookSnapshot(book);
+        book.setPrice(new BigDecimal("30.00"));
+        statistics.onBookChanged(new BookChangedEvent(listed, new BookSnapshot(book)));
+
+        assertEquals(new BigDecimal("20.00"), statistics.getStatistics().getGenres().get(0).getAverageAskingPrice());
+
+        BookSnapshot discounted = new BookSnapshot(book);
+        book.setForSale(false);
+        book.setPrice(null);
+        statistics.onBookChanged(new BookChangedEvent(discounted, new BookSnapshot(book)));
+
+        GenreStats genre = statistics.getStatistics().getGenres().get(0);
+        assertEquals(2, genre.getListings());
+        assertEquals(new BigDecimal("15.00"), genre.getAverageAskingPrice());
+        assertEquals(10.0, genre.getMedianAskingPrice().doubleValue(), 10 * MarketStatistics.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void shouldRecordTradeAndTimeToSale() {
+        Book book = getBook(1L, 1L, "10.00");
+        book.setListedOn(OffsetDateTime.now().minusHours(2));
+        BookSnapshot previous = new BookSnapshot(book);
+        book.setOwner(UserBuilder.getDefaultUser().build());
+        book.setForSale(false);
+        book.setPrice(null);
+        book.setListedOn(null);
+        statistics.onBookChanged(new BookChangedEvent(previous, new BookSnapshot(book)));
+
+        GenreStats genre = statistics.getStatistics().getGenres().get(0);
+        assertEquals(2, genre.getListings());
+        assertEquals(1, genre.getTrades());
+        assertEquals(7200, genre.getAverageSecondsToSale(), 5);
+        assertEquals(7200, genre.getMedianSecondsToSale(), 7200 * MarketStatistics.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void shouldNotCountDeletedListingAsTrade() {
+        statistics.onBookChanged(new BookChangedEvent(new BookSnapshot(getBook(4L, 2L, "5.00")), null));
+
+        GenreStats genre = statistics.getStatistics().getGenres().get(1);
+        assertEquals(0, genre.getListings());
+        assertEquals(0, genre.getTrades());
+    }
+
+    private void addBook(Book book) {
+        statistics.onBookChanged(new BookChangedEvent(null, new BookSnapshot(book)));
+    }
+
+    private Book getBook(Long id, Long genreId, String price) {
+        return BookBuilder.getDefaultBook()
+                          .withId(id)
+                          .withGenre(new Genre(genreId, "Genre " + genreId))
+                          .withOwner(UserBuilder.getDefaultUser().withId(1L).build())
+                          .withForSale(true)
+                          .withPrice(new BigDecimal(price))
+                          .build();
+    }
+}
@@ -0,0 +1,54 @@
+package pl.bookmarket.service.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void shouldEstimateQuantilesWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (int i = 1; i <= 10000; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(10000, sketch.getCount());
+        assertEquals(5000, sketch.getQuantile(0.5), 5000 * ACCURACY);
+        assertEquals(9900, sketch.getQuantile(0.99), 9900 * ACCURACY);
+        assertEquals(1, sketch.getQuantile(0), ACCURACY);
+    }
+
+    @Test
+    void shouldReturnZeroForZeroValues() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(12.5);
+
+        assertEquals(0, sketch.getQuantile(0.5));
+        assertEquals(12.5, sketch.getQuantile(1), 12.5 * ACCURACY);
+    }
+
+    @Test
+    void shouldNotCountRemovedValues() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.add(0);
+        sketch.add(10);
+        sketch.add(100);
+        sketch.remove(0);
+        sketch.remove(100);
+
+        assertEquals(1, sketch.getCount());
+        assertEquals(10, sketch.getQuantile(0.5), 10 * ACCURACY);
+        assertEquals(10, sketch.getQuantile(1), 10 * ACCURACY);
+    }
+
+    @Test
+    void shouldReturnNaNWhenEmpty() {
+        assertTrue(Double.isNaN(new QuantileSketch(ACCURACY).getQuantile(0.5)));
+    }
+}
@@ -7,6 +7,7 @@ import pl.bookmarket.model.Offer;
 import pl.bookmarket.model.User;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.Set;
 
@@ -29,6 +30,8 @@ public class BookBuilder {
         dto.setGenreId(book.getGenre() == null ? null : book.getGenre().getId());
         dto.setForSale(book.isForSale());
         dto.setPrice(book.getPrice());
+        dto.setAuctionEndsOn(book.getAuctionEndsOn());
+        dto.setReservePrice(book.getReservePrice());
         return dto;
     }
 
@@ -82,6 +85,21 @@ public class BookBuilder {
         return this;
     }
 
+    public BookBuilder withAuctionEndsOn(OffsetDateTime auctionEndsOn) {
+        book.setAuctionEndsOn(auctionEndsOn);
+        return this;
+    }
+
+    public BookBuilder withReservePrice(BigDecimal reservePrice) {
+        book.setReservePrice(reservePrice);
+        return this;
+    }
+
+    public BookBuilder withListedOn(OffsetDateTime listedOn) {
+        book.setListedOn(listedOn);
+        return this;
+    }
+
     public BookBuilder withOffers(Set<Offer> offers) {
         book.setOffers(offers);
         return this;
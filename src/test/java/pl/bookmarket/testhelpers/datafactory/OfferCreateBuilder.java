@@ -2,6 +2,9 @@ package pl.bookmarket.testhelpers.datafactory;
 
 import pl.bookmarket.dto.OfferCreateDto;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
 public class OfferCreateBuilder {
 
     private final OfferCreateDto offer = new OfferCreateDto();
@@ -15,6 +18,16 @@ public class OfferCreateBuilder {
         return this;
     }
 
+    public OfferCreateBuilder withAmount(BigDecimal amount) {
+        offer.setAmount(amount);
+        return this;
+    }
+
+    public OfferCreateBuilder withExpiresOn(OffsetDateTime expiresOn) {
+        offer.setExpiresOn(expiresOn);
+        return this;
+    }
+
     public OfferCreateBuilder withBookId(Long bookId) {
         offer.setBookId(bookId);
         return this;
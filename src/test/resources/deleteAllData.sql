@@ -1,3 +1,5 @@
+RUNSCRIPT FROM 'classpath:deleteTrades.sql';
+RUNSCRIPT FROM 'classpath:deleteSavedSearches.sql';
 RUNSCRIPT FROM 'classpath:deleteMessages.sql';
 RUNSCRIPT FROM 'classpath:deleteOffers.sql';
 RUNSCRIPT FROM 'classpath:deleteBooks.sql';
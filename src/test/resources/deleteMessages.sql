@@ -1 +1,5 @@
+DELETE FROM MESSAGE_ARCHIVE_SEGMENT;
+DELETE FROM BROADCAST;
+DELETE FROM NOTIFICATION;
+DELETE FROM CONVERSATION;
 DELETE FROM MESSAGE;
\ No newline at end of file
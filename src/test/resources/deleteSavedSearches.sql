@@ -0,0 +1 @@
+DELETE FROM SAVED_SEARCH;
\ No newline at end of file
@@ -0,0 +1 @@
+DELETE FROM TRADE;
\ No newline at end of file
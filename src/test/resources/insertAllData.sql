@@ -3,4 +3,5 @@ RUNSCRIPT FROM 'classpath:insertUsers.sql';
 RUNSCRIPT FROM 'classpath:insertGenres.sql';
 RUNSCRIPT FROM 'classpath:insertBooks.sql';
 RUNSCRIPT FROM 'classpath:insertOffers.sql';
-RUNSCRIPT FROM 'classpath:insertMessages.sql';
\ No newline at end of file
+RUNSCRIPT FROM 'classpath:insertMessages.sql';
+RUNSCRIPT FROM 'classpath:insertConversations.sql';
\ No newline at end of file
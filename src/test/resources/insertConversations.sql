@@ -0,0 +1,6 @@
+SET @FORMATTER = 'yyyy-MM-dd HH:mm:ssZ';
+
+INSERT INTO CONVERSATION (ID, OWNER_ID, PEER_ID, LAST_MESSAGE_ID, LAST_MESSAGE_TEXT, LAST_MESSAGE_SENT, LAST_ACTIVITY, UNREAD_COUNT)
+VALUES (1, 1, 2, 3, 'Please check my books for sale.', true, PARSEDATETIME('2022-06-14 18:43:26+0100', @FORMATTER), 0);
+INSERT INTO CONVERSATION (ID, OWNER_ID, PEER_ID, LAST_MESSAGE_ID, LAST_MESSAGE_TEXT, LAST_MESSAGE_SENT, LAST_ACTIVITY, UNREAD_COUNT)
+VALUES (2, 2, 1, 3, 'Please check my books for sale.', false, PARSEDATETIME('2022-06-14 18:43:26+0100', @FORMATTER), 1);
\ No newline at end of file